@@ -0,0 +1,216 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sci.image.Image;
+import net.sci.image.regfeat.ElementCount;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.morpho2d.Area;
+import net.sci.image.regfeat.morpho2d.Circularity;
+import net.sci.image.regfeat.morpho2d.EulerNumber;
+import net.sci.image.regfeat.morpho2d.Perimeter;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+import net.sci.image.regfeat.morpho2d.core.EulerNumber_C4;
+import net.sci.image.regfeat.morpho2d.core.EulerNumber_C8;
+import net.sci.image.regfeat.morpho2d.core.Perimeter_Crofton_D2;
+import net.sci.image.regfeat.morpho2d.core.Perimeter_Crofton_D4;
+import net.sci.table.Table;
+
+/**
+ * Benchmarks the computation of region features on synthetic label maps.
+ * 
+ * The throughput is reported both as operations per second, and as pixels per
+ * second through the "pixels" secondary result. The allocation rate is
+ * obtained by running the benchmarks with the GC profiler:
+ * 
+ * <pre>
+ * java -jar target/benchmarks.jar -prof gc
+ * </pre>
+ * 
+ * The benchmarks are run with the Vector API module, so that the vectorized
+ * configuration kernel is used when the library has been built with the
+ * <code>vector</code> profile.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class RegionFeaturesBenchmark
+{
+    // ==================================================
+    // States
+    
+    /**
+     * The label map to analyze, with its labels and precomputed histograms.
+     */
+    @State(Scope.Benchmark)
+    public static class LabelMapState
+    {
+        @Param({ "1024", "4096" })
+        public int size;
+        
+        @Param({ "100", "10000" })
+        public int nRegions;
+        
+        @Param({ "BLOCKS", "DISKS", "NOISE" })
+        public SyntheticLabelMaps.Shape shape;
+        
+        @Param({ "DENSE", "SPARSE" })
+        public SyntheticLabelMaps.Sparsity sparsity;
+        
+        @Param({ "false", "true" })
+        public boolean parallel;
+        
+        Image image;
+        int[] labels;
+        int[][] histograms;
+        
+        @Setup(Level.Trial)
+        public void setup()
+        {
+            image = SyntheticLabelMaps.create(size, nRegions, shape, sparsity, 42);
+            RegionFeatures data = RegionFeatures.initialize(image);
+            data.process(BinaryConfigurationHistogram.class);
+            labels = data.getLabels();
+            histograms = (int[][]) data.results.get(BinaryConfigurationHistogram.class);
+        }
+        
+        /**
+         * @return a new analysis for the label map, with known labels.
+         */
+        RegionFeatures createAnalysis()
+        {
+            return RegionFeatures.initialize(image, labels).parallel(parallel);
+        }
+        
+        /**
+         * @return a new analysis with precomputed configuration histograms.
+         */
+        RegionFeatures createAnalysisWithHistograms()
+        {
+            RegionFeatures data = createAnalysis();
+            data.results.put(BinaryConfigurationHistogram.class, histograms);
+            return data;
+        }
+    }
+    
+    /**
+     * Counts the number of pixels processed during each iteration, to report
+     * the throughput in pixels per second.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class PixelCounter
+    {
+        public long pixels;
+        
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            pixels = 0;
+        }
+        
+        void add(LabelMapState state)
+        {
+            pixels += (long) state.size * state.size;
+        }
+    }
+    
+    
+    // ==================================================
+    // Scan features
+    
+    @Benchmark
+    public Object elementCount(LabelMapState state, PixelCounter counter)
+    {
+        counter.add(state);
+        return compute(state.createAnalysis(), ElementCount.class);
+    }
+    
+    @Benchmark
+    public Object binaryConfigurationHistogram(LabelMapState state, PixelCounter counter)
+    {
+        counter.add(state);
+        return compute(state.createAnalysis(), BinaryConfigurationHistogram.class);
+    }
+    
+    @Benchmark
+    public Object labelIdentification(LabelMapState state, PixelCounter counter)
+    {
+        counter.add(state);
+        return RegionFeatures.initialize(state.image).parallel(state.parallel).getLabels();
+    }
+    
+    
+    // ==================================================
+    // Features computed from configuration histograms
+    
+    @Benchmark
+    public Object perimeterCroftonD2(LabelMapState state)
+    {
+        return compute(state.createAnalysisWithHistograms(), Perimeter_Crofton_D2.class);
+    }
+    
+    @Benchmark
+    public Object perimeterCroftonD4(LabelMapState state)
+    {
+        return compute(state.createAnalysisWithHistograms(), Perimeter_Crofton_D4.class);
+    }
+    
+    @Benchmark
+    public Object eulerNumberC4(LabelMapState state)
+    {
+        return compute(state.createAnalysisWithHistograms(), EulerNumber_C4.class);
+    }
+    
+    @Benchmark
+    public Object eulerNumberC8(LabelMapState state)
+    {
+        return compute(state.createAnalysisWithHistograms(), EulerNumber_C8.class);
+    }
+    
+    
+    // ==================================================
+    // Composite features and full analysis
+    
+    @Benchmark
+    public Object circularity(LabelMapState state, PixelCounter counter)
+    {
+        counter.add(state);
+        return compute(state.createAnalysis(), Circularity.class);
+    }
+    
+    @Benchmark
+    public Table[] createTables(LabelMapState state, PixelCounter counter)
+    {
+        counter.add(state);
+        RegionFeatures data = RegionFeatures.initialize(state.image).parallel(state.parallel);
+        data.add(Area.class).add(Perimeter.class).add(EulerNumber.class).add(Circularity.class);
+        return data.createTables();
+    }
+    
+    private static final Object compute(RegionFeatures data, Class<? extends Feature> featureClass)
+    {
+        data.process(featureClass);
+        return data.results.get(featureClass);
+    }
+}
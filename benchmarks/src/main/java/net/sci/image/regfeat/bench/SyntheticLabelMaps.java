@@ -0,0 +1,128 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.bench;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import net.sci.array.numeric.Int32Array2D;
+import net.sci.image.Image;
+
+/**
+ * Generates synthetic label maps used for benchmarking the computation of
+ * region features.
+ * 
+ * Regions are arranged on a regular grid of square cells covering the image.
+ * The shape of the regions within each cell, as well as the distribution of
+ * label values, can be chosen.
+ */
+public class SyntheticLabelMaps
+{
+    /**
+     * The shape of the regions within the label map.
+     */
+    public enum Shape
+    {
+        /** Each region fills its cell, regions touch each other */
+        BLOCKS,
+        /** Each region is a disk centered in its cell, surrounded by background */
+        DISKS,
+        /** Each pixel receives the label of a random region (worst case) */
+        NOISE
+    }
+    
+    /**
+     * The distribution of label values.
+     */
+    public enum Sparsity
+    {
+        /** Labels are consecutive integers starting from 1 */
+        DENSE,
+        /** Labels are random 32-bit integers, as obtained from hashing */
+        SPARSE
+    }
+    
+    /**
+     * Creates a new square label map.
+     * 
+     * @param size
+     *            the size of the label map along each dimension
+     * @param nRegions
+     *            the number of regions
+     * @param shape
+     *            the shape of the regions
+     * @param sparsity
+     *            the distribution of label values
+     * @param seed
+     *            the seed of the random number generator
+     * @return a new Image containing the label map
+     */
+    public static final Image create(int size, int nRegions, Shape shape, Sparsity sparsity, long seed)
+    {
+        Random random = new Random(seed);
+        int[] labels = createLabels(nRegions, sparsity, random);
+        
+        // regions are arranged on a grid of cells
+        int nCells = (int) Math.ceil(Math.sqrt(nRegions));
+        double cellSize = (double) size / nCells;
+        double radius = 0.4 * cellSize;
+        
+        Int32Array2D array = Int32Array2D.create(size, size);
+        for (int y = 0; y < size; y++)
+        {
+            int cy = Math.min((int) (y / cellSize), nCells - 1);
+            for (int x = 0; x < size; x++)
+            {
+                int cx = Math.min((int) (x / cellSize), nCells - 1);
+                int cell = cy * nCells + cx;
+                int label = cell < nRegions ? labels[cell] : 0;
+                
+                switch (shape)
+                {
+                    case BLOCKS:
+                        break;
+                    case DISKS:
+                        double dx = x + 0.5 - (cx + 0.5) * cellSize;
+                        double dy = y + 0.5 - (cy + 0.5) * cellSize;
+                        if (dx * dx + dy * dy > radius * radius) label = 0;
+                        break;
+                    case NOISE:
+                        label = labels[random.nextInt(nRegions)];
+                        break;
+                }
+                array.setInt(x, y, label);
+            }
+        }
+        
+        Image image = new Image(array);
+        image.setName(String.format("%s-%s-%d-%d", shape, sparsity, size, nRegions));
+        return image;
+    }
+    
+    private static final int[] createLabels(int nRegions, Sparsity sparsity, Random random)
+    {
+        int[] labels = new int[nRegions];
+        if (sparsity == Sparsity.DENSE)
+        {
+            for (int i = 0; i < nRegions; i++)
+            {
+                labels[i] = i + 1;
+            }
+            return labels;
+        }
+        
+        // random distinct non-zero labels
+        HashSet<Integer> used = new HashSet<>();
+        for (int i = 0; i < nRegions; i++)
+        {
+            int label;
+            do
+            {
+                label = random.nextInt();
+            } while (label == 0 || !used.add(label));
+            labels[i] = label;
+        }
+        return labels;
+    }
+}
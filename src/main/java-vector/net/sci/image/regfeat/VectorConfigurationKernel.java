@@ -0,0 +1,77 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes the configurations of a region using the Vector API. The rows are
+ * compared to the region index by segments of the preferred vector size, the
+ * four comparison masks being packed into configuration codes. Segments
+ * containing only background or only the region are counted at once, the
+ * codes of the other segments being counted individually.
+ * 
+ * This class is compiled only by the <code>vector</code> build profile, and
+ * is loaded only when the <code>jdk.incubator.vector</code> module is
+ * available.
+ * 
+ * @see ConfigurationKernel
+ */
+final class VectorConfigurationKernel extends ConfigurationKernel
+{
+    /**
+     * The species of the vectors, using the preferred size of the platform.
+     */
+    static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    
+    /**
+     * The buffer used to store the codes of a segment, for each thread.
+     */
+    private static final ThreadLocal<int[]> codeBuffers = ThreadLocal.withInitial(() -> new int[SPECIES.length()]);
+    
+    @Override
+    public void histogram(int[] prevRow, int[] currRow, int nConfigs, int index, int[] histo)
+    {
+        int length = SPECIES.length();
+        int[] codes = codeBuffers.get();
+        IntVector zero = IntVector.zero(SPECIES);
+        
+        int x = 0;
+        for (; x <= nConfigs - length; x += length)
+        {
+            // pack the comparisons of the four pixels of each configuration
+            IntVector code = zero.blend(1, IntVector.fromArray(SPECIES, prevRow, x).eq(index))
+                    .or(zero.blend(2, IntVector.fromArray(SPECIES, prevRow, x + 1).eq(index)))
+                    .or(zero.blend(4, IntVector.fromArray(SPECIES, currRow, x).eq(index)))
+                    .or(zero.blend(8, IntVector.fromArray(SPECIES, currRow, x + 1).eq(index)));
+            
+            // uniform segments are counted at once
+            if (code.eq(0).allTrue())
+            {
+                histo[0] += length;
+                continue;
+            }
+            if (code.eq(15).allTrue())
+            {
+                histo[15] += length;
+                continue;
+            }
+            
+            code.intoArray(codes, 0);
+            for (int k = 0; k < length; k++)
+            {
+                histo[codes[k]]++;
+            }
+        }
+        
+        // process remaining configurations
+        for (; x < nConfigs; x++)
+        {
+            int code = (prevRow[x] == index ? 1 : 0) | (prevRow[x + 1] == index ? 2 : 0)
+                    | (currRow[x] == index ? 4 : 0) | (currRow[x + 1] == index ? 8 : 0);
+            histo[code]++;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import net.sci.axis.CategoricalAxis;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * Records the cost of the computation of each feature within a
+ * {@code RegionFeatures} analysis: wall time, CPU time, number of pixels and
+ * configurations scanned, number of bytes allocated, and whether the result
+ * was already available.
+ * 
+ * The pixels and configurations of the features computed by the scan engine
+ * are counted by the scanner. The other features report the number of pixels
+ * and configurations they traverse through the
+ * {@link #addTraversal(Class, long, long)} method, for example the pixels of
+ * a distance map or of the bounding boxes of the regions.
+ * 
+ * CPU time and allocated bytes are measured on the thread that computes the
+ * feature. When the label map is scanned in parallel bands, the work
+ * performed by the other threads of the pool is not included.
+ * 
+ * @see RegionFeatures#getReport()
+ */
+public class ComputationReport
+{
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * The measures recorded for one computation step.
+     * 
+     * @param name
+     *            the name of the step
+     * @param features
+     *            the classes of the features computed during this step
+     * @param wallTime
+     *            the elapsed time, in nanoseconds
+     * @param cpuTime
+     *            the CPU time of the computing thread, in nanoseconds, or -1
+     *            if not available
+     * @param pixelCount
+     *            the number of pixels scanned or traversed
+     * @param configurationCount
+     *            the number of configurations scanned or traversed
+     * @param allocatedBytes
+     *            the number of bytes allocated by the computing thread, or -1
+     *            if not available
+     * @param cacheHit
+     *            true if the result was already computed
+     */
+    public record Entry(String name, Collection<Class<? extends Feature>> features, long wallTime, long cpuTime,
+            long pixelCount, long configurationCount, long allocatedBytes, boolean cacheHit)
+    {
+    }
+    
+    /**
+     * Measures the resources used by the current thread from the creation of
+     * the probe.
+     */
+    public class Probe
+    {
+        final long startWallTime;
+        final long startCpuTime;
+        final long startAllocatedBytes;
+        
+        Probe()
+        {
+            this.startWallTime = System.nanoTime();
+            this.startCpuTime = currentCpuTime();
+            this.startAllocatedBytes = currentAllocatedBytes();
+        }
+        
+        /**
+         * Records a new entry within the report, using the resources consumed
+         * since the creation of this probe.
+         * 
+         * @param name
+         *            the name of the computation step
+         * @param features
+         *            the classes of the features computed during this step
+         * @param pixelCount
+         *            the number of pixels scanned
+         * @param configurationCount
+         *            the number of 2-by-2 configurations scanned
+         * @return the new entry
+         */
+        public Entry stop(String name, Collection<Class<? extends Feature>> features, long pixelCount, long configurationCount)
+        {
+            long wallTime = System.nanoTime() - startWallTime;
+            long cpuTime = startCpuTime < 0 ? -1 : currentCpuTime() - startCpuTime;
+            long allocatedBytes = startAllocatedBytes < 0 ? -1 : currentAllocatedBytes() - startAllocatedBytes;
+            Entry entry = new Entry(name, features, wallTime, cpuTime, pixelCount, configurationCount, allocatedBytes, false);
+            add(entry);
+            return entry;
+        }
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The recorded entries, in the order of their completion.
+     */
+    List<Entry> entries = new ArrayList<>();
+    
+    /**
+     * The number of pixels and of configurations traversed by the features
+     * being computed, reported by the features themselves.
+     */
+    Map<Class<? extends Feature>, LongAdder[]> traversals = new ConcurrentHashMap<>();
+    
+    
+    // ==================================================
+    // Methods
+    
+    /**
+     * Starts the measure of a new computation step.
+     * 
+     * @return a new probe that will record an entry when stopped
+     */
+    public Probe start()
+    {
+        return new Probe();
+    }
+    
+    /**
+     * Records the retrieval of an already computed feature.
+     * 
+     * @param featureClass
+     *            the class of the feature
+     */
+    public void addCacheHit(Class<? extends Feature> featureClass)
+    {
+        add(new Entry(featureClass.getSimpleName(), List.of(featureClass), 0, 0, 0, 0, 0, true));
+    }
+    
+    /**
+     * Adds to the cost of the computation of a feature the number of pixels
+     * and configurations traversed by the feature. Can be called several
+     * times during the computation, from any thread. The counts are recorded
+     * within the entry of the feature when its computation ends.
+     * 
+     * @param featureClass
+     *            the class of the feature being computed
+     * @param pixelCount
+     *            the number of pixels traversed
+     * @param configurationCount
+     *            the number of configurations traversed
+     */
+    public void addTraversal(Class<? extends Feature> featureClass, long pixelCount, long configurationCount)
+    {
+        LongAdder[] counts = traversals.computeIfAbsent(featureClass, fc -> new LongAdder[] {new LongAdder(), new LongAdder()});
+        counts[0].add(pixelCount);
+        counts[1].add(configurationCount);
+    }
+    
+    /**
+     * Returns the numbers of pixels and of configurations traversed by a
+     * feature since the last call, as a 2-element array.
+     */
+    long[] takeTraversal(Class<? extends Feature> featureClass)
+    {
+        LongAdder[] counts = traversals.remove(featureClass);
+        if (counts == null) return new long[] {0, 0};
+        return new long[] {counts[0].sum(), counts[1].sum()};
+    }
+    
+    private synchronized void add(Entry entry)
+    {
+        this.entries.add(entry);
+    }
+    
+    /**
+     * @return a copy of the list of the recorded entries.
+     */
+    public synchronized List<Entry> entries()
+    {
+        return new ArrayList<>(entries);
+    }
+    
+    /**
+     * Returns the entry corresponding to the computation of the specified
+     * feature, or null if the feature was not computed.
+     * 
+     * @param featureClass
+     *            the class of the feature
+     * @return the entry of the step that computed the feature
+     */
+    public synchronized Entry get(Class<? extends Feature> featureClass)
+    {
+        for (Entry entry : entries)
+        {
+            if (!entry.cacheHit() && entry.features().contains(featureClass))
+            {
+                return entry;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * @return the sum of the wall times of all entries, in nanoseconds.
+     */
+    public synchronized long totalWallTime()
+    {
+        return entries.stream().mapToLong(Entry::wallTime).sum();
+    }
+    
+    /**
+     * Creates a new table containing one row for each entry of the report.
+     * Times are given in milliseconds.
+     * 
+     * @return a new Table summarizing the computation costs.
+     */
+    public synchronized Table createTable()
+    {
+        int n = entries.size();
+        String[] names = new String[n];
+        double[] wallTimes = new double[n];
+        double[] cpuTimes = new double[n];
+        double[] pixels = new double[n];
+        double[] configs = new double[n];
+        double[] bytes = new double[n];
+        double[] hits = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            Entry entry = entries.get(i);
+            names[i] = entry.name();
+            wallTimes[i] = entry.wallTime() * 1e-6;
+            cpuTimes[i] = entry.cpuTime() < 0 ? Double.NaN : entry.cpuTime() * 1e-6;
+            pixels[i] = entry.pixelCount();
+            configs[i] = entry.configurationCount();
+            bytes[i] = entry.allocatedBytes() < 0 ? Double.NaN : entry.allocatedBytes();
+            hits[i] = entry.cacheHit() ? 1 : 0;
+        }
+        
+        Table table = Table.create(n, 0);
+        table.addColumn(NumericColumn.create("Wall_Time_ms", wallTimes));
+        table.addColumn(NumericColumn.create("CPU_Time_ms", cpuTimes));
+        table.addColumn(NumericColumn.create("Pixels", pixels));
+        table.addColumn(NumericColumn.create("Configurations", configs));
+        table.addColumn(NumericColumn.create("Allocated_Bytes", bytes));
+        table.addColumn(NumericColumn.create("Cache_Hit", hits));
+        table.setRowAxis(new CategoricalAxis("Step", names));
+        table.setName("Computation Report");
+        return table;
+    }
+    
+    
+    // ==================================================
+    // Utility methods for measuring resources
+    
+    private static final long currentCpuTime()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        return bean.isCurrentThreadCpuTimeSupported() ? bean.getCurrentThreadCpuTime() : -1;
+    }
+    
+    private static final long currentAllocatedBytes()
+    {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled())
+        {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,132 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+/**
+ * Computes the histogram of the 2-by-2 configurations of a single region
+ * between two rows of region indices. Used by the scanner for label maps
+ * containing few regions, for example binary masks, for which it is more
+ * efficient to process each region in turn over whole rows than each
+ * configuration in turn.
+ * 
+ * Rows are padded as in the scanner: the configuration at position x
+ * contains the elements x and x+1 of both rows. The configuration code uses
+ * 1 for the upper-left pixel, 2 for the upper-right pixel, 4 for the
+ * lower-left pixel, and 8 for the lower-right pixel.
+ * 
+ * Two implementations are provided: a vectorized one based on the Vector
+ * API, and a scalar one. The vectorized implementation is located within a
+ * separate source directory, compiled only by the <code>vector</code> build
+ * profile, so that the default build does not depend on the incubator
+ * module. It is used when it has been compiled and the
+ * <code>jdk.incubator.vector</code> module is available (for example by
+ * running the JVM with the <code>--add-modules jdk.incubator.vector</code>
+ * option), and the scalar one otherwise.
+ * 
+ * @see LabelMapScanner
+ */
+public abstract class ConfigurationKernel
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The name of the module containing the Vector API.
+     */
+    static final String VECTOR_MODULE = "jdk.incubator.vector";
+    
+    /**
+     * The name of the class of the vectorized kernel, loaded by reflection
+     * as it is not compiled by the default build.
+     */
+    static final String VECTOR_KERNEL_CLASS = "net.sci.image.regfeat.VectorConfigurationKernel";
+    
+    /**
+     * The kernel used by the scanner, chosen at initialization.
+     */
+    static final ConfigurationKernel INSTANCE = create();
+    
+    /**
+     * Creates the vectorized kernel if it has been compiled and the Vector
+     * API is available, and the scalar kernel otherwise.
+     */
+    private static final ConfigurationKernel create()
+    {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent())
+        {
+            try
+            {
+                return Class.forName(VECTOR_KERNEL_CLASS)
+                        .asSubclass(ConfigurationKernel.class)
+                        .getDeclaredConstructor()
+                        .newInstance();
+            }
+            catch (ReflectiveOperationException ex)
+            {
+                // the vectorized kernel has not been compiled
+            }
+            catch (LinkageError ex)
+            {
+                // the module is present, but can not be read by this module
+            }
+        }
+        return new Scalar();
+    }
+    
+    /**
+     * @return the kernel used by the scanner.
+     */
+    public static final ConfigurationKernel getInstance()
+    {
+        return INSTANCE;
+    }
+    
+    
+    // ==================================================
+    // Abstract methods
+    
+    /**
+     * Adds the number of configurations of each type for the region with the
+     * specified index, between the two rows. Configurations that do not
+     * contain the region are counted within the first element of the
+     * histogram.
+     * 
+     * @param prevRow
+     *            the region indices of the previous row, with at least
+     *            <code>nConfigs+1</code> elements
+     * @param currRow
+     *            the region indices of the current row, with at least
+     *            <code>nConfigs+1</code> elements
+     * @param nConfigs
+     *            the number of configurations to process
+     * @param index
+     *            the index of the region
+     * @param histo
+     *            the histogram to update, with 16 elements
+     */
+    public abstract void histogram(int[] prevRow, int[] currRow, int nConfigs, int index, int[] histo);
+    
+    
+    // ==================================================
+    // Scalar implementation
+    
+    /**
+     * Computes the configurations one at a time.
+     */
+    static final class Scalar extends ConfigurationKernel
+    {
+        @Override
+        public void histogram(int[] prevRow, int[] currRow, int nConfigs, int index, int[] histo)
+        {
+            // reuse the bits of the right pixels as left pixels of next configuration
+            int right = (prevRow[0] == index ? 2 : 0) | (currRow[0] == index ? 8 : 0);
+            for (int x = 0; x < nConfigs; x++)
+            {
+                int left = right >> 1;
+                right = (prevRow[x + 1] == index ? 2 : 0) | (currRow[x + 1] == index ? 8 : 0);
+                histo[left | right]++;
+            }
+        }
+    }
+}
@@ -3,11 +3,11 @@
  */
 package net.sci.image.regfeat;
 
-import java.util.Map;
+import java.util.Arrays;
 
 import net.sci.array.Array;
+import net.sci.array.numeric.Int;
 import net.sci.array.numeric.IntArray;
-import net.sci.image.label.LabelImages;
 import net.sci.table.IntegerColumn;
 import net.sci.table.Table;
 
@@ -17,7 +17,7 @@ import net.sci.table.Table;
  * Note: this class does not implement SingleValueFeature, as the result is
  * given as an array of int, rather than an array of double.
  */
-public class ElementCount implements RegionTabularFeature
+public class ElementCount implements RegionTabularFeature, ScanFeature
 {
     /**
      * Default empty constructor.
@@ -29,12 +29,25 @@ public class ElementCount implements RegionTabularFeature
     @Override
     public int[] compute(RegionFeatures data)
     {
-        // create map of labels to indices
-        Map<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(data.labels);
+        // 2D label maps are processed by the label map scanner
+        if (data.dimensionality() == 2)
+        {
+            return (int[]) ScanFeature.super.compute(data);
+        }
         
-        // retrieve image size
-        Array<?> array = data.labelMap.getData();
-        IntArray<?> labelMap = (IntArray<?>) array;
+        // retrieve index of each label
+        LabelIndex labelIndex = data.labelIndex();
+        
+        // 3D label maps are read row by row, with a loop specialized for the
+        // type of the array
+        if (data.dimensionality() == 3)
+        {
+            return countElements3d(data, labelIndex);
+        }
+        
+        // retrieve label map data
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        IntArray<?> labelMap = IntArray.wrap((Array<? extends Int>) data.labelMap.getData());
         
         // allocate memory
         int[] counts = new int[data.labels.length];
@@ -46,15 +59,74 @@ public class ElementCount implements RegionTabularFeature
             int label = iter.nextInt();
             // process only labels specified in data
             if (label == 0) continue;
-            if (!labelIndices.containsKey(label)) continue;
+            int index = labelIndex.indexOf(label);
+            if (index < 0) continue;
             
             // update result
-            counts[labelIndices.get(label)]++;
+            counts[index]++;
         }
         
         return counts;
     }
+    
+    /**
+     * Counts the elements of each region of a 3D label map, by reading the
+     * label map row by row.
+     */
+    private static final int[] countElements3d(RegionFeatures data, LabelIndex labelIndex)
+    {
+        // create a row reader specialized for the type of the label map
+        LabelRowReader reader = LabelRowReader.create(data.labelMap.getData());
+        int sizeX = reader.sizeX();
+        int sizeY = reader.sizeY();
+        int sizeZ = reader.sizeZ();
+        
+        // allocate memory
+        int[] counts = new int[data.labels.length];
+        int[] row = new int[sizeX];
+        
+        // iterate over the rows of the label map
+        for (int z = 0; z < sizeZ; z++)
+        {
+            for (int y = 0; y < sizeY; y++)
+            {
+                reader.readRow(y, z, 0, sizeX, row);
+                
+                // keep index of previous label, as successive elements often
+                // share the same label
+                int prevLabel = 0;
+                int prevIndex = -1;
+                for (int x = 0; x < sizeX; x++)
+                {
+                    int label = row[x];
+                    if (label != prevLabel)
+                    {
+                        // process only labels specified in data
+                        prevLabel = label;
+                        prevIndex = label == 0 ? -1 : labelIndex.indexOf(label);
+                    }
+                    
+                    // update result
+                    if (prevIndex >= 0) counts[prevIndex]++;
+                }
+            }
+        }
+        
+        return counts;
+    }
+    
+    @Override
+    public ScanAccumulator createAccumulator(RegionFeatures data)
+    {
+        return new Accumulator();
+    }
 
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return new String[] {"Count"};
+    }
+    
     @Override
     public void updateTable(Table table, RegionFeatures data)
     {
@@ -73,5 +145,71 @@ public class ElementCount implements RegionTabularFeature
             throw new RuntimeException("Requires object argument to be an array of integer values");
         }
     }
-
+    
+    /**
+     * Counts the number of pixels of each region during the scan of the label
+     * map.
+     */
+    private static final class Accumulator implements ScanAccumulator
+    {
+        int[] counts = new int[0];
+        
+        @Override
+        public void ensureCapacity(int nRegions)
+        {
+            if (nRegions > counts.length)
+            {
+                counts = Arrays.copyOf(counts, Math.max(nRegions, counts.length * 2));
+            }
+        }
+        
+        @Override
+        public void addPixel(int index, int x, int y)
+        {
+            counts[index]++;
+        }
+        
+        @Override
+        public void addRun(int index, int x0, int x1, int y)
+        {
+            counts[index] += x1 - x0;
+        }
+        
+        @Override
+        public void merge(ScanAccumulator other, int[] indexMap)
+        {
+            int[] otherCounts = ((Accumulator) other).counts;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                counts[indexMap[i]] += otherCounts[i];
+            }
+        }
+        
+        @Override
+        public boolean isSubtractable()
+        {
+            return true;
+        }
+        
+        @Override
+        public void subtract(ScanAccumulator other, int[] indexMap)
+        {
+            int[] otherCounts = ((Accumulator) other).counts;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                counts[indexMap[i]] -= otherCounts[i];
+            }
+        }
+        
+        @Override
+        public int[] result(int[] order)
+        {
+            int[] res = new int[order.length];
+            for (int i = 0; i < order.length; i++)
+            {
+                res[i] = counts[order[i]];
+            }
+            return res;
+        }
+    }
 }
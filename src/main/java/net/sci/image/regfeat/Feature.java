@@ -111,4 +111,50 @@ public interface Feature
     {
         return Collections.emptyList();
     }
+    
+    /**
+     * Returns the version of the computation of this feature. The version is
+     * part of the key of the results stored within a persistent cache, and
+     * should be incremented each time the results of the computation change.
+     * 
+     * Default version is 1.
+     * 
+     * @return the version of the computation of this feature
+     * @see FeatureCache
+     */
+    public default int version()
+    {
+        return 1;
+    }
+    
+    /**
+     * Returns a description of the settings of this feature that modify the
+     * result of its computation, for example the levels of quantiles. The
+     * description is part of the key of the results stored within a
+     * persistent cache.
+     * 
+     * Default is an empty string, for features without settings.
+     * 
+     * @return a description of the settings of this feature
+     * @see FeatureCache
+     */
+    public default String cacheParameters()
+    {
+        return "";
+    }
+    
+    /**
+     * Returns the names of the image data used for computing this feature,
+     * in addition to the label map. The content of the image data is part of
+     * the key of the results stored within a persistent cache.
+     * 
+     * Default is an empty list.
+     * 
+     * @return the names of the image data used by this feature
+     * @see RegionFeatures#addImageData(String, Image)
+     */
+    public default Collection<String> imageDataNames()
+    {
+        return Collections.emptyList();
+    }
 }
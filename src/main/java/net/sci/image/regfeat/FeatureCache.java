@@ -0,0 +1,470 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+
+/**
+ * A persistent cache of feature results, stored as files within a directory.
+ * 
+ * Each entry is identified by a key computed from the content of the label
+ * map, its calibration, the labels to analyze, and the class and version of
+ * the feature. The key also includes the parameters of the feature and the
+ * content of the image data it uses, as well as those of the features it
+ * depends on. Entries with identical keys can therefore be reused by
+ * different analyses of the same label map, possibly by different processes.
+ * 
+ * Features using image data that can not be hashed are not cached.
+ * 
+ * Only results stored as arrays of primitive values are cached: arrays of
+ * int, long or double, and arrays of arrays of int or double. They are
+ * written in a compact binary format. When the total size of the files
+ * exceeds the maximum size of the cache, the least recently used entries are
+ * removed.
+ * 
+ * Example:
+ * 
+ * <pre>{@code
+ * FeatureCache cache = new FeatureCache(Path.of("/tmp/regfeat-cache"), 1L << 30);
+ * Table table = RegionFeatures.initialize(image)
+ *     .cache(cache)
+ *     .add(Area.class)
+ *     .createTable();
+ * }</pre>
+ * 
+ * @see RegionFeatures#cache(FeatureCache)
+ */
+public class FeatureCache
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The extension of the files containing the cached results.
+     */
+    public static final String FILE_EXTENSION = ".rfc";
+    
+    /**
+     * The first bytes of each file, used to identify the format.
+     */
+    static final int MAGIC = 0x52464301;
+    
+    // type codes of the cached values
+    static final byte INT_ARRAY = 1;
+    static final byte LONG_ARRAY = 2;
+    static final byte DOUBLE_ARRAY = 3;
+    static final byte INT_ARRAY_2D = 4;
+    static final byte DOUBLE_ARRAY_2D = 5;
+    
+    /**
+     * Checks if the specified value can be stored within the cache.
+     * 
+     * @param value
+     *            the result of the computation of a feature
+     * @return true if the value can be cached
+     */
+    public static final boolean isCacheable(Object value)
+    {
+        return value instanceof int[] || value instanceof long[] || value instanceof double[] 
+                || value instanceof int[][] || value instanceof double[][];
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The directory containing the cached results.
+     */
+    final Path directory;
+    
+    /**
+     * The maximum total size of the cached files, in bytes.
+     */
+    final long maxBytes;
+    
+    /**
+     * The estimated total size of the cached files, in bytes.
+     */
+    long totalBytes;
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Creates a new cache within the specified directory, that is created if
+     * necessary. Files already present in the directory are reused.
+     * 
+     * @param directory
+     *            the directory containing the cached results
+     * @param maxBytes
+     *            the maximum total size of the cached files, in bytes
+     */
+    public FeatureCache(Path directory, long maxBytes)
+    {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try
+        {
+            Files.createDirectories(directory);
+            this.totalBytes = 0;
+            for (Entry entry : listEntries())
+            {
+                this.totalBytes += entry.size;
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Could not initialize cache directory: " + directory, ex);
+        }
+    }
+    
+    
+    // ==================================================
+    // Cache management
+    
+    /**
+     * Retrieves the value associated to the specified key, and marks the
+     * entry as recently used.
+     * 
+     * @param key
+     *            the key of the entry
+     * @return the cached value, or null if the cache does not contain the key
+     */
+    public synchronized Object get(String key)
+    {
+        Path path = entryPath(key);
+        if (!Files.exists(path)) return null;
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path))))
+        {
+            Object value = read(in);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return value;
+        }
+        catch (IOException ex)
+        {
+            // corrupted or concurrently removed entry
+            remove(path);
+            return null;
+        }
+    }
+    
+    /**
+     * Stores a value within the cache. Values that are not arrays of
+     * primitive values are ignored.
+     * 
+     * @param key
+     *            the key of the entry
+     * @param value
+     *            the value to store
+     * @return true if the value was stored
+     */
+    public synchronized boolean put(String key, Object value)
+    {
+        if (!isCacheable(value)) return false;
+        
+        Path path = entryPath(key);
+        Path tmpPath = directory.resolve(key + ".tmp" + Thread.currentThread().threadId());
+        try
+        {
+            // write into a temporary file, then rename, so that readers never
+            // see partially written files
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath))))
+            {
+                write(out, value);
+            }
+            long oldSize = Files.exists(path) ? Files.size(path) : 0;
+            try
+            {
+                Files.move(tmpPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException ex)
+            {
+                Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+            this.totalBytes += Files.size(path) - oldSize;
+        }
+        catch (IOException ex)
+        {
+            remove(tmpPath);
+            return false;
+        }
+        
+        if (this.totalBytes > this.maxBytes)
+        {
+            evict();
+        }
+        return true;
+    }
+    
+    /**
+     * Removes all the entries of the cache.
+     */
+    public synchronized void clear()
+    {
+        try
+        {
+            for (Entry entry : listEntries())
+            {
+                remove(entry.path);
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Could not clear cache directory: " + directory, ex);
+        }
+        this.totalBytes = 0;
+    }
+    
+    /**
+     * Removes the least recently used entries until the total size of the
+     * cache is below the maximum size. The sizes are computed again from the
+     * files, as the directory may be shared with other processes.
+     */
+    private void evict()
+    {
+        try
+        {
+            ArrayList<Entry> entries = listEntries();
+            entries.sort(Comparator.comparingLong(entry -> entry.lastUse));
+            long size = entries.stream().mapToLong(entry -> entry.size).sum();
+            for (Entry entry : entries)
+            {
+                if (size <= maxBytes) break;
+                remove(entry.path);
+                size -= entry.size;
+            }
+            this.totalBytes = size;
+        }
+        catch (IOException ex)
+        {
+            throw new RuntimeException("Could not evict entries from cache directory: " + directory, ex);
+        }
+    }
+    
+    private ArrayList<Entry> listEntries() throws IOException
+    {
+        ArrayList<Entry> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + FILE_EXTENSION))
+        {
+            for (Path path : stream)
+            {
+                try
+                {
+                    entries.add(new Entry(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+                }
+                catch (IOException ex)
+                {
+                    // file removed concurrently
+                }
+            }
+        }
+        return entries;
+    }
+    
+    private Path entryPath(String key)
+    {
+        return directory.resolve(key + FILE_EXTENSION);
+    }
+    
+    private static final void remove(Path path)
+    {
+        try
+        {
+            Files.deleteIfExists(path);
+        }
+        catch (IOException ex)
+        {
+            // ignore, the entry will be removed later
+        }
+    }
+    
+    
+    // ==================================================
+    // Binary format
+    
+    private static final void write(DataOutputStream out, Object value) throws IOException
+    {
+        out.writeInt(MAGIC);
+        if (value instanceof int[] array)
+        {
+            out.writeByte(INT_ARRAY);
+            writeInts(out, array);
+        }
+        else if (value instanceof long[] array)
+        {
+            out.writeByte(LONG_ARRAY);
+            out.writeInt(array.length);
+            for (long v : array) out.writeLong(v);
+        }
+        else if (value instanceof double[] array)
+        {
+            out.writeByte(DOUBLE_ARRAY);
+            writeDoubles(out, array);
+        }
+        else if (value instanceof int[][] array)
+        {
+            out.writeByte(INT_ARRAY_2D);
+            out.writeInt(array.length);
+            for (int[] row : array) writeInts(out, row);
+        }
+        else if (value instanceof double[][] array)
+        {
+            out.writeByte(DOUBLE_ARRAY_2D);
+            out.writeInt(array.length);
+            for (double[] row : array) writeDoubles(out, row);
+        }
+    }
+    
+    private static final void writeInts(DataOutputStream out, int[] array) throws IOException
+    {
+        out.writeInt(array.length);
+        for (int v : array) out.writeInt(v);
+    }
+    
+    private static final void writeDoubles(DataOutputStream out, double[] array) throws IOException
+    {
+        out.writeInt(array.length);
+        for (double v : array) out.writeDouble(v);
+    }
+    
+    private static final Object read(DataInputStream in) throws IOException
+    {
+        if (in.readInt() != MAGIC)
+        {
+            throw new IOException("Not a cached feature file");
+        }
+        
+        byte type = in.readByte();
+        switch (type)
+        {
+            case INT_ARRAY:
+                return readInts(in);
+            case LONG_ARRAY:
+            {
+                long[] array = new long[in.readInt()];
+                for (int i = 0; i < array.length; i++) array[i] = in.readLong();
+                return array;
+            }
+            case DOUBLE_ARRAY:
+                return readDoubles(in);
+            case INT_ARRAY_2D:
+            {
+                int[][] array = new int[in.readInt()][];
+                for (int i = 0; i < array.length; i++) array[i] = readInts(in);
+                return array;
+            }
+            case DOUBLE_ARRAY_2D:
+            {
+                double[][] array = new double[in.readInt()][];
+                for (int i = 0; i < array.length; i++) array[i] = readDoubles(in);
+                return array;
+            }
+            default:
+                throw new IOException("Unknown type code: " + type);
+        }
+    }
+    
+    private static final int[] readInts(DataInputStream in) throws IOException
+    {
+        int[] array = new int[in.readInt()];
+        for (int i = 0; i < array.length; i++) array[i] = in.readInt();
+        return array;
+    }
+    
+    private static final double[] readDoubles(DataInputStream in) throws IOException
+    {
+        double[] array = new double[in.readInt()];
+        for (int i = 0; i < array.length; i++) array[i] = in.readDouble();
+        return array;
+    }
+    
+    
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * A file of the cache, with its size and its last time of use.
+     */
+    private record Entry(Path path, long size, long lastUse)
+    {
+    }
+    
+    /**
+     * Computes a 128-bit hash of a sequence of values, used to build the keys
+     * of the cache. The hash is fast enough to be computed over the content of
+     * large label maps.
+     */
+    public static final class Hasher
+    {
+        long h1 = 0x243F6A8885A308D3L;
+        long h2 = 0x13198A2E03707344L;
+        
+        public Hasher update(long value)
+        {
+            h1 = Long.rotateLeft(h1 ^ (value * 0x9E3779B97F4A7C15L), 27) * 0xBF58476D1CE4E5B9L;
+            h2 = Long.rotateLeft(h2 + (value * 0xC2B2AE3D27D4EB4FL), 31) * 0x94D049BB133111EBL + 0x27D4EB2F165667C5L;
+            return this;
+        }
+        
+        public Hasher update(int[] values, int length)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                update(values[i]);
+            }
+            return this;
+        }
+        
+        public Hasher update(double value)
+        {
+            return update(Double.doubleToLongBits(value));
+        }
+        
+        public Hasher update(String string)
+        {
+            if (string == null) return update(-1L);
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            update(bytes.length);
+            for (byte b : bytes)
+            {
+                update(b);
+            }
+            return this;
+        }
+        
+        /**
+         * @return the hash as a string of 32 hexadecimal digits.
+         */
+        public String toHex()
+        {
+            return String.format("%016x%016x", mix(h1 ^ h2), mix(h2 + h1));
+        }
+        
+        private static final long mix(long h)
+        {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Computes a collection of features by taking into account their
+ * dependencies. The features and their required features form a directed
+ * acyclic graph. Each feature is computed exactly once, as soon as all its
+ * required features have been computed, so that independent branches of the
+ * graph are computed concurrently.
+ * 
+ * Scan features are computed beforehand within a single traversal of the
+ * label map.
+ * 
+ * @see RegionFeatures#computeAll()
+ * @see Feature#requiredFeatures()
+ */
+public class FeatureScheduler
+{
+    // ==================================================
+    // Class members
+    
+    /**
+     * The data structure used to compute and store the features.
+     */
+    RegionFeatures data;
+    
+    /**
+     * The executor used to run the computation of features.
+     */
+    Executor executor;
+    
+    /**
+     * The task associated to each feature class.
+     */
+    Map<Class<? extends Feature>, CompletableFuture<Void>> tasks = new HashMap<>();
+    
+    /**
+     * The feature classes whose dependencies are being scheduled, used to
+     * detect cycles within dependencies.
+     */
+    Set<Class<? extends Feature>> visiting = new HashSet<>();
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Creates a new scheduler for computing features.
+     * 
+     * @param data
+     *            the data structure used to compute and store the features
+     * @param executor
+     *            the executor used to run the computation of features
+     */
+    public FeatureScheduler(RegionFeatures data, Executor executor)
+    {
+        this.data = data;
+        this.executor = executor;
+    }
+    
+    
+    // ==================================================
+    // Processing methods
+    
+    /**
+     * Computes the specified features, together with the features they depend
+     * on, and waits for the end of the computation.
+     * 
+     * @param featureClasses
+     *            the classes of the features to compute
+     */
+    public void computeAll(Collection<Class<? extends Feature>> featureClasses)
+    {
+        // compute all scan features within a single traversal of label map
+        data.computeScanFeatures(featureClasses);
+        
+        // schedule the computation of each feature
+        ArrayList<CompletableFuture<Void>> roots = new ArrayList<>();
+        for (Class<? extends Feature> featureClass : featureClasses)
+        {
+            roots.add(schedule(featureClass));
+        }
+        
+        // wait for the end of all computations
+        try
+        {
+            CompletableFuture.allOf(roots.toArray(CompletableFuture[]::new)).join();
+        }
+        catch (CompletionException ex)
+        {
+            if (ex.getCause() instanceof RuntimeException cause)
+            {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+    
+    /**
+     * Creates the task for computing the specified feature, after the tasks
+     * of its required features.
+     */
+    private CompletableFuture<Void> schedule(Class<? extends Feature> featureClass)
+    {
+        CompletableFuture<Void> task = tasks.get(featureClass);
+        if (task != null) return task;
+        
+        if (data.isComputed(featureClass))
+        {
+            task = CompletableFuture.completedFuture(null);
+            tasks.put(featureClass, task);
+            return task;
+        }
+        
+        if (!visiting.add(featureClass))
+        {
+            throw new RuntimeException("Cyclic dependency between features: " + featureClass.getSimpleName());
+        }
+        
+        // schedule required features
+        Feature feature = data.getFeature(featureClass);
+        ArrayList<CompletableFuture<Void>> deps = new ArrayList<>();
+        for (Class<? extends Feature> fc : feature.requiredFeatures())
+        {
+            deps.add(schedule(fc));
+        }
+        visiting.remove(featureClass);
+        
+        // compute feature once all required features have been computed
+        task = CompletableFuture.allOf(deps.toArray(CompletableFuture[]::new))
+                .thenRunAsync(() -> data.process(featureClass), executor);
+        tasks.put(featureClass, task);
+        return task;
+    }
+}
@@ -0,0 +1,301 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.Arrays;
+
+/**
+ * Associates the label of each region to its index within the arrays of
+ * results, using only primitive data structures.
+ * 
+ * Two implementations are provided: a dense look-up table for labels within
+ * a compact range, and an open-addressing hash map for sparse labels. The
+ * <code>create()</code> method chooses the most appropriate one.
+ * 
+ * @see RegionFeatures#labelIndex()
+ */
+public abstract class LabelIndex
+{
+    // ==================================================
+    // Static factory
+    
+    /**
+     * The maximum ratio between the range of label values and the number of
+     * labels for using a dense look-up table.
+     */
+    static final int MAX_DENSE_RATIO = 4;
+    
+    /**
+     * The range of label values below which a dense look-up table is always
+     * used.
+     */
+    static final int MIN_DENSE_RANGE = 1 << 16;
+    
+    /**
+     * Creates a new label index for the specified labels. The index of each
+     * label corresponds to its position within the array.
+     * 
+     * @param labels
+     *            the labels of the regions
+     * @return a new index of labels
+     */
+    public static final LabelIndex create(int[] labels)
+    {
+        if (labels.length == 0)
+        {
+            return new Hashed(0);
+        }
+        
+        // compute range of label values
+        int minLabel = labels[0];
+        int maxLabel = labels[0];
+        for (int label : labels)
+        {
+            minLabel = Math.min(minLabel, label);
+            maxLabel = Math.max(maxLabel, label);
+        }
+        long range = (long) maxLabel - minLabel + 1;
+        
+        // choose the implementation depending on the compactness of labels
+        if (range <= MIN_DENSE_RANGE || range <= (long) MAX_DENSE_RATIO * labels.length)
+        {
+            return new Dense(labels, minLabel, (int) range);
+        }
+        
+        Hashed index = new Hashed(labels.length);
+        for (int label : labels)
+        {
+            index.add(label);
+        }
+        return index;
+    }
+    
+    
+    // ==================================================
+    // Abstract methods
+    
+    /**
+     * Returns the index of the specified label, or -1 if the label is not
+     * indexed.
+     * 
+     * @param label
+     *            the label of a region
+     * @return the index of the label, or -1 if the label is not indexed.
+     */
+    public abstract int indexOf(int label);
+    
+    /**
+     * @return the number of indexed labels.
+     */
+    public abstract int size();
+    
+    /**
+     * Returns the indexed labels, ordered by their index.
+     * 
+     * @return the indexed labels.
+     */
+    public abstract int[] labels();
+    
+    
+    // ==================================================
+    // Implementations
+    
+    /**
+     * Label index based on a look-up table covering the range of label values.
+     */
+    public static final class Dense extends LabelIndex
+    {
+        final int[] labels;
+        final int offset;
+        final int[] table;
+        
+        Dense(int[] labels, int minLabel, int range)
+        {
+            this.labels = labels;
+            this.offset = minLabel;
+            this.table = new int[range];
+            Arrays.fill(this.table, -1);
+            for (int i = 0; i < labels.length; i++)
+            {
+                this.table[labels[i] - minLabel] = i;
+            }
+        }
+        
+        @Override
+        public int indexOf(int label)
+        {
+            // use unsigned comparison to check both bounds at once
+            int pos = label - offset;
+            return Integer.compareUnsigned(pos, table.length) < 0 ? table[pos] : -1;
+        }
+        
+        @Override
+        public int size()
+        {
+            return labels.length;
+        }
+        
+        @Override
+        public int[] labels()
+        {
+            return labels;
+        }
+    }
+    
+    /**
+     * Label index based on an open-addressing hash map with linear probing.
+     * New labels can be added, making it possible to identify labels while
+     * scanning the label map.
+     */
+    public static final class Hashed extends LabelIndex
+    {
+        /**
+         * The keys of the hash table. Zero denotes empty slots, the index of
+         * label zero is stored separately.
+         */
+        int[] keys;
+        
+        /**
+         * The index associated to each key.
+         */
+        int[] values;
+        
+        /**
+         * The bit mask used to compute slot positions.
+         */
+        int mask;
+        
+        /**
+         * The index associated to label 0, or -1.
+         */
+        int zeroIndex = -1;
+        
+        /**
+         * The labels in the order of their index.
+         */
+        int[] labels;
+        
+        /**
+         * The number of indexed labels.
+         */
+        int size = 0;
+        
+        /**
+         * Creates a new empty hash-based label index.
+         * 
+         * @param expectedSize
+         *            the expected number of labels
+         */
+        public Hashed(int expectedSize)
+        {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+            this.keys = new int[capacity];
+            this.values = new int[capacity];
+            this.mask = capacity - 1;
+            this.labels = new int[Math.max(expectedSize, 8)];
+        }
+        
+        private static final int hash(int label)
+        {
+            int h = label * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+        
+        @Override
+        public int indexOf(int label)
+        {
+            if (label == 0) return zeroIndex;
+            
+            int pos = hash(label) & mask;
+            while (true)
+            {
+                int key = keys[pos];
+                if (key == label) return values[pos];
+                if (key == 0) return -1;
+                pos = (pos + 1) & mask;
+            }
+        }
+        
+        /**
+         * Returns the index of the specified label, after adding it to the
+         * index if necessary.
+         * 
+         * @param label
+         *            the label of a region
+         * @return the index of the label
+         */
+        public int add(int label)
+        {
+            if (label == 0)
+            {
+                if (zeroIndex < 0) zeroIndex = appendLabel(label);
+                return zeroIndex;
+            }
+            
+            int pos = hash(label) & mask;
+            while (true)
+            {
+                int key = keys[pos];
+                if (key == label) return values[pos];
+                if (key == 0) break;
+                pos = (pos + 1) & mask;
+            }
+            
+            int index = appendLabel(label);
+            keys[pos] = label;
+            values[pos] = index;
+            
+            // keep load factor below one half
+            if (size * 2 > keys.length)
+            {
+                rehash(keys.length * 2);
+            }
+            return index;
+        }
+        
+        private int appendLabel(int label)
+        {
+            if (size == labels.length)
+            {
+                labels = Arrays.copyOf(labels, size * 2);
+            }
+            labels[size] = label;
+            return size++;
+        }
+        
+        private void rehash(int newCapacity)
+        {
+            int[] oldKeys = this.keys;
+            int[] oldValues = this.values;
+            this.keys = new int[newCapacity];
+            this.values = new int[newCapacity];
+            this.mask = newCapacity - 1;
+            
+            for (int i = 0; i < oldKeys.length; i++)
+            {
+                int key = oldKeys[i];
+                if (key == 0) continue;
+                int pos = hash(key) & mask;
+                while (keys[pos] != 0)
+                {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = key;
+                values[pos] = oldValues[i];
+            }
+        }
+        
+        @Override
+        public int size()
+        {
+            return size;
+        }
+        
+        @Override
+        public int[] labels()
+        {
+            return Arrays.copyOf(labels, size);
+        }
+    }
+}
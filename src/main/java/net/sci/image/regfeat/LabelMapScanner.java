@@ -0,0 +1,1171 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.sci.algo.AlgoStub;
+
+/**
+ * Computes several scan features within a single traversal of a 2D label map.
+ * 
+ * The scanner iterates over all the 2-by-2 configurations that contain at
+ * least one pixel of the image. The lower-right pixel of each configuration
+ * is the current pixel, so that the pixel accumulators and the configuration
+ * accumulators are all updated during the same traversal.
+ * 
+ * The label map is read row by row from a {@code LabelMapSource}, so that
+ * only two rows need to be stored in memory at the same time. If the
+ * run-length encoding option is set within the <code>RegionFeatures</code>
+ * data, the runs of the {@code RunLengthLabelMap} are processed directly:
+ * accumulators are updated once per run, and the configurations between two
+ * rows are computed from the boundaries of the runs, identical
+ * configurations being counted together.
+ * 
+ * If the labels of the regions are not known in advance, they are identified
+ * during the scan, and sorted at the end of the scan. This avoids an
+ * additional traversal of the label map for identifying the labels.
+ * 
+ * For label maps containing few regions, such as binary masks, the
+ * configurations between two rows are computed region by region over whole
+ * rows by a {@code ConfigurationKernel}, vectorized when the Vector API is
+ * available, and added by type.
+ * 
+ * If a thread pool is specified within the <code>RegionFeatures</code> data,
+ * the label map is split into horizontal bands that are scanned concurrently.
+ * Each band starts with the last image row of the previous band, so that each
+ * 2-by-2 configuration is counted exactly once. Each thread accumulates the
+ * bands it processes into a single set of partial results, and the partial
+ * results of the threads are then merged.
+ * 
+ * If the incremental update option is set within the
+ * <code>RegionFeatures</code> data, the scanner keeps its accumulators after
+ * the scan. After a local edit of the label map, the results are updated by
+ * scanning only the modified window before and after the edit, subtracting
+ * the old contribution and adding the new one.
+ * 
+ * If scan windows are specified within the <code>RegionFeatures</code> data,
+ * only the pixels and the configurations within these windows are visited.
+ * This is used for computing the features of a subset of regions from their
+ * bounding boxes.
+ * 
+ * @see ScanFeature
+ * @see ScanAccumulator
+ */
+public class LabelMapScanner extends AlgoStub
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The minimum number of rows within a band, to avoid splitting small
+     * images into too many bands.
+     */
+    static final int MIN_BAND_ROWS = 64;
+    
+    /**
+     * The number of bands created for each thread of the pool, to balance the
+     * workload between threads.
+     */
+    static final int BANDS_PER_THREAD = 4;
+    
+    /**
+     * The maximum number of regions for which the configurations are
+     * computed region by region over whole rows, using the configuration
+     * kernel.
+     */
+    static final int MAX_BULK_REGIONS = 4;
+
+    /**
+     * The row buffers of each thread, reused between successive scans to
+     * avoid allocations when many label maps are processed.
+     */
+    private static final ThreadLocal<int[][]> rowBuffers = ThreadLocal.withInitial(() -> new int[3][0]);
+
+    /**
+     * Returns the row buffer with the specified index for the current thread,
+     * with at least the specified size.
+     */
+    private static final int[] rowBuffer(int index, int size)
+    {
+        int[][] buffers = rowBuffers.get();
+        if (buffers[index].length < size)
+        {
+            buffers[index] = new int[size];
+        }
+        return buffers[index];
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The data structure containing the label map to scan.
+     */
+    RegionFeatures data;
+    
+    /**
+     * Specifies whether labels are identified during the scan (true), or
+     * retrieved from the data structure (false).
+     */
+    boolean discoverLabels;
+    
+    /**
+     * The index of the labels retrieved from the data structure, or null if
+     * labels are identified during the scan. Kept by the scanner, as the
+     * index of the data structure is discarded after edits of the label map.
+     */
+    LabelIndex knownIndex;
+    
+    /**
+     * The labels of the regions, in the order of the results, computed at the
+     * end of the scan.
+     */
+    int[] labels;
+    
+    /**
+     * The number of pixels processed during the last scan.
+     */
+    long pixelCount = 0;
+    
+    /**
+     * The number of 2-by-2 configurations processed during the last scan.
+     */
+    long configurationCount = 0;
+    
+    /**
+     * Specifies whether the accumulators are kept after the scan, for
+     * updating the results after local edits of the label map.
+     */
+    boolean incremental;
+    
+    /**
+     * The features computed by the last scan, kept for incremental updates.
+     */
+    ScanFeature[] features;
+    
+    /**
+     * The band containing the accumulated results of the last scan, kept for
+     * incremental updates.
+     */
+    Band mainBand;
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Creates a new scanner for the label map stored within the specified
+     * data structure.
+     * 
+     * @param data
+     *            the data structure containing the label map.
+     */
+    public LabelMapScanner(RegionFeatures data)
+    {
+        this.data = data;
+    }
+    
+    
+    // ==================================================
+    // Processing methods
+    
+    /**
+     * Computes the specified features within a single traversal of the label
+     * map.
+     * 
+     * @param features
+     *            the features to compute
+     * @return a map between the class of each feature and the result of its
+     *         computation.
+     */
+    public Map<Class<? extends Feature>, Object> scan(Collection<? extends ScanFeature> features)
+    {
+        // retrieve the rows of the label map
+        LabelMapSource labelMap = data.runLengthEncoding ? data.runLengthLabelMap() : data.labelMapSource();
+        
+        // in incremental mode, labels are identified during the scan, as
+        // edits may create new labels, unless a subset of labels was
+        // specified at initialization
+        this.incremental = data.incrementalUpdates;
+        this.discoverLabels = data.labels == null || (incremental && data.requestedLabels == null);
+        this.knownIndex = discoverLabels ? null : data.labelIndex();
+        ScanFeature[] featureArray = features.toArray(ScanFeature[]::new);
+        
+        // the band that will contain the final results
+        Band mainBand = new Band(featureArray);
+        if (incremental)
+        {
+            this.features = featureArray;
+            this.mainBand = mainBand;
+        }
+        
+        // scan only the specified windows of the label map
+        if (data.scanWindows != null)
+        {
+            LabelMapSource source = data.runLengthMap != null ? data.runLengthMap : data.labelMapSource();
+            scanWindows(source, mainBand, data.scanWindows);
+            return createResults(featureArray, mainBand);
+        }
+        
+        // number of configuration rows to process
+        int sizeX = labelMap.sizeX();
+        int sizeY = labelMap.sizeY();
+        boolean processConfigs = mainBand.configAccs.length > 0;
+        int nRows = processConfigs ? sizeY + 1 : sizeY;
+        this.pixelCount = (long) sizeX * sizeY;
+        this.configurationCount = processConfigs ? (long) (sizeX + 1) * (sizeY + 1) : 0;
+        
+        // choose the number of bands
+        ForkJoinPool pool = data.pool;
+        int nBands = 1;
+        if (pool != null)
+        {
+            nBands = Math.min(pool.getParallelism() * BANDS_PER_THREAD, nRows / MIN_BAND_ROWS);
+        }
+        
+        if (nBands <= 1)
+        {
+            mainBand.scan(labelMap, 0, nRows, true);
+        }
+        else
+        {
+            scanBands(labelMap, featureArray, mainBand, nRows, nBands, pool);
+        }
+        
+        return createResults(featureArray, mainBand);
+    }
+    
+    /**
+     * Creates the results of the features from the accumulators of the band,
+     * ignoring the accumulators that have been discarded.
+     */
+    private Map<Class<? extends Feature>, Object> createResults(ScanFeature[] features, Band band)
+    {
+        int[] order = computeResultOrder(band);
+        Map<Class<? extends Feature>, Object> res = new LinkedHashMap<>();
+        for (int i = 0; i < features.length; i++)
+        {
+            if (band.accumulators[i] == null) continue;
+            res.put(features[i].getClass(), band.accumulators[i].result(order));
+        }
+        return res;
+    }
+    
+    /**
+     * Prepares the update of the results after an edit of the label map
+     * within the specified window. The contribution of the window to the
+     * current results is computed immediately, so this method must be called
+     * before the label map is modified.
+     * 
+     * Only the features whose accumulators support subtraction can be
+     * updated. The accumulators of the other features are discarded, and
+     * these features must be computed again by a new scan.
+     * 
+     * @param x0
+     *            the x-coordinate of the first column of the window
+     * @param y0
+     *            the y-coordinate of the first row of the window
+     * @param x1
+     *            the x-coordinate following the last column of the window
+     * @param y1
+     *            the y-coordinate following the last row of the window
+     * @return the update, to be applied after the edit of the label map, or
+     *         null if no feature can be updated
+     */
+    public Update prepareUpdate(int x0, int y0, int x1, int y1)
+    {
+        if (mainBand == null)
+        {
+            throw new RuntimeException("Incremental updates require the incremental option to be set before the scan");
+        }
+        
+        // keep only the features that support incremental updates
+        ScanFeature[] windowFeatures = new ScanFeature[features.length];
+        boolean updatable = false;
+        for (int i = 0; i < features.length; i++)
+        {
+            ScanAccumulator acc = mainBand.accumulators[i];
+            if (acc != null && acc.isSubtractable())
+            {
+                windowFeatures[i] = features[i];
+                updatable = true;
+            }
+            else
+            {
+                mainBand.accumulators[i] = null;
+            }
+        }
+        if (!updatable) return null;
+        
+        // compute the current contribution of the window
+        LabelMapSource labelMap = data.labelMapSource();
+        Band oldBand = new Band(windowFeatures);
+        oldBand.scanWindow(labelMap, x0, y0, x1, y1);
+        return new Update(windowFeatures, oldBand, x0, y0, x1, y1);
+    }
+    
+    /**
+     * Scans a set of disjoint windows of the label map, and accumulates the
+     * results within the specified band.
+     */
+    private void scanWindows(LabelMapSource labelMap, Band band, int[][] windows)
+    {
+        boolean processConfigs = band.configAccs.length > 0;
+        this.pixelCount = 0;
+        this.configurationCount = 0;
+        for (int i = 0; i < windows.length; i++)
+        {
+            int[] win = windows[i];
+            band.scanWindow(labelMap, win[0], win[1], win[2], win[3]);
+            this.pixelCount += (long) (win[2] - win[0]) * (win[3] - win[1]);
+            if (processConfigs)
+            {
+                this.configurationCount += (long) (win[2] - win[0] + 1) * (win[3] - win[1] + 1);
+            }
+            this.fireProgressChanged(this, i + 1, windows.length);
+        }
+    }
+    
+    /**
+     * Scans the bands of the label map within the threads of the pool. Each
+     * task keeps a single set of partial results, and processes bands in
+     * increasing order until all the bands have been scanned, so that the
+     * number of partial results to store and to merge depends on the number
+     * of threads, and not on the number of bands.
+     */
+    private void scanBands(LabelMapSource labelMap, ScanFeature[] features, Band mainBand, int nRows, int nBands, ForkJoinPool pool)
+    {
+        this.fireStatusChanged(this, "Scan label map using " + nBands + " bands");
+        
+        // create the partial results of each task, the first one storing the
+        // final results
+        int nTasks = Math.min(pool.getParallelism(), nBands);
+        ArrayList<Band> partials = new ArrayList<>(nTasks);
+        partials.add(mainBand);
+        for (int t = 1; t < nTasks; t++)
+        {
+            partials.add(new Band(features));
+        }
+        
+        // each task scans the next band that has not been processed yet
+        AtomicInteger nextBand = new AtomicInteger(0);
+        ArrayList<Future<Band>> futures = new ArrayList<>(nTasks);
+        for (int t = 0; t < nTasks; t++)
+        {
+            Band partial = partials.get(t);
+            futures.add(pool.submit(() -> {
+                int b;
+                while ((b = nextBand.getAndIncrement()) < nBands)
+                {
+                    int y0 = (int) ((long) nRows * b / nBands);
+                    int y1 = (int) ((long) nRows * (b + 1) / nBands);
+                    partial.scan(labelMap, y0, y1, false);
+                }
+            }, partial));
+        }
+        
+        // merge the partial results into the main band
+        for (int t = 0; t < nTasks; t++)
+        {
+            try
+            {
+                Band partial = futures.get(t).get();
+                if (partial != mainBand) mainBand.merge(partial);
+            }
+            catch (InterruptedException | ExecutionException ex)
+            {
+                throw new RuntimeException("Error during parallel scan of label map", ex);
+            }
+            this.fireProgressChanged(this, t + 1, nTasks);
+        }
+    }
+    
+    /**
+     * Computes the labels in the order of the results, and the accumulator
+     * index of each result element.
+     */
+    private int[] computeResultOrder(Band band)
+    {
+        int nSlots = band.nSlots;
+        if (!discoverLabels)
+        {
+            this.labels = knownIndex.labels();
+            int[] order = new int[nSlots];
+            for (int i = 0; i < nSlots; i++)
+            {
+                order[i] = i;
+            }
+            return order;
+        }
+        
+        // sort identified labels, and keep the index of each label
+        this.labels = band.discoveredIndex.labels();
+        if (band.pixelCounts != null)
+        {
+            // regions removed by edits of the label map are not reported
+            this.labels = Arrays.stream(this.labels)
+                    .filter(label -> band.pixelCounts[band.discoveredIndex.indexOf(label)] > 0)
+                    .toArray();
+        }
+        Arrays.sort(this.labels);
+        int[] order = new int[this.labels.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = band.discoveredIndex.indexOf(this.labels[i]);
+        }
+        return order;
+    }
+    
+    /**
+     * Returns the labels of the regions, in the order of the results. Must be
+     * called after the scan.
+     * 
+     * @return the labels of the regions.
+     */
+    public int[] getLabels()
+    {
+        return labels;
+    }
+    
+    /**
+     * @return the number of pixels processed during the last scan.
+     */
+    public long getPixelCount()
+    {
+        return pixelCount;
+    }
+    
+    /**
+     * @return the number of 2-by-2 configurations processed during the last
+     *         scan.
+     */
+    public long getConfigurationCount()
+    {
+        return configurationCount;
+    }
+    
+    
+    // ==================================================
+    // Inner class for incremental updates
+    
+    /**
+     * The update of the results after an edit of the label map within a
+     * window. Stores the contribution of the window before the edit.
+     * 
+     * @see LabelMapScanner#prepareUpdate(int, int, int, int)
+     */
+    public class Update
+    {
+        final ScanFeature[] windowFeatures;
+        final Band oldBand;
+        final int x0, y0, x1, y1;
+        
+        Update(ScanFeature[] windowFeatures, Band oldBand, int x0, int y0, int x1, int y1)
+        {
+            this.windowFeatures = windowFeatures;
+            this.oldBand = oldBand;
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+        
+        /**
+         * Computes the new contribution of the window, and updates the
+         * results by replacing the old contribution with the new one. Must
+         * be called after the edit of the label map.
+         * 
+         * @return a map between the class of each updated feature and its
+         *         new result.
+         */
+        public Map<Class<? extends Feature>, Object> apply()
+        {
+            Band newBand = new Band(windowFeatures);
+            newBand.scanWindow(data.labelMapSource(), x0, y0, x1, y1);
+            
+            mainBand.subtract(oldBand);
+            mainBand.merge(newBand);
+            return createResults(features, mainBand);
+        }
+        
+        /**
+         * @return the labels of the regions after the update, in the order of
+         *         the results.
+         */
+        public int[] labels()
+        {
+            return labels;
+        }
+    }
+    
+    
+    // ==================================================
+    // Inner class for scanning a band of the label map
+    
+    /**
+     * Scans a range of configuration rows of the label map, and accumulates
+     * the results into its own set of accumulators.
+     */
+    class Band
+    {
+        /**
+         * The accumulators of this band, in the order of the features.
+         */
+        ScanAccumulator[] accumulators;
+        
+        /**
+         * The accumulators that are not null, used for processing pixels.
+         */
+        ScanAccumulator[] activeAccs;
+        
+        /**
+         * The accumulators that process the 2-by-2 configurations.
+         */
+        ScanAccumulator[] configAccs;
+        
+        /**
+         * The number of pixels of each region, used in incremental mode for
+         * identifying the regions removed by edits. Null otherwise.
+         */
+        int[] pixelCounts = null;
+        
+        /**
+         * The map from label value to region index within the accumulators.
+         */
+        LabelIndex labelIndex;
+        
+        /**
+         * The index used for identifying labels during the scan, or null if
+         * the labels are known in advance.
+         */
+        LabelIndex.Hashed discoveredIndex;
+        
+        /**
+         * The number of region indices allocated so far.
+         */
+        int nSlots;
+        
+        Band(ScanFeature[] features)
+        {
+            // initialize label indices
+            if (discoverLabels)
+            {
+                this.discoveredIndex = new LabelIndex.Hashed(256);
+                this.labelIndex = discoveredIndex;
+                this.nSlots = 0;
+            }
+            else
+            {
+                this.labelIndex = knownIndex;
+                this.nSlots = labelIndex.size();
+            }
+            
+            if (incremental)
+            {
+                this.pixelCounts = new int[Math.max(nSlots, 16)];
+            }
+            
+            // create one accumulator per feature, null features being ignored
+            this.accumulators = new ScanAccumulator[features.length];
+            ArrayList<ScanAccumulator> activeAccList = new ArrayList<>();
+            ArrayList<ScanAccumulator> configAccList = new ArrayList<>();
+            for (int i = 0; i < features.length; i++)
+            {
+                if (features[i] == null) continue;
+                ScanAccumulator acc = features[i].createAccumulator(data);
+                acc.ensureCapacity(nSlots);
+                accumulators[i] = acc;
+                activeAccList.add(acc);
+                if (acc.usesConfigurations())
+                {
+                    configAccList.add(acc);
+                }
+            }
+            this.activeAccs = activeAccList.toArray(ScanAccumulator[]::new);
+            this.configAccs = configAccList.toArray(ScanAccumulator[]::new);
+        }
+        
+        /**
+         * Scans the configuration rows between y0 (inclusive) and y1
+         * (exclusive). Configuration row y contains the pixels of image rows
+         * y-1 and y.
+         */
+        void scan(LabelMapSource labelMap, int y0, int y1, boolean fireEvents)
+        {
+            if (labelMap instanceof RunLengthLabelMap rle)
+            {
+                scanRuns(rle, y0, y1, fireEvents);
+                return;
+            }
+            
+            // size of image
+            int sizeX = labelMap.sizeX();
+            int sizeY = labelMap.sizeY();
+            
+            // the buffer used to read the labels of each row
+            int[] labelRow = rowBuffer(0, sizeX);
+            
+            // configurations are processed only when required
+            boolean processConfigs = configAccs.length > 0;
+            int[] histo = new int[16];
+            
+            // rolling window over the region indices of the previous and
+            // current rows. Rows are padded with one element on each side, and
+            // -1 corresponds to background or to labels that are not processed.
+            int[] prevRow = rowBuffer(1, sizeX + 2);
+            int[] currRow = rowBuffer(2, sizeX + 2);
+            Arrays.fill(prevRow, -1);
+            Arrays.fill(currRow, -1);
+            
+            // the last row of the previous band is required for configurations
+            if (processConfigs && y0 > 0)
+            {
+                readRowIndices(labelMap, y0 - 1, labelRow, currRow);
+            }
+            
+            // Iterate over all 2-by-2 configurations containing at least one
+            // pixel within the image.
+            // Current pixel is the lower-right pixel in configuration.
+            for (int y = y0; y < y1; y++)
+            {
+                if (fireEvents) fireProgressChanged(LabelMapScanner.this, y - y0, y1 - y0);
+                
+                // swap rows
+                int[] tmp = prevRow;
+                prevRow = currRow;
+                currRow = tmp;
+                
+                // resolve the region indices of current row, and process pixels
+                if (y < sizeY)
+                {
+                    readRowIndices(labelMap, y, labelRow, currRow);
+                    for (int x = 0; x < sizeX; x++)
+                    {
+                        int index = currRow[x + 1];
+                        if (index < 0) continue;
+                        for (ScanAccumulator acc : activeAccs)
+                        {
+                            acc.addPixel(index, x, y);
+                        }
+                        if (pixelCounts != null) pixelCounts[index]++;
+                    }
+                }
+                else
+                {
+                    Arrays.fill(currRow, -1);
+                }
+                
+                if (processConfigs)
+                {
+                    // few regions are processed over whole rows
+                    if (nSlots <= MAX_BULK_REGIONS)
+                    {
+                        processRegionConfigurations(prevRow, currRow, sizeX, nSlots, configAccs, histo);
+                    }
+                    else
+                    {
+                        processConfigurations(prevRow, currRow, sizeX, configAccs);
+                    }
+                }
+            }
+            
+            if (fireEvents) fireProgressChanged(LabelMapScanner.this, 1, 1);
+        }
+        
+        /**
+         * Scans the configuration rows between y0 (inclusive) and y1
+         * (exclusive) of a run-length encoded label map.
+         */
+        void scanRuns(RunLengthLabelMap labelMap, int y0, int y1, boolean fireEvents)
+        {
+            int sizeY = labelMap.sizeY();
+            boolean processConfigs = configAccs.length > 0;
+            
+            // the range of runs of the previous and current rows, and the
+            // region index of each run. Rows outside image contain no run.
+            int prevBuffer = 1, currBuffer = 2;
+            int prevRun0 = 0, prevRun1 = 0;
+            int[] prevIndices = rowBuffer(prevBuffer, 0);
+            
+            // the last row of the previous band is required for configurations
+            if (processConfigs && y0 > 0)
+            {
+                prevRun0 = labelMap.firstRun(y0 - 1);
+                prevRun1 = labelMap.lastRun(y0 - 1);
+                prevIndices = readRunIndices(labelMap, prevRun0, prevRun1, prevBuffer);
+            }
+            
+            for (int y = y0; y < y1; y++)
+            {
+                if (fireEvents) fireProgressChanged(LabelMapScanner.this, y - y0, y1 - y0);
+                
+                // resolve the region indices of the runs of current row, and
+                // process the runs
+                int currRun0 = 0, currRun1 = 0;
+                int[] currIndices = rowBuffer(currBuffer, 0);
+                if (y < sizeY)
+                {
+                    currRun0 = labelMap.firstRun(y);
+                    currRun1 = labelMap.lastRun(y);
+                    currIndices = readRunIndices(labelMap, currRun0, currRun1, currBuffer);
+                    for (int r = currRun0; r < currRun1; r++)
+                    {
+                        int index = currIndices[r - currRun0];
+                        if (index < 0) continue;
+                        for (ScanAccumulator acc : activeAccs)
+                        {
+                            acc.addRun(index, labelMap.runStarts[r], labelMap.runEnds[r], y);
+                        }
+                        if (pixelCounts != null) pixelCounts[index] += labelMap.runEnds[r] - labelMap.runStarts[r];
+                    }
+                }
+                
+                if (processConfigs)
+                {
+                    processRunConfigurations(labelMap, prevRun0, prevRun1, prevIndices, currRun0, currRun1, currIndices, configAccs);
+                }
+                
+                // current row becomes previous row
+                prevRun0 = currRun0;
+                prevRun1 = currRun1;
+                prevIndices = currIndices;
+                int tmp = prevBuffer;
+                prevBuffer = currBuffer;
+                currBuffer = tmp;
+            }
+            
+            if (fireEvents) fireProgressChanged(LabelMapScanner.this, 1, 1);
+        }
+        
+        /**
+         * Scans the pixels within the specified window, and the
+         * configurations overlapping the window, for example the ones affected
+         * by a modification of the label map within the window. The window is
+         * clamped to the bounds of the label map.
+         */
+        void scanWindow(LabelMapSource labelMap, int x0, int y0, int x1, int y1)
+        {
+            int sizeX = labelMap.sizeX();
+            int sizeY = labelMap.sizeY();
+            x0 = Math.max(x0, 0);
+            y0 = Math.max(y0, 0);
+            x1 = Math.min(x1, sizeX);
+            y1 = Math.min(y1, sizeY);
+            if (x0 >= x1 || y0 >= y1) return;
+            
+            int[] labelRow = rowBuffer(0, sizeX);
+            boolean processConfigs = configAccs.length > 0;
+            
+            // rows of region indices, only the pixels between xa and xb being
+            // required for the configurations that overlap the window
+            int[] prevRow = rowBuffer(1, sizeX + 2);
+            int[] currRow = rowBuffer(2, sizeX + 2);
+            Arrays.fill(prevRow, -1);
+            Arrays.fill(currRow, -1);
+            int xa = Math.max(x0 - 1, 0);
+            int xb = Math.min(x1 + 1, sizeX);
+            
+            if (processConfigs && y0 > 0)
+            {
+                readRowIndices(labelMap, y0 - 1, labelRow, currRow, xa, xb);
+            }
+            
+            // the configurations overlapping the window have their lower-right
+            // pixel between (x0, y0) and (x1, y1), inclusive
+            int yEnd = processConfigs ? y1 + 1 : y1;
+            for (int y = y0; y < yEnd; y++)
+            {
+                int[] tmp = prevRow;
+                prevRow = currRow;
+                currRow = tmp;
+                
+                if (y < sizeY)
+                {
+                    readRowIndices(labelMap, y, labelRow, currRow, xa, xb);
+                    for (int x = x0; x < x1 && y < y1; x++)
+                    {
+                        int index = currRow[x + 1];
+                        if (index < 0) continue;
+                        for (ScanAccumulator acc : activeAccs)
+                        {
+                            acc.addPixel(index, x, y);
+                        }
+                        if (pixelCounts != null) pixelCounts[index]++;
+                    }
+                }
+                else
+                {
+                    Arrays.fill(currRow, -1);
+                }
+                
+                if (processConfigs)
+                {
+                    for (int x = x0; x <= x1; x++)
+                    {
+                        int i00 = prevRow[x];
+                        int i01 = prevRow[x + 1];
+                        int i10 = currRow[x];
+                        int i11 = currRow[x + 1];
+                        if ((i00 & i01 & i10 & i11) < 0) continue;
+                        processConfiguration(i00, i01, i10, i11, configAccs);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Reads the labels of the specified row, and stores the index of the
+         * pixels between xa (inclusive) and xb (exclusive) within the row
+         * buffer, starting at position xa+1.
+         */
+        private void readRowIndices(LabelMapSource labelMap, int y, int[] labelRow, int[] row, int xa, int xb)
+        {
+            labelMap.readRow(y, xa, xb, labelRow);
+            for (int x = xa; x < xb; x++)
+            {
+                row[x + 1] = indexOf(labelRow[x]);
+            }
+        }
+        
+        /**
+         * Computes the region index of each run within the specified range,
+         * and stores them within the row buffer with the specified index.
+         */
+        private int[] readRunIndices(RunLengthLabelMap labelMap, int run0, int run1, int bufferIndex)
+        {
+            int[] indices = rowBuffer(bufferIndex, run1 - run0);
+            int prevLabel = 0;
+            int prevIndex = -1;
+            for (int r = run0; r < run1; r++)
+            {
+                int label = labelMap.runLabels[r];
+                if (label != prevLabel)
+                {
+                    prevLabel = label;
+                    prevIndex = indexOf(label);
+                }
+                indices[r - run0] = prevIndex;
+            }
+            return indices;
+        }
+        
+        /**
+         * Reads the labels of the specified row, and stores the index of each
+         * pixel within the row buffer, starting at position 1.
+         */
+        private void readRowIndices(LabelMapSource labelMap, int y, int[] labelRow, int[] row)
+        {
+            labelMap.readRow(y, labelRow);
+            
+            // keep index of previous label, as successive pixels often share
+            // the same label
+            int prevLabel = 0;
+            int prevIndex = -1;
+            int sizeX = labelMap.sizeX();
+            for (int x = 0; x < sizeX; x++)
+            {
+                int label = labelRow[x];
+                if (label != prevLabel)
+                {
+                    prevLabel = label;
+                    prevIndex = indexOf(label);
+                }
+                row[x + 1] = prevIndex;
+            }
+        }
+        
+        /**
+         * Returns the index of the region with the specified label, or -1 if
+         * the label does not need to be processed. When labels are identified
+         * during the scan, a new index is allocated for each new label.
+         */
+        int indexOf(int label)
+        {
+            // background is never processed
+            if (label == 0) return -1;
+            
+            int index = labelIndex.indexOf(label);
+            if (index >= 0 || !discoverLabels) return index;
+            
+            // allocate a new index
+            int newIndex = discoveredIndex.add(label);
+            nSlots++;
+            for (ScanAccumulator acc : activeAccs)
+            {
+                acc.ensureCapacity(nSlots);
+            }
+            if (pixelCounts != null && nSlots > pixelCounts.length)
+            {
+                pixelCounts = Arrays.copyOf(pixelCounts, pixelCounts.length * 2);
+            }
+            return newIndex;
+        }
+        
+        /**
+         * Merges the partial results of another band into this band.
+         */
+        void merge(Band other)
+        {
+            int[] indexMap = computeIndexMap(other);
+            for (int i = 0; i < accumulators.length; i++)
+            {
+                if (accumulators[i] == null || other.accumulators[i] == null) continue;
+                accumulators[i].merge(other.accumulators[i], indexMap);
+            }
+            if (pixelCounts != null)
+            {
+                for (int i = 0; i < indexMap.length; i++)
+                {
+                    pixelCounts[indexMap[i]] += other.pixelCounts[i];
+                }
+            }
+        }
+        
+        /**
+         * Removes the partial results of another band from this band.
+         */
+        void subtract(Band other)
+        {
+            int[] indexMap = computeIndexMap(other);
+            for (int i = 0; i < accumulators.length; i++)
+            {
+                if (accumulators[i] == null || other.accumulators[i] == null) continue;
+                accumulators[i].subtract(other.accumulators[i], indexMap);
+            }
+            if (pixelCounts != null)
+            {
+                for (int i = 0; i < indexMap.length; i++)
+                {
+                    pixelCounts[indexMap[i]] -= other.pixelCounts[i];
+                }
+            }
+        }
+        
+        /**
+         * Computes the index within this band of each index of other band.
+         */
+        private int[] computeIndexMap(Band other)
+        {
+            int[] indexMap = new int[other.nSlots];
+            if (discoverLabels)
+            {
+                int[] otherLabels = other.discoveredIndex.labels();
+                for (int i = 0; i < indexMap.length; i++)
+                {
+                    indexMap[i] = indexOf(otherLabels[i]);
+                }
+            }
+            else
+            {
+                for (int i = 0; i < indexMap.length; i++)
+                {
+                    indexMap[i] = i;
+                }
+            }
+            return indexMap;
+        }
+    }
+    
+    
+    // ==================================================
+    // Static kernels
+    
+    /**
+     * Updates the configuration accumulators with the 2-by-2 configurations
+     * located between the two specified rows of region indices.
+     */
+    private static final void processConfigurations(int[] prevRow, int[] currRow, int sizeX, ScanAccumulator[] configAccs)
+    {
+        for (int x = 0; x < sizeX + 1; x++)
+        {
+            // indices of the regions in current configuration
+            int i00 = prevRow[x];
+            int i01 = prevRow[x + 1];
+            int i10 = currRow[x];
+            int i11 = currRow[x + 1];
+            
+            // skip configurations containing only background
+            if ((i00 & i01 & i10 & i11) < 0) continue;
+            
+            processConfiguration(i00, i01, i10, i11, configAccs);
+        }
+    }
+    
+    /**
+     * Updates the configuration accumulators with the 2-by-2 configurations
+     * located between the two specified rows of region indices, by computing
+     * the histogram of configurations of each region over the whole rows.
+     * Efficient when the label map contains few regions.
+     */
+    private static final void processRegionConfigurations(int[] prevRow, int[] currRow, int sizeX, int nRegions, ScanAccumulator[] configAccs, int[] histo)
+    {
+        ConfigurationKernel kernel = ConfigurationKernel.INSTANCE;
+        for (int index = 0; index < nRegions; index++)
+        {
+            Arrays.fill(histo, 0);
+            kernel.histogram(prevRow, currRow, sizeX + 1, index, histo);
+            
+            // the first element counts configurations without the region
+            for (int config = 1; config < 16; config++)
+            {
+                if (histo[config] > 0)
+                {
+                    addConfigurations(configAccs, index, config, histo[config]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Updates the configuration accumulators with the 2-by-2 configurations
+     * located between two rows of a run-length encoded label map.
+     * 
+     * The configuration at position x contains the pixels x-1 and x of both
+     * rows. Configurations are processed individually at the boundaries of
+     * the runs of either row. Between two successive boundaries, all the
+     * configurations are identical, and are added together.
+     */
+    private static final void processRunConfigurations(RunLengthLabelMap labelMap, 
+            int prevRun0, int prevRun1, int[] prevIndices, 
+            int currRun0, int currRun1, int[] currIndices, 
+            ScanAccumulator[] configAccs)
+    {
+        int[] starts = labelMap.runStarts;
+        int[] ends = labelMap.runEnds;
+        
+        // number of runs, and number of boundaries of each row
+        int nPrev = prevRun1 - prevRun0;
+        int nCurr = currRun1 - currRun0;
+        int nPrevEvents = 2 * nPrev;
+        int nCurrEvents = 2 * nCurr;
+        
+        // the next boundary and the current run of each row
+        int ep = 0, ec = 0;
+        int kp = 0, kc = 0;
+        while (ep < nPrevEvents || ec < nCurrEvents)
+        {
+            // position of next boundary
+            int xp = ep < nPrevEvents ? boundary(starts, ends, prevRun0, ep) : Integer.MAX_VALUE;
+            int xc = ec < nCurrEvents ? boundary(starts, ends, currRun0, ec) : Integer.MAX_VALUE;
+            int x = Math.min(xp, xc);
+            
+            // consume all boundaries at this position
+            while (ep < nPrevEvents && boundary(starts, ends, prevRun0, ep) == x) ep++;
+            while (ec < nCurrEvents && boundary(starts, ends, currRun0, ec) == x) ec++;
+            
+            // skip the runs that end before the configuration
+            while (kp < nPrev && ends[prevRun0 + kp] < x) kp++;
+            while (kc < nCurr && ends[currRun0 + kc] < x) kc++;
+            
+            // process the configuration at the boundary
+            int i00 = runIndexAt(starts, ends, prevRun0, nPrev, prevIndices, kp, x - 1);
+            int i01 = runIndexAt(starts, ends, prevRun0, nPrev, prevIndices, kp, x);
+            int i10 = runIndexAt(starts, ends, currRun0, nCurr, currIndices, kc, x - 1);
+            int i11 = runIndexAt(starts, ends, currRun0, nCurr, currIndices, kc, x);
+            if ((i00 & i01 & i10 & i11) >= 0)
+            {
+                processConfiguration(i00, i01, i10, i11, configAccs);
+            }
+            
+            // the configurations until next boundary contain the pixels
+            // on the right of the current configuration
+            xp = ep < nPrevEvents ? boundary(starts, ends, prevRun0, ep) : Integer.MAX_VALUE;
+            xc = ec < nCurrEvents ? boundary(starts, ends, currRun0, ec) : Integer.MAX_VALUE;
+            int next = Math.min(xp, xc);
+            if (next == Integer.MAX_VALUE) break;
+            int count = next - x - 1;
+            if (count == 0) continue;
+            
+            if (i01 >= 0 && i01 == i11)
+            {
+                addConfigurations(configAccs, i01, 15, count);
+            }
+            else
+            {
+                if (i01 >= 0) addConfigurations(configAccs, i01, 3, count);
+                if (i11 >= 0) addConfigurations(configAccs, i11, 12, count);
+            }
+        }
+    }
+    
+    /**
+     * Returns the position of the boundary with the specified index within a
+     * row: even indices correspond to the start of runs, odd indices to their
+     * end.
+     */
+    private static final int boundary(int[] starts, int[] ends, int run0, int event)
+    {
+        int run = run0 + (event >> 1);
+        return (event & 1) == 0 ? starts[run] : ends[run];
+    }
+    
+    /**
+     * Returns the region index of the run containing the specified position,
+     * or -1 if the position is within background. The search starts at the
+     * run with index k.
+     */
+    private static final int runIndexAt(int[] starts, int[] ends, int run0, int nRuns, int[] indices, int k, int x)
+    {
+        for (int j = k; j < nRuns && starts[run0 + j] <= x; j++)
+        {
+            if (x < ends[run0 + j]) return indices[j];
+        }
+        return -1;
+    }
+    
+    /**
+     * Updates the configuration accumulators with a single 2-by-2
+     * configuration, that contains at least one region.
+     */
+    private static final void processConfiguration(int i00, int i01, int i10, int i11, ScanAccumulator[] configAccs)
+    {
+        // each region is processed when it is first encountered, using
+        // the order of the bits within the configuration index
+        if (i00 >= 0)
+        {
+            int config = 1 | (i01 == i00 ? 2 : 0) | (i10 == i00 ? 4 : 0) | (i11 == i00 ? 8 : 0);
+            addConfiguration(configAccs, i00, config);
+        }
+        if (i01 >= 0 && i01 != i00)
+        {
+            int config = 2 | (i10 == i01 ? 4 : 0) | (i11 == i01 ? 8 : 0);
+            addConfiguration(configAccs, i01, config);
+        }
+        if (i10 >= 0 && i10 != i00 && i10 != i01)
+        {
+            int config = 4 | (i11 == i10 ? 8 : 0);
+            addConfiguration(configAccs, i10, config);
+        }
+        if (i11 >= 0 && i11 != i00 && i11 != i01 && i11 != i10)
+        {
+            addConfiguration(configAccs, i11, 8);
+        }
+    }
+    
+    private static final void addConfiguration(ScanAccumulator[] configAccs, int index, int config)
+    {
+        for (ScanAccumulator acc : configAccs)
+        {
+            acc.addConfiguration(index, config);
+        }
+    }
+    
+    private static final void addConfigurations(ScanAccumulator[] configAccs, int index, int config, int count)
+    {
+        for (ScanAccumulator acc : configAccs)
+        {
+            acc.addConfigurations(index, config, count);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import net.sci.array.numeric.IntArray2D;
+
+/**
+ * Provides the labels of a 2D label map row by row, making it possible to
+ * scan label maps that are not stored in memory.
+ * 
+ * Implementations must support concurrent calls to the <code>readRow()</code>
+ * method, as the rows may be read by several threads when the label map is
+ * scanned in parallel.
+ * 
+ * @see LabelMapScanner
+ * @see RegionFeatures#initialize(LabelMapSource, net.sci.image.Calibration)
+ */
+public interface LabelMapSource
+{
+    /**
+     * Creates a new source of rows for a label map stored in memory.
+     * 
+     * @param array
+     *            the array containing the labels
+     * @return a new source of rows for the array
+     */
+    public static LabelMapSource of(IntArray2D<?> array)
+    {
+        return new ArraySource(array);
+    }
+    
+    /**
+     * @return the number of pixels within each row.
+     */
+    public int sizeX();
+    
+    /**
+     * @return the number of rows.
+     */
+    public int sizeY();
+    
+    /**
+     * Copies the labels of the specified row into the buffer.
+     * 
+     * @param y
+     *            the index of the row
+     * @param buffer
+     *            the buffer to fill, with at least <code>sizeX()</code>
+     *            elements
+     */
+    public void readRow(int y, int[] buffer);
+    
+    /**
+     * Copies the labels of a portion of the specified row into the buffer.
+     * The labels are stored at their x-coordinate, other elements of the
+     * buffer may be modified. Default implementation reads the whole row.
+     * 
+     * @param y
+     *            the index of the row
+     * @param x0
+     *            the x-coordinate of the first pixel to read
+     * @param x1
+     *            the x-coordinate following the last pixel to read
+     * @param buffer
+     *            the buffer to fill, with at least <code>sizeX()</code>
+     *            elements
+     */
+    public default void readRow(int y, int x0, int x1, int[] buffer)
+    {
+        readRow(y, buffer);
+    }
+    
+    
+    /**
+     * Provides the rows of a label map stored within an array. The rows are
+     * read by a reader specialized for the type of the array.
+     * 
+     * @see LabelRowReader
+     */
+    public static class ArraySource implements LabelMapSource
+    {
+        final LabelRowReader reader;
+        
+        public ArraySource(IntArray2D<?> array)
+        {
+            this(LabelRowReader.create(array));
+        }
+        
+        public ArraySource(LabelRowReader reader)
+        {
+            if (reader.sizeZ() != 1)
+            {
+                throw new RuntimeException("Requires a reader for a 2D label map");
+            }
+            this.reader = reader;
+        }
+        
+        @Override
+        public int sizeX()
+        {
+            return reader.sizeX();
+        }
+        
+        @Override
+        public int sizeY()
+        {
+            return reader.sizeY();
+        }
+        
+        @Override
+        public void readRow(int y, int[] buffer)
+        {
+            reader.readRow(y, 0, 0, reader.sizeX(), buffer);
+        }
+        
+        @Override
+        public void readRow(int y, int x0, int x1, int[] buffer)
+        {
+            reader.readRow(y, 0, x0, x1, buffer);
+        }
+    }
+    
+    /**
+     * Provides the rows of a single slice of a 3D label map, without copying
+     * the slice. The rows are read by a reader specialized for the type of
+     * the array.
+     * 
+     * @see LabelRowReader
+     */
+    public static class SliceSource implements LabelMapSource
+    {
+        final LabelRowReader reader;
+        
+        /**
+         * The index of the slice within the 3D label map.
+         */
+        final int z;
+        
+        public SliceSource(LabelRowReader reader, int z)
+        {
+            if (z < 0 || z >= reader.sizeZ())
+            {
+                throw new RuntimeException("Slice index " + z + " out of bounds for a label map with " + reader.sizeZ() + " slices");
+            }
+            this.reader = reader;
+            this.z = z;
+        }
+        
+        @Override
+        public int sizeX()
+        {
+            return reader.sizeX();
+        }
+        
+        @Override
+        public int sizeY()
+        {
+            return reader.sizeY();
+        }
+        
+        @Override
+        public void readRow(int y, int[] buffer)
+        {
+            reader.readRow(y, z, 0, reader.sizeX(), buffer);
+        }
+        
+        @Override
+        public void readRow(int y, int x0, int x1, int[] buffer)
+        {
+            reader.readRow(y, z, x0, x1, buffer);
+        }
+    }
+}
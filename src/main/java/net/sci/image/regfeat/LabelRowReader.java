@@ -0,0 +1,301 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import net.sci.array.Array;
+import net.sci.array.numeric.Int;
+import net.sci.array.numeric.Int32Array2D;
+import net.sci.array.numeric.Int32Array3D;
+import net.sci.array.numeric.IntArray;
+import net.sci.array.numeric.IntArray2D;
+import net.sci.array.numeric.IntArray3D;
+import net.sci.array.numeric.UInt16Array2D;
+import net.sci.array.numeric.UInt16Array3D;
+import net.sci.array.numeric.UInt8Array2D;
+import net.sci.array.numeric.UInt8Array3D;
+
+/**
+ * Reads the labels of a 2D or 3D label map row by row, using a loop
+ * specialized for the type of the array.
+ * 
+ * Accessing the elements through the generic <code>getInt()</code> method of
+ * integer arrays results in virtual calls that can not be inlined when
+ * several array types are processed by the same code. The implementations of
+ * this class read the UInt8, UInt16 and Int32 arrays through their own
+ * element accessors, so that the loop of each implementation only
+ * encounters a single array type. Other integer arrays are read through the
+ * generic accessor.
+ * 
+ * @see LabelMapSource.ArraySource
+ */
+public abstract class LabelRowReader
+{
+    // ==================================================
+    // Static factory
+    
+    /**
+     * Creates a new reader for the specified label map, choosing the
+     * implementation from the type of the array.
+     * 
+     * @param array
+     *            a 2D or 3D array containing integer labels
+     * @return a new reader for the rows of the array
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static final LabelRowReader create(Array<?> array)
+    {
+        // 2D arrays
+        if (array instanceof UInt8Array2D a) return new UInt8Reader2D(a);
+        if (array instanceof UInt16Array2D a) return new UInt16Reader2D(a);
+        if (array instanceof Int32Array2D a) return new Int32Reader2D(a);
+        
+        // 3D arrays
+        if (array instanceof UInt8Array3D a) return new UInt8Reader3D(a);
+        if (array instanceof UInt16Array3D a) return new UInt16Reader3D(a);
+        if (array instanceof Int32Array3D a) return new Int32Reader3D(a);
+        
+        // other arrays are accessed through integer views
+        IntArray<?> intArray = IntArray.wrap((Array<? extends Int>) array);
+        switch (intArray.dimensionality())
+        {
+            case 2: return new GenericReader2D(IntArray2D.wrap(intArray));
+            case 3: return new GenericReader3D(IntArray3D.wrap(intArray));
+            default: throw new RuntimeException("Requires a 2D or 3D label map");
+        }
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The size of the label map along each dimension. The size along the
+     * z-dimension of 2D label maps is 1.
+     */
+    final int sizeX, sizeY, sizeZ;
+    
+    
+    // ==================================================
+    // Constructor
+    
+    LabelRowReader(int sizeX, int sizeY, int sizeZ)
+    {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.sizeZ = sizeZ;
+    }
+    
+    
+    // ==================================================
+    // Methods
+    
+    /**
+     * @return the number of elements within each row.
+     */
+    public int sizeX()
+    {
+        return sizeX;
+    }
+    
+    /**
+     * @return the number of rows within each slice.
+     */
+    public int sizeY()
+    {
+        return sizeY;
+    }
+    
+    /**
+     * @return the number of slices, equal to 1 for 2D label maps.
+     */
+    public int sizeZ()
+    {
+        return sizeZ;
+    }
+    
+    /**
+     * Copies the labels of a portion of a row into the buffer, each label
+     * being stored at its x-coordinate.
+     * 
+     * @param y
+     *            the index of the row
+     * @param z
+     *            the index of the slice, ignored for 2D label maps
+     * @param x0
+     *            the x-coordinate of the first element to read
+     * @param x1
+     *            the x-coordinate following the last element to read
+     * @param buffer
+     *            the buffer to fill, with at least <code>x1</code> elements
+     */
+    public abstract void readRow(int y, int z, int x0, int x1, int[] buffer);
+    
+    
+    // ==================================================
+    // Implementations for 2D arrays
+    
+    static final class UInt8Reader2D extends LabelRowReader
+    {
+        final UInt8Array2D array;
+        
+        UInt8Reader2D(UInt8Array2D array)
+        {
+            super(array.size(0), array.size(1), 1);
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getByte(x, y) & 0x00FF;
+            }
+        }
+    }
+    
+    static final class UInt16Reader2D extends LabelRowReader
+    {
+        final UInt16Array2D array;
+        
+        UInt16Reader2D(UInt16Array2D array)
+        {
+            super(array.size(0), array.size(1), 1);
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getShort(x, y) & 0x00FFFF;
+            }
+        }
+    }
+    
+    static final class Int32Reader2D extends LabelRowReader
+    {
+        final Int32Array2D array;
+        
+        Int32Reader2D(Int32Array2D array)
+        {
+            super(array.size(0), array.size(1), 1);
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getInt(x, y);
+            }
+        }
+    }
+    
+    static final class GenericReader2D extends LabelRowReader
+    {
+        final IntArray2D<?> array;
+        
+        GenericReader2D(IntArray2D<?> array)
+        {
+            super(array.size(0), array.size(1), 1);
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getInt(x, y);
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Implementations for 3D arrays
+    
+    static final class UInt8Reader3D extends LabelRowReader
+    {
+        final UInt8Array3D array;
+        
+        UInt8Reader3D(UInt8Array3D array)
+        {
+            super(array.size(0), array.size(1), array.size(2));
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getByte(x, y, z) & 0x00FF;
+            }
+        }
+    }
+    
+    static final class UInt16Reader3D extends LabelRowReader
+    {
+        final UInt16Array3D array;
+        
+        UInt16Reader3D(UInt16Array3D array)
+        {
+            super(array.size(0), array.size(1), array.size(2));
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getShort(x, y, z) & 0x00FFFF;
+            }
+        }
+    }
+    
+    static final class Int32Reader3D extends LabelRowReader
+    {
+        final Int32Array3D array;
+        
+        Int32Reader3D(Int32Array3D array)
+        {
+            super(array.size(0), array.size(1), array.size(2));
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getInt(x, y, z);
+            }
+        }
+    }
+    
+    static final class GenericReader3D extends LabelRowReader
+    {
+        final IntArray3D<?> array;
+        
+        GenericReader3D(IntArray3D<?> array)
+        {
+            super(array.size(0), array.size(1), array.size(2));
+            this.array = array;
+        }
+        
+        @Override
+        public void readRow(int y, int z, int x0, int x1, int[] buffer)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                buffer[x] = array.getInt(x, y, z);
+            }
+        }
+    }
+}
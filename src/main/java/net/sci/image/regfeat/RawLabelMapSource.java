@@ -0,0 +1,148 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Provides the rows of a label map stored as a raw file of 32-bit integers,
+ * without loading the whole file into memory.
+ * 
+ * The file is memory-mapped as a series of horizontal strips, each strip
+ * containing an integer number of rows. Data are paged in by the operating
+ * system when rows are read, making it possible to process files larger than
+ * the heap.
+ */
+public class RawLabelMapSource implements LabelMapSource
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The maximum number of bytes within a mapped strip.
+     */
+    static final long MAX_STRIP_BYTES = 1L << 28;
+    
+    
+    // ==================================================
+    // Class members
+    
+    int sizeX;
+    int sizeY;
+    
+    /**
+     * The number of rows within each strip.
+     */
+    int rowsPerStrip;
+    
+    /**
+     * The mapped strips, viewed as buffers of integers.
+     */
+    IntBuffer[] strips;
+    
+    
+    // ==================================================
+    // Constructors
+    
+    /**
+     * Maps the specified raw file, assuming no header and little-endian byte
+     * order.
+     * 
+     * @param file
+     *            the path to the raw file
+     * @param sizeX
+     *            the number of pixels within each row
+     * @param sizeY
+     *            the number of rows
+     * @throws IOException
+     *             if the file can not be mapped
+     */
+    public RawLabelMapSource(Path file, int sizeX, int sizeY) throws IOException
+    {
+        this(file, sizeX, sizeY, 0, ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     * Maps the specified raw file.
+     * 
+     * @param file
+     *            the path to the raw file
+     * @param sizeX
+     *            the number of pixels within each row
+     * @param sizeY
+     *            the number of rows
+     * @param offset
+     *            the number of bytes before the first pixel
+     * @param order
+     *            the byte order of the integers within the file
+     * @throws IOException
+     *             if the file can not be mapped
+     */
+    public RawLabelMapSource(Path file, int sizeX, int sizeY, long offset, ByteOrder order) throws IOException
+    {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        
+        long rowBytes = 4L * sizeX;
+        this.rowsPerStrip = (int) Math.max(1, Math.min(sizeY, MAX_STRIP_BYTES / rowBytes));
+        int nStrips = (sizeY + rowsPerStrip - 1) / rowsPerStrip;
+        
+        // mappings remain valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            if (channel.size() < offset + rowBytes * sizeY)
+            {
+                throw new IOException("File is too small for a label map of size " + sizeX + "x" + sizeY);
+            }
+            
+            this.strips = new IntBuffer[nStrips];
+            for (int i = 0; i < nStrips; i++)
+            {
+                int nRows = Math.min(rowsPerStrip, sizeY - i * rowsPerStrip);
+                long pos = offset + rowBytes * i * rowsPerStrip;
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, rowBytes * nRows);
+                this.strips[i] = buffer.order(order).asIntBuffer();
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Implementation of the LabelMapSource interface
+    
+    @Override
+    public int sizeX()
+    {
+        return sizeX;
+    }
+    
+    @Override
+    public int sizeY()
+    {
+        return sizeY;
+    }
+    
+    @Override
+    public void readRow(int y, int[] buffer)
+    {
+        // use absolute bulk read, that does not modify the buffer state
+        IntBuffer strip = strips[y / rowsPerStrip];
+        strip.get((y % rowsPerStrip) * sizeX, buffer, 0, sizeX);
+    }
+    
+    @Override
+    public void readRow(int y, int x0, int x1, int[] buffer)
+    {
+        // only read the requested portion, so that pages outside the window
+        // are not touched
+        IntBuffer strip = strips[y / rowsPerStrip];
+        strip.get((y % rowsPerStrip) * sizeX + x0, buffer, x0, x1 - x0);
+    }
+}
@@ -0,0 +1,209 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A spatial index storing the bounding box of each region of a 2D label map,
+ * making it possible to compute the features of a single region, or of a
+ * small subset of regions, by visiting only their bounding boxes.
+ * 
+ * The index is built by a single traversal of the label map. If the label map
+ * is run-length encoded, only the runs are visited. Bounds are expressed in
+ * pixel coordinates, the upper bounds being exclusive.
+ * 
+ * @see RegionFeatures#boundsIndex()
+ * @see RegionFeatures#forLabels(int...)
+ */
+public class RegionBoundsIndex
+{
+    // ==================================================
+    // Static factory
+    
+    /**
+     * Computes the bounding box of each region of the label map provided by
+     * the specified source.
+     * 
+     * @param labelMap
+     *            the source of the rows of the label map
+     * @param labels
+     *            the labels of the regions to index, or null to index all the
+     *            regions of the label map
+     * @return the index of the bounding box of each region
+     */
+    public static final RegionBoundsIndex create(LabelMapSource labelMap, int[] labels)
+    {
+        RegionBoundsIndex index = new RegionBoundsIndex(labels);
+        if (labelMap instanceof RunLengthLabelMap rle)
+        {
+            for (int y = 0; y < rle.sizeY(); y++)
+            {
+                for (int r = rle.firstRun(y); r < rle.lastRun(y); r++)
+                {
+                    index.add(rle.runLabels[r], rle.runStarts[r], rle.runEnds[r], y);
+                }
+            }
+        }
+        else
+        {
+            int sizeX = labelMap.sizeX();
+            int[] row = new int[sizeX];
+            for (int y = 0; y < labelMap.sizeY(); y++)
+            {
+                labelMap.readRow(y, row);
+                
+                // process runs of identical labels
+                int x = 0;
+                while (x < sizeX)
+                {
+                    int label = row[x];
+                    int x0 = x;
+                    while (x < sizeX && row[x] == label)
+                    {
+                        x++;
+                    }
+                    if (label != 0) index.add(label, x0, x, y);
+                }
+            }
+        }
+        return index;
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The index of each label within the arrays of bounds.
+     */
+    final LabelIndex labelIndex;
+    
+    /**
+     * Specifies whether new labels can be added to the index.
+     */
+    final boolean discoverLabels;
+    
+    /**
+     * The bounds of each region. Upper bounds are exclusive, and regions
+     * without pixel have empty bounds.
+     */
+    int[] xMin, yMin, xMax, yMax;
+    
+    
+    // ==================================================
+    // Constructor
+    
+    private RegionBoundsIndex(int[] labels)
+    {
+        this.discoverLabels = labels == null;
+        this.labelIndex = discoverLabels ? new LabelIndex.Hashed(256) : LabelIndex.create(labels);
+        int n = Math.max(labelIndex.size(), 16);
+        this.xMin = new int[n];
+        this.yMin = new int[n];
+        this.xMax = new int[n];
+        this.yMax = new int[n];
+        Arrays.fill(xMin, Integer.MAX_VALUE);
+        Arrays.fill(yMin, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Updates the bounds of a region with a run of pixels.
+     */
+    private void add(int label, int x0, int x1, int y)
+    {
+        int index = discoverLabels ? ((LabelIndex.Hashed) labelIndex).add(label) : labelIndex.indexOf(label);
+        if (index < 0) return;
+        if (index >= xMin.length) grow(xMin.length * 2);
+        
+        xMin[index] = Math.min(xMin[index], x0);
+        xMax[index] = Math.max(xMax[index], x1);
+        yMin[index] = Math.min(yMin[index], y);
+        yMax[index] = Math.max(yMax[index], y + 1);
+    }
+    
+    private void grow(int capacity)
+    {
+        int n = xMin.length;
+        xMin = Arrays.copyOf(xMin, capacity);
+        yMin = Arrays.copyOf(yMin, capacity);
+        xMax = Arrays.copyOf(xMax, capacity);
+        yMax = Arrays.copyOf(yMax, capacity);
+        Arrays.fill(xMin, n, capacity, Integer.MAX_VALUE);
+        Arrays.fill(yMin, n, capacity, Integer.MAX_VALUE);
+    }
+    
+    
+    // ==================================================
+    // Query methods
+    
+    /**
+     * @return the labels of the indexed regions, in the order of discovery.
+     */
+    public int[] labels()
+    {
+        return labelIndex.labels();
+    }
+    
+    /**
+     * Returns the bounding box of the region with the specified label, as an
+     * array {xMin, yMin, xMax, yMax}, upper bounds being exclusive.
+     * 
+     * @param label
+     *            the label of the region
+     * @return the bounding box of the region, or null if the region is not
+     *         indexed or contains no pixel
+     */
+    public int[] bounds(int label)
+    {
+        int index = labelIndex.indexOf(label);
+        if (index < 0 || xMin[index] == Integer.MAX_VALUE) return null;
+        return new int[] {xMin[index], yMin[index], xMax[index], yMax[index]};
+    }
+    
+    /**
+     * Computes a set of disjoint windows covering the bounding boxes of the
+     * specified regions. Bounding boxes that are closer than one pixel are
+     * merged into a single window, so that no 2-by-2 configuration of pixels
+     * overlaps two windows. Scanning each window therefore visits each pixel
+     * and each configuration of the regions exactly once.
+     * 
+     * @param labels
+     *            the labels of the regions
+     * @return the windows, as arrays {x0, y0, x1, y1}
+     */
+    public int[][] windows(int... labels)
+    {
+        ArrayList<int[]> windows = new ArrayList<>(labels.length);
+        for (int label : labels)
+        {
+            int[] box = bounds(label);
+            if (box == null) continue;
+            
+            // merge with existing windows until no window is close enough
+            boolean merged = true;
+            while (merged)
+            {
+                merged = false;
+                for (int i = 0; i < windows.size(); i++)
+                {
+                    int[] win = windows.get(i);
+                    if (box[0] <= win[2] && win[0] <= box[2] && box[1] <= win[3] && win[1] <= box[3])
+                    {
+                        box[0] = Math.min(box[0], win[0]);
+                        box[1] = Math.min(box[1], win[1]);
+                        box[2] = Math.max(box[2], win[2]);
+                        box[3] = Math.max(box[3], win[3]);
+                        windows.remove(i);
+                        merged = true;
+                        break;
+                    }
+                }
+            }
+            windows.add(box);
+        }
+        return windows.toArray(int[][]::new);
+    }
+}
@@ -6,8 +6,19 @@ package net.sci.image.regfeat;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import net.sci.algo.Algo;
 import net.sci.algo.AlgoEvent;
@@ -18,7 +29,10 @@ import net.sci.array.color.ColorMap;
 import net.sci.array.color.ColorMaps;
 import net.sci.array.numeric.Int;
 import net.sci.array.numeric.IntArray;
+import net.sci.array.numeric.ScalarArray2D;
 import net.sci.axis.CategoricalAxis;
+import net.sci.axis.NumericalAxis;
+import net.sci.image.Calibration;
 import net.sci.image.Image;
 import net.sci.image.label.LabelImages;
 import net.sci.table.CategoricalColumn;
@@ -61,6 +75,15 @@ public class RegionFeatures extends AlgoStub
     // ==================================================
     // Static methods
     
+    /**
+     * Initializes a new analysis of the regions within the specified label map.
+     * The labels of the regions are identified during the first traversal of
+     * the label map, together with the computation of the scan features.
+     * 
+     * @param labelMapImage
+     *            the image containing the label map
+     * @return a new RegionFeatures instance
+     */
     public static final RegionFeatures initialize(Image labelMapImage)
     {
         Array<?> array = labelMapImage.getData();
@@ -70,10 +93,7 @@ public class RegionFeatures extends AlgoStub
             throw new RuntimeException("Requires an image containing an instance of IntArray");
         }
         
-        // cast to Int Array
-        @SuppressWarnings({ "unchecked", "rawtypes" })
-        IntArray<?> intArray = IntArray.wrap((Array<? extends Int>) array);
-        return new RegionFeatures(labelMapImage, LabelImages.findAllLabels(intArray));
+        return new RegionFeatures(labelMapImage, null);
     }
     
     public static final RegionFeatures initialize(Image image, int[] labels)
@@ -81,20 +101,78 @@ public class RegionFeatures extends AlgoStub
         return new RegionFeatures(image, labels);
     }
     
+    /**
+     * Initializes a new analysis of a 2D label map whose rows are provided by
+     * the specified source, for example a label map stored in a file that is
+     * too large to be loaded into memory. Only scan features, and features
+     * that depend only on them, can be computed.
+     * 
+     * @param source
+     *            the source of the rows of the label map
+     * @param calibration
+     *            the spatial calibration of the label map
+     * @return a new RegionFeatures instance
+     */
+    public static final RegionFeatures initialize(LabelMapSource source, Calibration calibration)
+    {
+        RegionFeatures data = new RegionFeatures(null, null);
+        data.source = source;
+        data.calibration = calibration;
+        return data;
+    }
+    
     
     // ==================================================
     // Class members
     
     /**
      * The image containing the map of region label for each pixel / voxel.
+     * Can be null if the rows of the label map are provided by a source.
      */
     public Image labelMap;
     
     /**
-     * The labels of the regions to be analyzed.
+     * The source of the rows of the label map, when the label map is not
+     * stored within an image.
+     */
+    LabelMapSource source = null;
+    
+    /**
+     * The spatial calibration of the label map, when the label map is not
+     * stored within an image.
+     */
+    Calibration calibration = null;
+    
+    /**
+     * The labels of the regions to be analyzed. Can be null until the label
+     * map is scanned for the first time.
+     * 
+     * @see #getLabels()
      */
     public int[] labels;
     
+    /**
+     * The index of each label within the arrays of results, created on demand.
+     * 
+     * @see #labelIndex()
+     */
+    LabelIndex labelIndex = null;
+    
+    /**
+     * The bounding box of each region of the label map, created on demand.
+     * 
+     * @see #boundsIndex()
+     */
+    RegionBoundsIndex boundsIndex = null;
+    
+    /**
+     * The windows of the label map visited by scan features, as arrays {x0,
+     * y0, x1, y1}, or null to scan the whole label map.
+     * 
+     * @see #forLabels(int...)
+     */
+    int[][] scanWindows = null;
+    
     /**
      * The classes of the features that will be used to populate the data table.
      */
@@ -113,6 +191,22 @@ public class RegionFeatures extends AlgoStub
      */
     public Map<String, Image> imageData;
     
+    /**
+     * The range of values of the arrays of image data, computed on demand and
+     * indexed by array. Shared with the analyses created by
+     * <code>forLabels()</code>.
+     * 
+     * @see #valueRange(ScalarArray2D)
+     */
+    Map<Array<?>, double[]> valueRanges = Collections.synchronizedMap(new IdentityHashMap<>());
+    
+    /**
+     * The hash of the content of the arrays of image data, computed on demand
+     * for building the keys of the cache, and indexed by array. Shared with
+     * the analyses created by <code>forLabels()</code>.
+     */
+    Map<Array<?>, String> imageDataHashes = Collections.synchronizedMap(new IdentityHashMap<>());
+    
     /**
      * The results computed for each feature. 
      */
@@ -122,6 +216,71 @@ public class RegionFeatures extends AlgoStub
     
     public UnitDisplay unitDisplay = UnitDisplay.NONE;
     
+    /**
+     * The pool of threads used for parallel computations, or null for
+     * sequential computations (the default).
+     */
+    public ForkJoinPool pool = null;
+    
+    /**
+     * The report of the computation costs of the features.
+     */
+    ComputationReport report = new ComputationReport();
+    
+    /**
+     * Specifies whether the table of computation costs should be appended to
+     * the tables returned by <code>createTables()</code>.
+     */
+    public boolean includeReportTable = false;
+    
+    /**
+     * Specifies whether scan features should be computed from a run-length
+     * encoded version of the label map. Efficient for label maps made of
+     * large regions, such as sparse segmentations.
+     * 
+     * @see #runLengthLabelMap()
+     */
+    public boolean runLengthEncoding = false;
+    
+    /**
+     * The run-length encoded label map, created on demand.
+     */
+    RunLengthLabelMap runLengthMap = null;
+    
+    /**
+     * Specifies whether the results of scan features can be updated after
+     * local edits of the label map. In this mode, the labels are identified
+     * from the label map, unless labels were specified at initialization,
+     * and the scanners are kept after the scan.
+     * 
+     * @see #update(int, int, int, int, Runnable)
+     */
+    public boolean incrementalUpdates = false;
+    
+    /**
+     * The scanners kept for incremental updates.
+     */
+    List<LabelMapScanner> incrementalScanners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * The persistent cache used to retrieve and store the results, or null.
+     * 
+     * @see #cache(FeatureCache)
+     */
+    FeatureCache cache = null;
+    
+    /**
+     * The labels specified at initialization, or null if all the labels of
+     * the label map are analyzed. Used to build the keys of the cache.
+     */
+    int[] requestedLabels;
+    
+    /**
+     * The hash of the content and of the calibration of the label map,
+     * computed on demand.
+     */
+    String contentHash = null;
+    
     
     // ==================================================
     // Constructors
@@ -131,14 +290,324 @@ public class RegionFeatures extends AlgoStub
         // store locally label map data
         this.labelMap = labelMapImage;
         this.labels = labels;
+        this.requestedLabels = labels;
         
-        // initialize data structures
-        this.features = new HashMap<Class<? extends Feature>, Feature>();
-        this.imageData = new HashMap<String, Image>();
-        this.results = new HashMap<Class<? extends Feature>, Object>();
+        // initialize data structures, that may be updated concurrently
+        this.features = new ConcurrentHashMap<Class<? extends Feature>, Feature>();
+        this.imageData = new ConcurrentHashMap<String, Image>();
+        this.results = new ConcurrentHashMap<Class<? extends Feature>, Object>();
         
         // additional setup
-        createLabelColors(this.labels.length);
+        if (labels != null)
+        {
+            createLabelColors(this.labels.length);
+        }
+    }
+    
+    // ==================================================
+    // Accessors to the label map
+    
+    /**
+     * @return the spatial calibration of the label map.
+     */
+    public Calibration calibration()
+    {
+        return this.labelMap != null ? this.labelMap.getCalibration() : this.calibration;
+    }
+    
+    /**
+     * @return the number of dimensions of the label map.
+     */
+    public int dimensionality()
+    {
+        return this.labelMap != null ? this.labelMap.getData().dimensionality() : 2;
+    }
+    
+    /**
+     * Returns the source of the rows of the 2D label map, used by scan
+     * features.
+     * 
+     * @return the source of the rows of the label map
+     */
+    public LabelMapSource labelMapSource()
+    {
+        if (this.source != null) return this.source;
+        
+        // read rows with a loop specialized for the type of the array
+        Array<?> array = this.labelMap.getData();
+        if (array.dimensionality() != 2)
+        {
+            throw new RuntimeException("Requires a 2D label map");
+        }
+        return new LabelMapSource.ArraySource(LabelRowReader.create(array));
+    }
+    
+    /**
+     * Returns the run-length encoded version of the 2D label map. The label
+     * map is encoded the first time this method is called, and the result is
+     * kept for subsequent computations.
+     * 
+     * @return the run-length encoded label map
+     */
+    public synchronized RunLengthLabelMap runLengthLabelMap()
+    {
+        if (this.runLengthMap == null)
+        {
+            this.runLengthMap = RunLengthLabelMap.encode(labelMapSource());
+        }
+        return this.runLengthMap;
+    }
+    
+    /**
+     * Returns the index of the bounding box of each region of the 2D label
+     * map. The index is built by a traversal of the label map the first time
+     * this method is called, and kept for subsequent queries.
+     * 
+     * @return the index of the bounding box of each region
+     */
+    public synchronized RegionBoundsIndex boundsIndex()
+    {
+        if (this.boundsIndex == null)
+        {
+            LabelMapSource labelMap = this.runLengthMap != null ? this.runLengthMap : labelMapSource();
+            this.boundsIndex = RegionBoundsIndex.create(labelMap, this.requestedLabels);
+        }
+        return this.boundsIndex;
+    }
+    
+    /**
+     * Creates a new analysis restricted to the regions with the specified
+     * labels. Scan features of the new analysis only visit the bounding boxes
+     * of the regions, retrieved from the index of bounds of this analysis.
+     * This makes it possible to compute the features of a single region, for
+     * example the region below the mouse cursor, without scanning the whole
+     * label map.
+     * 
+     * The new analysis shares the label map, the image data, the instances of
+     * the features with their parameters, the cache, the pool of threads and
+     * the computation and display options of this analysis. Features have to
+     * be added to the new analysis.
+     * 
+     * Example:
+     * 
+     * <pre>{@code
+     * RegionFeatures data = RegionFeatures.initialize(image);
+     * // on mouse move
+     * RegionFeatures region = data.forLabels(label).add(Area.class).computeAll();
+     * double area = ((double[]) region.results.get(Area.class))[0];
+     * }</pre>
+     * 
+     * @param labels
+     *            the labels of the regions to analyze
+     * @return a new analysis restricted to the specified regions
+     */
+    public RegionFeatures forLabels(int... labels)
+    {
+        if (dimensionality() != 2)
+        {
+            throw new RuntimeException("Requires a 2D label map");
+        }
+        
+        RegionFeatures data = new RegionFeatures(this.labelMap, labels.clone());
+        data.source = this.source;
+        data.calibration = this.calibration;
+        data.runLengthMap = this.runLengthMap;
+        data.runLengthEncoding = this.runLengthEncoding;
+        data.imageData.putAll(this.imageData);
+        data.valueRanges = this.valueRanges;
+        data.imageDataHashes = this.imageDataHashes;
+        data.features.putAll(this.features);
+        data.cache = this.cache;
+        data.contentHash = this.contentHash;
+        data.pool = this.pool;
+        data.unitDisplay = this.unitDisplay;
+        data.scanWindows = boundsIndex().windows(labels);
+        return data;
+    }
+    
+    /**
+     * Returns the hash of the content of the label map, including its size and
+     * its spatial calibration. The hash is computed the first time this
+     * method is called, by reading the whole label map.
+     * 
+     * @return the hash of the label map, as an hexadecimal string
+     */
+    public synchronized String contentHash()
+    {
+        if (this.contentHash != null) return this.contentHash;
+        
+        FeatureCache.Hasher hasher = new FeatureCache.Hasher();
+        int nd = dimensionality();
+        if (nd == 2)
+        {
+            LabelMapSource source = labelMapSource();
+            int sizeX = source.sizeX();
+            int sizeY = source.sizeY();
+            hasher.update(sizeX).update(sizeY);
+            int[] row = new int[sizeX];
+            for (int y = 0; y < sizeY; y++)
+            {
+                source.readRow(y, row);
+                hasher.update(row, sizeX);
+            }
+        }
+        else
+        {
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            IntArray<?> array = IntArray.wrap((Array<? extends Int>) this.labelMap.getData());
+            for (int d = 0; d < nd; d++)
+            {
+                hasher.update(array.size(d));
+            }
+            IntArray.Iterator<?> iter = array.iterator();
+            while (iter.hasNext())
+            {
+                hasher.update(iter.nextInt());
+            }
+        }
+        
+        Calibration calib = calibration();
+        for (int d = 0; d < nd; d++)
+        {
+            NumericalAxis axis = calib.getAxis(d);
+            hasher.update(axis.getSpacing()).update(axis.getOrigin()).update(axis.getUnitName());
+        }
+        
+        this.contentHash = hasher.toHex();
+        return this.contentHash;
+    }
+    
+    /**
+     * Returns the hash of the content of the specified image data, or null if
+     * the image data is missing or can not be hashed. The hash is computed
+     * once per array, so image data must not be modified once added.
+     */
+    private String imageDataHash(String dataName)
+    {
+        Image image = this.imageData.get(dataName);
+        if (image == null || !(image.getData() instanceof ScalarArray2D<?> array)) return null;
+        
+        return this.imageDataHashes.computeIfAbsent(array, a -> {
+            int sizeX = array.size(0);
+            int sizeY = array.size(1);
+            FeatureCache.Hasher hasher = new FeatureCache.Hasher().update(sizeX).update(sizeY);
+            for (int y = 0; y < sizeY; y++)
+            {
+                for (int x = 0; x < sizeX; x++)
+                {
+                    hasher.update(array.getValue(x, y));
+                }
+            }
+            return hasher.toHex();
+        });
+    }
+    
+    /**
+     * Computes the key of the cache entry containing the results of a
+     * feature. Besides the label map, the key depends on the class, the
+     * version, the parameters and the image data of the feature, and of all
+     * the features it depends on. Returns null if the result of the feature
+     * can not be identified, for example when its image data can not be
+     * hashed.
+     */
+    private String cacheKey(Class<? extends Feature> featureClass)
+    {
+        FeatureCache.Hasher hasher = new FeatureCache.Hasher();
+        if (!updateFeatureHash(hasher, featureClass, new HashSet<>())) return null;
+        return cacheKey(featureClass.getName(), hasher.toHex());
+    }
+    
+    /**
+     * Updates the hash with the description of the feature and of its
+     * dependencies, each feature being processed once. Returns false if the
+     * image data of a feature can not be hashed.
+     */
+    private boolean updateFeatureHash(FeatureCache.Hasher hasher, Class<? extends Feature> featureClass, Set<Class<? extends Feature>> visited)
+    {
+        if (!visited.add(featureClass)) return true;
+        
+        Feature feature = getFeature(featureClass);
+        hasher.update(featureClass.getName()).update(feature.version()).update(feature.cacheParameters());
+        for (String dataName : feature.imageDataNames())
+        {
+            String dataHash = imageDataHash(dataName);
+            if (dataHash == null) return false;
+            hasher.update(dataName).update(dataHash);
+        }
+        for (Class<? extends Feature> fc : feature.requiredFeatures())
+        {
+            if (!updateFeatureHash(hasher, fc, visited)) return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Computes the key of the cache entry with the specified name, from the
+     * content of the label map and the requested labels.
+     */
+    private String cacheKey(String name, String fingerprint)
+    {
+        FeatureCache.Hasher hasher = new FeatureCache.Hasher()
+                .update(contentHash())
+                .update(name)
+                .update(fingerprint);
+        if (requestedLabels != null)
+        {
+            hasher.update(requestedLabels.length).update(requestedLabels, requestedLabels.length);
+        }
+        else
+        {
+            hasher.update(-1L);
+        }
+        return hasher.toHex();
+    }
+    
+    /**
+     * Retrieves the result of a feature from the cache, if available. If the
+     * labels are not known yet, they are also retrieved from the cache.
+     * 
+     * @return true if the result was found within the cache
+     */
+    private boolean loadFromCache(Class<? extends Feature> featureClass)
+    {
+        if (this.cache == null) return false;
+        
+        String key = cacheKey(featureClass);
+        if (key == null) return false;
+        Object result = cache.get(key);
+        if (result == null) return false;
+        
+        synchronized (this)
+        {
+            if (this.labels == null)
+            {
+                Object labels = cache.get(cacheKey("labels", ""));
+                if (!(labels instanceof int[] array)) return false;
+                this.labels = array;
+                createLabelColors(array.length);
+            }
+        }
+        
+        this.results.put(featureClass, result);
+        report.addCacheHit(featureClass);
+        return true;
+    }
+    
+    /**
+     * Stores the result of a feature within the cache, together with the
+     * labels of the regions.
+     */
+    private void storeInCache(Class<? extends Feature> featureClass, Object result)
+    {
+        if (this.cache == null || !FeatureCache.isCacheable(result)) return;
+        
+        String key = cacheKey(featureClass);
+        if (key == null) return;
+        cache.put(key, result);
+        if (this.requestedLabels == null && this.labels != null)
+        {
+            cache.put(cacheKey("labels", ""), this.labels);
+        }
     }
     
     private void createLabelColors(int nLabels)
@@ -169,7 +638,19 @@ public class RegionFeatures extends AlgoStub
      */
     public void process(Class<? extends Feature> featureClass)
     {
-        if (isComputed(featureClass)) return;
+        if (isComputed(featureClass))
+        {
+            report.addCacheHit(featureClass);
+            return;
+        }
+        if (loadFromCache(featureClass)) return;
+        
+        // identify labels together with the scan features required by feature
+        if (this.labels == null)
+        {
+            computeScanFeatures(List.of(featureClass));
+            if (isComputed(featureClass)) return;
+        }
         
         Feature feature = getFeature(featureClass);
         ensureRequiredFeaturesAreComputed(feature);
@@ -196,8 +677,266 @@ public class RegionFeatures extends AlgoStub
             });
         }
         
+        // compute feature, measuring the cost of the computation (scan
+        // features are measured during the scan, other features report the
+        // pixels they traverse)
+        ComputationReport.Probe probe = report.start();
+        Object result = feature.compute(this);
+        if (!(feature instanceof ScanFeature))
+        {
+            long[] traversal = report.takeTraversal(featureClass);
+            probe.stop(featureClass.getSimpleName(), List.of(featureClass), traversal[0], traversal[1]);
+        }
+        
         // store within the results class
-        this.results.put(featureClass, feature.compute(this));
+        this.results.put(featureClass, result);
+        storeInCache(featureClass, result);
+    }
+    
+    /**
+     * Computes all the scan features required for computing the specified
+     * features within a single traversal of the label map. If the labels of
+     * the regions are not known yet, they are identified during the same
+     * traversal.
+     * 
+     * @param featureClasses
+     *            the classes of the features to compute
+     */
+    void computeScanFeatures(Collection<Class<? extends Feature>> featureClasses)
+    {
+        // label maps with other dimensionality are not processed by the scanner
+        if (dimensionality() != 2)
+        {
+            ensureLabelsAreInitialized();
+            return;
+        }
+        
+        // identify the scan features that need to be computed
+        LinkedHashSet<Class<? extends Feature>> classes = new LinkedHashSet<>();
+        featureClasses.forEach(fc -> collectRequiredFeatures(fc, classes));
+        ArrayList<ScanFeature> scanFeatures = new ArrayList<>();
+        for (Class<? extends Feature> fc : classes)
+        {
+            if (getFeature(fc) instanceof ScanFeature scanFeature && !loadFromCache(fc))
+            {
+                scanFeatures.add(scanFeature);
+            }
+        }
+        if (scanFeatures.isEmpty() && this.labels != null) return;
+        
+        // compute all scan features within a single traversal
+        this.fireStatusChanged(this, "Scan label map for " + scanFeatures.size() + " feature(s)");
+        Map<Class<? extends Feature>, Object> scanResults = scan(scanFeatures);
+        this.results.putAll(scanResults);
+        scanResults.forEach(this::storeInCache);
+    }
+    
+    private void collectRequiredFeatures(Class<? extends Feature> featureClass, Collection<Class<? extends Feature>> classes)
+    {
+        if (isComputed(featureClass) || classes.contains(featureClass)) return;
+        classes.add(featureClass);
+        for (Class<? extends Feature> fc : getFeature(featureClass).requiredFeatures())
+        {
+            collectRequiredFeatures(fc, classes);
+        }
+    }
+    
+    /**
+     * Computes the specified scan features within a single traversal of the
+     * label map, and returns the results without storing them. If the labels
+     * of the regions are not known yet, they are identified during the
+     * traversal.
+     * 
+     * @param scanFeatures
+     *            the features to compute
+     * @return a map between the class of each feature and the result of its
+     *         computation.
+     */
+    public Map<Class<? extends Feature>, Object> scan(Collection<? extends ScanFeature> scanFeatures)
+    {
+        LabelMapScanner scanner = new LabelMapScanner(this);
+        scanner.addAlgoListener(new AlgoListener() {
+            
+            @Override
+            public void algoProgressChanged(AlgoEvent evt)
+            {
+                fireProgressChanged(evt);
+            }
+            
+            @Override
+            public void algoStatusChanged(AlgoEvent evt)
+            {
+                fireStatusChanged(evt);
+            }
+        });
+        ComputationReport.Probe probe = report.start();
+        Map<Class<? extends Feature>, Object> res = scanner.scan(scanFeatures);
+        String name = scanFeatures.stream()
+                .map(f -> f.getClass().getSimpleName())
+                .collect(Collectors.joining("+", "Scan(", ")"));
+        probe.stop(name, List.copyOf(res.keySet()), scanner.getPixelCount(), scanner.getConfigurationCount());
+        
+        if (this.labels == null)
+        {
+            this.labels = scanner.getLabels();
+            createLabelColors(this.labels.length);
+        }
+        if (incrementalUpdates)
+        {
+            this.incrementalScanners.add(scanner);
+        }
+        return res;
+    }
+    
+    /**
+     * Updates the results after an edit of the label map within the
+     * specified window. Requires the incremental option to be set before the
+     * features are computed.
+     * 
+     * The contribution of the window to the results of the scan features is
+     * computed before and after the edit, and the results are updated by
+     * subtracting the old contribution and adding the new one. Only the pixels
+     * and the 2-by-2 configurations overlapping the window are processed, so
+     * the labels affected by the edit are identified from the window. If
+     * labels were specified at initialization, the results keep one row per
+     * specified label, as for a scan without incremental option. Scan
+     * features that do not support subtraction, as well as all the other
+     * features, are discarded, and are computed again when they are requested.
+     * 
+     * Example:
+     * 
+     * <pre>{@code
+     * RegionFeatures data = RegionFeatures.initialize(image)
+     *     .incrementalUpdates(true)
+     *     .add(Area.class)
+     *     .add(Perimeter.class);
+     * data.computeAll();
+     * data.update(x0, y0, x1, y1, () -> repaint(image, x0, y0, x1, y1));
+     * Table table = data.createTable();
+     * }</pre>
+     * 
+     * @param x0
+     *            the x-coordinate of the first column of the window
+     * @param y0
+     *            the y-coordinate of the first row of the window
+     * @param x1
+     *            the x-coordinate following the last column of the window
+     * @param y1
+     *            the y-coordinate following the last row of the window
+     * @param edit
+     *            the modification of the label map, restricted to the window
+     * @return this instance, for chaining calls
+     */
+    public RegionFeatures update(int x0, int y0, int x1, int y1, Runnable edit)
+    {
+        if (!incrementalUpdates)
+        {
+            throw new RuntimeException("Requires the incremental updates option to be set");
+        }
+        
+        ComputationReport.Probe probe = report.start();
+        
+        // compute the contribution of the window before the edit
+        ArrayList<LabelMapScanner.Update> updates = new ArrayList<>();
+        for (LabelMapScanner scanner : incrementalScanners)
+        {
+            LabelMapScanner.Update update = scanner.prepareUpdate(x0, y0, x1, y1);
+            if (update != null)
+            {
+                updates.add(update);
+            }
+            else
+            {
+                incrementalScanners.remove(scanner);
+            }
+        }
+        
+        edit.run();
+        
+        // discard the results that depend on the previous label map
+        this.results.clear();
+        this.runLengthMap = null;
+        this.contentHash = null;
+        this.labelIndex = null;
+        this.boundsIndex = null;
+        this.labels = this.requestedLabels;
+        
+        // update the results of the incremental scan features
+        for (LabelMapScanner.Update update : updates)
+        {
+            this.results.putAll(update.apply());
+        }
+        if (!updates.isEmpty())
+        {
+            this.labels = updates.get(0).labels();
+            createLabelColors(this.labels.length);
+        }
+        
+        String name = String.format("Update(%d,%d,%d,%d)", x0, y0, x1, y1);
+        long nPixels = (long) Math.max(x1 - x0, 0) * Math.max(y1 - y0, 0);
+        probe.stop(name, List.copyOf(this.results.keySet()), 2 * nPixels, 0);
+        return this;
+    }
+    
+    /**
+     * Ensures the labels of the regions to analyze have been identified, by
+     * scanning the label map if necessary.
+     */
+    public void ensureLabelsAreInitialized()
+    {
+        if (this.labels != null) return;
+        
+        if (dimensionality() == 2)
+        {
+            computeScanFeatures(List.of());
+        }
+        else
+        {
+            Array<?> array = this.labelMap.getData();
+            @SuppressWarnings({ "unchecked", "rawtypes" })
+            IntArray<?> intArray = IntArray.wrap((Array<? extends Int>) array);
+            this.labels = LabelImages.findAllLabels(intArray);
+            createLabelColors(this.labels.length);
+        }
+    }
+    
+    /**
+     * Returns the labels of the regions to analyze, by identifying them from
+     * the label map if necessary.
+     * 
+     * @return the labels of the regions to analyze
+     */
+    public int[] getLabels()
+    {
+        ensureLabelsAreInitialized();
+        return this.labels;
+    }
+    
+    /**
+     * Returns the index of each label within the arrays of results. The index
+     * is created the first time this method is called, and shared by all the
+     * features.
+     * 
+     * @return the index of each label
+     */
+    public synchronized LabelIndex labelIndex()
+    {
+        if (this.labelIndex == null)
+        {
+            this.labelIndex = LabelIndex.create(getLabels());
+        }
+        return this.labelIndex;
+    }
+    
+    /**
+     * Returns the report of the computation costs of the features computed so
+     * far.
+     * 
+     * @return the report of the computation costs
+     */
+    public ComputationReport getReport()
+    {
+        return this.report;
     }
     
     public boolean isComputed(Class<? extends Feature> featureClass)
@@ -207,13 +946,7 @@ public class RegionFeatures extends AlgoStub
     
     public Feature getFeature(Class<? extends Feature> featureClass)
     {
-        Feature feature = this.features.get(featureClass);
-        if (feature == null)
-        {
-            feature = Feature.create(featureClass);
-            this.features.put(featureClass, feature);
-        }
-        return feature;
+        return this.features.computeIfAbsent(featureClass, Feature::create);
     }
     
     public void ensureRequiredFeaturesAreComputed(Feature feature)
@@ -245,9 +978,81 @@ public class RegionFeatures extends AlgoStub
         return this.imageData.get(dataName);
     }
     
+    /**
+     * Returns the range of values of an array of image data. The range is
+     * computed the first time it is requested for the array, and shared by
+     * all the features, as well as by the analyses created by the
+     * <code>forLabels()</code> method. Replacing the image data results in a
+     * new computation.
+     * 
+     * @param array
+     *            an array of image data
+     * @return the minimum and maximum values within the array, as a 2-element
+     *         array, or {0, 0} if the array contains no value
+     */
+    public double[] valueRange(ScalarArray2D<?> array)
+    {
+        return this.valueRanges.computeIfAbsent(array, a -> {
+            double minValue = Double.POSITIVE_INFINITY;
+            double maxValue = Double.NEGATIVE_INFINITY;
+            int sizeX = array.size(0);
+            int sizeY = array.size(1);
+            for (int y = 0; y < sizeY; y++)
+            {
+                for (int x = 0; x < sizeX; x++)
+                {
+                    double value = array.getValue(x, y);
+                    if (value < minValue) minValue = value;
+                    if (value > maxValue) maxValue = value;
+                }
+            }
+            return minValue <= maxValue ? new double[] {minValue, maxValue} : new double[] {0, 0};
+        });
+    }
+    
+    /**
+     * Applies an operation to the index of each region. If a pool of threads
+     * has been specified, regions are processed concurrently, so the
+     * operation must only update data associated to the region it processes.
+     * 
+     * @param action
+     *            the operation to apply to the index of each region
+     */
+    public void forEachRegion(IntConsumer action)
+    {
+        int nRegions = getLabels().length;
+        if (this.pool == null)
+        {
+            for (int i = 0; i < nRegions; i++)
+            {
+                action.accept(i);
+            }
+            return;
+        }
+        
+        // run the parallel stream within the pool, rather than the common pool
+        this.pool.submit(() -> IntStream.range(0, nRegions).parallel().forEach(action)).join();
+    }
+    
+    /**
+     * Computes all the features added to this instance. If a pool of threads
+     * has been specified, independent features are computed concurrently.
+     * 
+     * @return this instance, for chaining calls
+     */
     public RegionFeatures computeAll()
     {
-        this.featureClasses.stream().forEach(this::process);
+        if (this.pool != null)
+        {
+            new FeatureScheduler(this, this.pool).computeAll(this.featureClasses);
+            return this;
+        }
+        
+        // compute all scan features within a single traversal of label map
+        computeScanFeatures(this.featureClasses);
+        this.featureClasses.stream()
+            .filter(fc -> !isComputed(fc))
+            .forEach(this::process);
         return this;
     }
     
@@ -262,12 +1067,28 @@ public class RegionFeatures extends AlgoStub
         return createTables()[0];
     }
     
+    /**
+     * Creates a view on the computed features, presented as a table with one
+     * row per region. Contrary to the <code>createTable()</code> method, the
+     * view wraps the arrays of results without copying them, making it
+     * suitable for label maps containing a large number of regions.
+     * 
+     * @return a new view on the results of the features.
+     */
+    public RegionTableView createTableView()
+    {
+        this.fireStatusChanged(this, "RegionFeatures: compute all features");
+        computeAll();
+        return new RegionTableView(this);
+    }
+    
     /**
      * Returns an array containing two Tables: one with the feature
      * results, another one containing the unit associated to each column in the
-     * first table.
+     * first table. If the <code>includeReportTable</code> option is set, a
+     * third table containing the computation costs is appended.
      * 
-     * @return an array of two Table.
+     * @return an array of two (or three) Table.
      */
     public Table[] createTables()
     {
@@ -282,6 +1103,9 @@ public class RegionFeatures extends AlgoStub
         ArrayList<String> allColNames = new ArrayList<>();
         ArrayList<String> allUnitNames = new ArrayList<>();
         
+        // unit columns only contain the index of the unit name, and can share the same array
+        int[] unitIndices = null;
+        
         // update the global table with each feature
         for (Class<? extends Feature> featureClass : this.featureClasses)
         {
@@ -312,21 +1136,19 @@ public class RegionFeatures extends AlgoStub
                         break;
                     case COLUMN_NAMES:
                         // update columns names before appending to the full tables
+                        // (the table is created by the feature, so columns can be renamed without copy)
                         for (Column col : table.columns())
                         {
-                            Column col2 = col.duplicate();
-                            System.out.println("col name: " + col.getName() + " / " + col2.getName());
-                            
                             // append unit name to column name if necessary
-                            if (col2 instanceof NumericColumn numCol)
+                            if (col instanceof NumericColumn numCol)
                             {
                                 String unitName = numCol.getUnitName();
                                 if (unitName != null)
                                 {
-                                    col2.setName(String.format("%s_(%s)", col.getName(), unitName));
+                                    col.setName(String.format("%s_(%s)", col.getName(), unitName));
                                 }
                             }
-                            fullTable.addColumn(col2);
+                            fullTable.addColumn(col);
                         }
                         break;
                         
@@ -344,8 +1166,8 @@ public class RegionFeatures extends AlgoStub
                                 {
                                     // add a new column containing unit name
                                     String unitColName = col.getName() + "_unit";
-                                    int[] indices = new int[col.length()];
-                                    CategoricalColumn unitCol = CategoricalColumn.create(unitColName, indices, new String[] {unitName});
+                                    if (unitIndices == null) unitIndices = new int[col.length()];
+                                    CategoricalColumn unitCol = CategoricalColumn.create(unitColName, unitIndices, new String[] {unitName});
                                     fullTable.addColumn(unitCol);
                                 }
                             }
@@ -381,6 +1203,10 @@ public class RegionFeatures extends AlgoStub
             columnUnitsTable.setRowAxis(rowAxis);
         }
         
+        if (includeReportTable)
+        {
+            return new Table[] {fullTable, columnUnitsTable, report.createTable()};
+        }
         return new Table[] {fullTable, columnUnitsTable};
     }
     
@@ -390,6 +1216,66 @@ public class RegionFeatures extends AlgoStub
         return this;
     }
     
+    /**
+     * Specifies the pool of threads used for computing features.
+     * 
+     * @param pool
+     *            the pool of threads to use, or null for sequential
+     *            computations
+     * @return this instance, for chaining calls
+     */
+    public RegionFeatures parallel(ForkJoinPool pool)
+    {
+        this.pool = pool;
+        return this;
+    }
+    
+    /**
+     * Specifies whether features should be computed in parallel, using the
+     * common pool of threads.
+     * 
+     * @param flag
+     *            true to compute features in parallel
+     * @return this instance, for chaining calls
+     */
+    public RegionFeatures parallel(boolean flag)
+    {
+        this.pool = flag ? ForkJoinPool.commonPool() : null;
+        return this;
+    }
+    
+    public RegionFeatures includeReportTable(boolean flag)
+    {
+        this.includeReportTable = flag;
+        return this;
+    }
+    
+    public RegionFeatures runLengthEncoding(boolean flag)
+    {
+        this.runLengthEncoding = flag;
+        return this;
+    }
+    
+    /**
+     * Specifies the persistent cache used to retrieve the results computed by
+     * previous analyses of the same label map, and to store new results.
+     * 
+     * @param cache
+     *            the cache to use, or null to disable caching
+     * @return this instance, for chaining calls
+     */
+    public RegionFeatures cache(FeatureCache cache)
+    {
+        this.cache = cache;
+        return this;
+    }
+    
+    public RegionFeatures incrementalUpdates(boolean flag)
+    {
+        this.incrementalUpdates = flag;
+        return this;
+    }
+    
     public RegionFeatures displayUnitsInTable(boolean flag)
     {
         this.unitDisplay = flag ? UnitDisplay.COLUMN_NAMES : UnitDisplay.NONE;
@@ -399,12 +1285,13 @@ public class RegionFeatures extends AlgoStub
     public Table initializeRegionTable()
     {
         // Initialize label column in table
+        ensureLabelsAreInitialized();
         int nLabels = this.labels.length;
         Table table = Table.create(nLabels, 0);
         String[] rowNames = new String[nLabels];
         for (int i = 0; i < this.labels.length; i++)
         {
-            rowNames[i] = "" + this.labels[i];
+            rowNames[i] = String.valueOf(this.labels[i]);
         }
         table.setRowAxis(new CategoricalAxis("Label", rowNames));
         return table;
@@ -0,0 +1,508 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import net.sci.algo.AlgoStub;
+import net.sci.array.numeric.IntArray;
+import net.sci.image.Calibration;
+import net.sci.image.Image;
+import net.sci.table.CategoricalColumn;
+import net.sci.table.Column;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * Computes the same set of features on a large number of label maps, and
+ * concatenates the results into a single table.
+ * 
+ * Images are provided as suppliers, making it possible to load them lazily.
+ * Each worker thread loads an image and computes its features, so that the
+ * loading of some images overlaps the computation of features on others. The
+ * number of images loaded at the same time is bounded, to keep memory usage
+ * under control.
+ * 
+ * Example:
+ * 
+ * <pre>{@code
+ * RegionFeaturesBatch batch = new RegionFeaturesBatch(8)
+ *     .add(Area.class)
+ *     .add(Perimeter.class);
+ * Table table = batch.process(files.stream().map(f -> () -> readImage(f)));
+ * }</pre>
+ * 
+ * The same mechanism is used for analyzing each 2D slice of a hyperstack
+ * label map, such as a time-lapse sequence, by the
+ * <code>processSlices()</code> method.
+ * 
+ * @see RegionFeatures
+ */
+public class RegionFeaturesBatch extends AlgoStub
+{
+    // ==================================================
+    // Class members
+    
+    /**
+     * The classes of the features to compute on each image.
+     */
+    Collection<Class<? extends Feature>> featureClasses = new ArrayList<>();
+    
+    /**
+     * The number of worker threads.
+     */
+    int nWorkers;
+    
+    /**
+     * The maximum number of images processed at the same time, including the
+     * images being loaded.
+     */
+    int maxPendingImages;
+    
+    /**
+     * Specifies whether a column containing the name of the image should be
+     * added to the result table.
+     */
+    public boolean includeImageName = true;
+    
+    
+    // ==================================================
+    // Constructors
+    
+    /**
+     * Creates a new batch processor using as many workers as the number of
+     * available processors.
+     */
+    public RegionFeaturesBatch()
+    {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Creates a new batch processor using the specified number of workers.
+     * 
+     * @param nWorkers
+     *            the number of worker threads
+     */
+    public RegionFeaturesBatch(int nWorkers)
+    {
+        this.nWorkers = nWorkers;
+        this.maxPendingImages = 2 * nWorkers;
+    }
+    
+    
+    // ==================================================
+    // Setup methods
+    
+    public RegionFeaturesBatch add(Class<? extends Feature> featureClass)
+    {
+        this.featureClasses.add(featureClass);
+        return this;
+    }
+    
+    public RegionFeaturesBatch includeImageName(boolean flag)
+    {
+        this.includeImageName = flag;
+        return this;
+    }
+    
+    
+    // ==================================================
+    // Processing methods
+    
+    /**
+     * Computes the features on each image of the collection.
+     * 
+     * @param images
+     *            the images containing the label maps
+     * @return a table containing the concatenated results of all images
+     */
+    public Table process(Collection<Image> images)
+    {
+        return process(images.stream().map(image -> (Supplier<Image>) () -> image));
+    }
+    
+    /**
+     * Computes the features on each image provided by the stream of
+     * suppliers. The rows of the result table follow the order of the stream.
+     * 
+     * @param images
+     *            a stream of suppliers, each one providing a label map image
+     * @return a table containing the concatenated results of all images
+     */
+    public Table process(Stream<? extends Supplier<Image>> images)
+    {
+        Stream<Source> sources = images.map(supplier -> new Source(() -> RegionFeatures.initialize(supplier.get()), new int[0]));
+        return run(sources, new String[0], "Label", includeImageName);
+    }
+    
+    /**
+     * Computes the features on each 2D slice of a hyperstack label map. The
+     * third dimension of a 3D label map is considered as frames, the third and
+     * fourth dimensions of a 4D label map are considered as channels and
+     * frames.
+     * 
+     * Slices are read in place by the workers, through a label map source
+     * for each slice, and analyzed by independent <code>RegionFeatures</code>
+     * instances. As for other label map sources, only scan features, and
+     * features that depend only on them, can be computed on the slices of 3D
+     * and 4D label maps. The result table contains a "Region" column with the
+     * label of each region, followed by a "Channel" and / or a "Frame" column
+     * when the corresponding dimension has more than one element, and by the
+     * columns of the features.
+     * 
+     * @param image
+     *            the image containing the hyperstack label map
+     * @return a table containing the concatenated results of all slices
+     */
+    public Table processSlices(Image image)
+    {
+        if (!(image.getData() instanceof IntArray<?> array))
+        {
+            throw new RuntimeException("Requires an image containing an array of integers");
+        }
+        int nd = array.dimensionality();
+        if (nd < 2 || nd > 4)
+        {
+            throw new RuntimeException("Requires a label map with 2 to 4 dimensions, not " + nd);
+        }
+        
+        // a 2D label map is analyzed as a single image
+        if (nd == 2)
+        {
+            return run(Stream.of(new Source(() -> RegionFeatures.initialize(image), new int[0])), new String[0], "Region", false);
+        }
+        
+        int nChannels = nd == 4 ? array.size(2) : 1;
+        int nFrames = nd == 3 ? array.size(2) : (nd == 4 ? array.size(3) : 1);
+        
+        ArrayList<String> keyNames = new ArrayList<>(2);
+        if (nChannels > 1) keyNames.add("Channel");
+        if (nFrames > 1) keyNames.add("Frame");
+        
+        // the rows of 3D label maps are read by a reader specialized for the
+        // type of array, shared by all slices
+        LabelRowReader reader = nd == 3 ? LabelRowReader.create(array) : null;
+        Calibration calib = image.getCalibration();
+        
+        // iterate over frames, then over channels
+        Stream<Source> sources = IntStream.range(0, nChannels * nFrames).mapToObj(i -> {
+            int channel = i % nChannels;
+            int frame = i / nChannels;
+            int[] keys = nChannels > 1 ? (nFrames > 1 ? new int[] { channel, frame } : new int[] { channel }) : (nFrames > 1 ? new int[] { frame } : new int[0]);
+            LabelMapSource slice = nd == 3 ? new LabelMapSource.SliceSource(reader, frame) : new HyperstackSliceSource(array, channel, frame);
+            return new Source(() -> RegionFeatures.initialize(slice, calib), keys);
+        });
+        return run(sources, keyNames.toArray(String[]::new), "Region", false);
+    }
+    
+    /**
+     * Processes the images provided by the sources with a bounded number of
+     * pending images, and concatenates the results in the order of the
+     * sources.
+     * 
+     * Fails fast: no image is submitted once the processing of an image has
+     * failed, and the remaining tasks are cancelled when the failure is
+     * collected.
+     */
+    private Table run(Stream<Source> sources, String[] keyNames, String labelColumnName, boolean addImageName)
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(nWorkers);
+        ExecutorCompletionService<Chunk> completion = new ExecutorCompletionService<>(executor);
+        Semaphore pending = new Semaphore(maxPendingImages);
+        AtomicBoolean failed = new AtomicBoolean(false);
+        int nImages = 0;
+        
+        try
+        {
+            // submit one task per image, blocking when too many images are
+            // being processed, and stopping after the first failure
+            Iterator<Source> iter = sources.iterator();
+            while (iter.hasNext())
+            {
+                Source source = iter.next();
+                pending.acquire();
+                if (failed.get()) break;
+                int index = nImages++;
+                completion.submit(() -> {
+                    try
+                    {
+                        Chunk chunk = processLabelMap(source.analyzer().get());
+                        chunk.index = index;
+                        chunk.keys = source.keys();
+                        return chunk;
+                    }
+                    catch (RuntimeException | Error ex)
+                    {
+                        failed.set(true);
+                        throw ex;
+                    }
+                    finally
+                    {
+                        pending.release();
+                    }
+                });
+                this.fireStatusChanged(this, "Submitted image " + nImages);
+            }
+            
+            // collect results in the order of completion, the first failure
+            // cancelling the remaining tasks
+            Chunk[] chunks = new Chunk[nImages];
+            for (int i = 0; i < nImages; i++)
+            {
+                Chunk chunk = completion.take().get();
+                chunks[chunk.index] = chunk;
+                this.fireProgressChanged(this, i + 1, nImages);
+            }
+            return concatenate(Arrays.asList(chunks), keyNames, labelColumnName, addImageName);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch processing was interrupted", ex);
+        }
+        catch (ExecutionException ex)
+        {
+            throw new RuntimeException("Error during batch processing", ex.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+    
+    /**
+     * Computes the features on a single label map, and keeps only the
+     * numerical values, so that the label map can be released.
+     * 
+     * The arrays of single value features are used directly, without creating
+     * intermediate tables. Other tabular features are converted through the
+     * table they create.
+     */
+    private Chunk processLabelMap(RegionFeatures analyzer)
+    {
+        this.featureClasses.forEach(analyzer::add);
+        analyzer.computeAll();
+        
+        Chunk chunk = new Chunk();
+        chunk.imageName = analyzer.labelMap != null ? analyzer.labelMap.getName() : null;
+        chunk.labels = analyzer.getLabels();
+        
+        ArrayList<String> columnNames = new ArrayList<>();
+        ArrayList<String> unitNames = new ArrayList<>();
+        ArrayList<double[]> values = new ArrayList<>();
+        for (Class<? extends Feature> featureClass : this.featureClasses)
+        {
+            Feature feature = analyzer.getFeature(featureClass);
+            if (!(feature instanceof RegionTabularFeature tabularFeature)) continue;
+            
+            Object res = analyzer.results.get(featureClass);
+            if (feature instanceof SingleValueFeature svf && res instanceof double[] array)
+            {
+                String[] units = svf.columnUnitNames(analyzer);
+                columnNames.add(svf.name);
+                unitNames.add(units != null ? units[0] : null);
+                values.add(array);
+                continue;
+            }
+            
+            Table table = tabularFeature.createTable(analyzer);
+            int c = 0;
+            for (Column col : table.columns())
+            {
+                columnNames.add(col.getName());
+                unitNames.add(col instanceof NumericColumn numCol ? numCol.getUnitName() : null);
+                double[] colValues = new double[chunk.labels.length];
+                for (int r = 0; r < colValues.length; r++)
+                {
+                    colValues[r] = table.getValue(r, c);
+                }
+                values.add(colValues);
+                c++;
+            }
+        }
+        
+        chunk.columnNames = columnNames.toArray(String[]::new);
+        chunk.unitNames = unitNames.toArray(String[]::new);
+        chunk.values = values.toArray(double[][]::new);
+        return chunk;
+    }
+    
+    /**
+     * Concatenates the results obtained on each image into a single table.
+     */
+    private Table concatenate(List<Chunk> chunks, String[] keyNames, String labelColumnName, boolean addImageName)
+    {
+        // count rows
+        int nRows = 0;
+        for (Chunk chunk : chunks)
+        {
+            nRows += chunk.labels.length;
+        }
+        
+        Table table = Table.create(nRows, 0);
+        if (chunks.isEmpty()) return table;
+        
+        // column of image names, sharing level names
+        if (addImageName)
+        {
+            String[] imageNames = new String[chunks.size()];
+            int[] nameIndices = new int[nRows];
+            int row = 0;
+            for (int i = 0; i < chunks.size(); i++)
+            {
+                Chunk chunk = chunks.get(i);
+                imageNames[i] = chunk.imageName;
+                for (int r = 0; r < chunk.labels.length; r++)
+                {
+                    nameIndices[row++] = i;
+                }
+            }
+            table.addColumn(CategoricalColumn.create("Image", nameIndices, imageNames));
+        }
+        
+        // column of labels
+        double[] labels = new double[nRows];
+        int row = 0;
+        for (Chunk chunk : chunks)
+        {
+            for (int label : chunk.labels)
+            {
+                labels[row++] = label;
+            }
+        }
+        table.addColumn(NumericColumn.create(labelColumnName, labels));
+        
+        // columns of keys, such as channel and frame indices
+        for (int k = 0; k < keyNames.length; k++)
+        {
+            double[] keys = new double[nRows];
+            row = 0;
+            for (Chunk chunk : chunks)
+            {
+                Arrays.fill(keys, row, row + chunk.labels.length, chunk.keys[k]);
+                row += chunk.labels.length;
+            }
+            table.addColumn(NumericColumn.create(keyNames[k], keys));
+        }
+        
+        // feature columns, that must be the same for all images
+        Chunk first = chunks.get(0);
+        for (Chunk chunk : chunks)
+        {
+            if (!Arrays.equals(chunk.columnNames, first.columnNames))
+            {
+                throw new RuntimeException("Feature columns of image " + chunk.imageName + " " + Arrays.toString(chunk.columnNames)
+                        + " differ from the columns of image " + first.imageName + " " + Arrays.toString(first.columnNames));
+            }
+        }
+        for (int c = 0; c < first.columnNames.length; c++)
+        {
+            double[] values = new double[nRows];
+            row = 0;
+            for (Chunk chunk : chunks)
+            {
+                System.arraycopy(chunk.values[c], 0, values, row, chunk.labels.length);
+                row += chunk.labels.length;
+            }
+            NumericColumn column = NumericColumn.create(first.columnNames[c], values);
+            if (first.unitNames[c] != null)
+            {
+                column.setUnitName(first.unitNames[c]);
+            }
+            table.addColumn(column);
+        }
+        
+        return table;
+    }
+    
+    
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * A label map to process, provided by the analysis created on demand,
+     * together with the values of the key columns identifying it within the
+     * result table.
+     */
+    private record Source(Supplier<RegionFeatures> analyzer, int[] keys)
+    {
+    }
+    
+    /**
+     * Provides the rows of the 2D slice of a 4D label map corresponding to a
+     * channel and a frame, without copying the slice.
+     */
+    private static final class HyperstackSliceSource implements LabelMapSource
+    {
+        final IntArray<?> array;
+        final int channel;
+        final int frame;
+        
+        HyperstackSliceSource(IntArray<?> array, int channel, int frame)
+        {
+            this.array = array;
+            this.channel = channel;
+            this.frame = frame;
+        }
+        
+        @Override
+        public int sizeX()
+        {
+            return array.size(0);
+        }
+        
+        @Override
+        public int sizeY()
+        {
+            return array.size(1);
+        }
+        
+        @Override
+        public void readRow(int y, int[] buffer)
+        {
+            readRow(y, 0, array.size(0), buffer);
+        }
+        
+        @Override
+        public void readRow(int y, int x0, int x1, int[] buffer)
+        {
+            // position is allocated for each call, as rows may be read
+            // concurrently
+            int[] pos = new int[] {0, y, channel, frame};
+            for (int x = x0; x < x1; x++)
+            {
+                pos[0] = x;
+                buffer[x] = array.getInt(pos);
+            }
+        }
+    }
+    
+    /**
+     * The results computed on a single image.
+     */
+    static class Chunk
+    {
+        int index;
+        String imageName;
+        int[] keys;
+        int[] labels;
+        String[] columnNames;
+        String[] unitNames;
+        double[][] values;
+    }
+}
@@ -0,0 +1,434 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+
+import net.sci.axis.CategoricalAxis;
+import net.sci.image.regfeat.RegionFeatures.UnitDisplay;
+import net.sci.table.CategoricalColumn;
+import net.sci.table.Column;
+import net.sci.table.IntegerColumn;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+import net.sci.table.impl.ColumnsTable;
+
+/**
+ * A read-only view on the results of a {@code RegionFeatures} analysis,
+ * presented as a table with one row per region.
+ * 
+ * The view wraps the arrays computed by the features without copying them.
+ * Row names are generated from the labels when requested, and unit names are
+ * either appended to column names or provided as virtual columns, depending
+ * on the unit display strategy. Features that do not declare the names of
+ * their columns are wrapped through the table they create.
+ * 
+ * Columns are indexed in two ways. Feature columns, counted by
+ * {@code featureColumnCount()} and accessed by {@code getValue()}, contain
+ * the values of the features. Table columns, counted by
+ * {@code tableColumnCount()}, correspond to the columns of the table created
+ * by {@code toTable()}: the column of labels, the feature columns, and the
+ * unit columns when units are displayed as new columns.
+ * 
+ * Values can be streamed to a text output with the {@code write()} method.
+ * The {@code toTable()} method creates a table that reuses the arrays of the
+ * view.
+ * 
+ * @see RegionFeatures#createTableView()
+ * @see RegionTabularFeature#columnNames(RegionFeatures)
+ */
+public class RegionTableView
+{
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * A column of the view, backed either by an array of numerical values, or
+     * by a column of a table created by a feature.
+     */
+    public static final class ColumnView
+    {
+        final String name;
+        final String unitName;
+        final double[] doubleValues;
+        final int[] intValues;
+        final Table table;
+        final int tableColumn;
+        final Column column;
+        
+        private ColumnView(String name, String unitName, double[] doubleValues, int[] intValues)
+        {
+            this(name, unitName, doubleValues, intValues, null, 0, null);
+        }
+        
+        private ColumnView(String name, String unitName, double[] doubleValues, int[] intValues, Table table, int tableColumn, Column column)
+        {
+            this.name = name;
+            this.unitName = unitName;
+            this.doubleValues = doubleValues;
+            this.intValues = intValues;
+            this.table = table;
+            this.tableColumn = tableColumn;
+            this.column = column;
+        }
+        
+        /**
+         * @return the name of the feature column, without unit.
+         */
+        public String name()
+        {
+            return name;
+        }
+        
+        /**
+         * @return the name of the unit of the column, or null.
+         */
+        public String unitName()
+        {
+            return unitName;
+        }
+        
+        /**
+         * Returns the value of the column for the specified row.
+         * 
+         * @param row
+         *            the index of the row (the index of the region)
+         * @return the value of the column for this row
+         */
+        public double getValue(int row)
+        {
+            if (doubleValues != null) return doubleValues[row];
+            if (intValues != null) return intValues[row];
+            return table.getValue(row, tableColumn);
+        }
+        
+        private boolean isInteger()
+        {
+            return intValues != null;
+        }
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The labels of the regions, used to generate row names.
+     */
+    final int[] labels;
+    
+    /**
+     * The strategy for managing the display of unit names.
+     */
+    final UnitDisplay unitDisplay;
+    
+    /**
+     * The columns of feature values.
+     */
+    final ArrayList<ColumnView> columns = new ArrayList<>();
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Creates a new view on the results of the specified analysis. All the
+     * features must have been computed.
+     * 
+     * @param data
+     *            the data structure containing the computed features
+     */
+    public RegionTableView(RegionFeatures data)
+    {
+        data.ensureLabelsAreInitialized();
+        this.labels = data.labels;
+        this.unitDisplay = data.unitDisplay;
+        
+        for (Class<? extends Feature> featureClass : data.featureClasses)
+        {
+            if (!data.isComputed(featureClass))
+            {
+                throw new RuntimeException("Feature has not been computed: " + featureClass);
+            }
+            
+            if (data.getFeature(featureClass) instanceof RegionTabularFeature feature)
+            {
+                addFeatureColumns(feature, data.results.get(featureClass), data);
+            }
+        }
+    }
+    
+    private void addFeatureColumns(RegionTabularFeature feature, Object result, RegionFeatures data)
+    {
+        String[] names = feature.columnNames(data);
+        String[] unitNames = feature.columnUnitNames(data);
+        
+        // wrap result arrays when the layout of columns is known
+        if (names != null)
+        {
+            if (names.length == 1 && result instanceof double[] values)
+            {
+                columns.add(new ColumnView(names[0], unitName(unitNames, 0), values, null));
+                return;
+            }
+            if (names.length == 1 && result instanceof int[] values)
+            {
+                columns.add(new ColumnView(names[0], unitName(unitNames, 0), null, values));
+                return;
+            }
+            if (result instanceof double[][] arrays && arrays.length == names.length)
+            {
+                for (int c = 0; c < names.length; c++)
+                {
+                    columns.add(new ColumnView(names[c], unitName(unitNames, c), arrays[c], null));
+                }
+                return;
+            }
+        }
+        
+        // otherwise, wrap the columns of the table created by the feature
+        Table table = feature.createTable(data);
+        int c = 0;
+        for (Column col : table.columns())
+        {
+            String unitName = col instanceof NumericColumn numCol ? numCol.getUnitName() : null;
+            columns.add(new ColumnView(col.getName(), unitName, null, null, table, c++, col));
+        }
+    }
+    
+    private static final String unitName(String[] unitNames, int index)
+    {
+        return unitNames != null && index < unitNames.length ? unitNames[index] : null;
+    }
+    
+    
+    // ==================================================
+    // Accessors
+    
+    /**
+     * @return the number of rows of the view, equal to the number of regions.
+     */
+    public int rowCount()
+    {
+        return labels.length;
+    }
+    
+    /**
+     * Returns the number of feature columns of the view, that can be accessed
+     * with the <code>getValue()</code> method.
+     * 
+     * @return the number of feature columns of the view.
+     */
+    public int featureColumnCount()
+    {
+        return columns.size();
+    }
+    
+    /**
+     * Returns the number of columns of the table created by the
+     * <code>toTable()</code> method: the column of labels, the feature
+     * columns, and the unit columns when units are displayed as new columns.
+     * 
+     * @return the number of columns of the table created from the view.
+     */
+    public int tableColumnCount()
+    {
+        int count = 1 + columns.size();
+        if (unitDisplay != UnitDisplay.NEW_COLUMNS) return count;
+        for (ColumnView col : columns)
+        {
+            if (col.unitName != null) count++;
+        }
+        return count;
+    }
+    
+    /**
+     * @return the columns of feature values wrapped by this view.
+     */
+    public ColumnView[] featureColumns()
+    {
+        return columns.toArray(ColumnView[]::new);
+    }
+    
+    /**
+     * Returns the name of the specified row, computed from the label of the
+     * corresponding region.
+     * 
+     * @param row
+     *            the index of the row
+     * @return the name of the row
+     */
+    public String rowName(int row)
+    {
+        return String.valueOf(labels[row]);
+    }
+    
+    /**
+     * Returns the value of the specified feature column for the specified
+     * row. Columns are indexed between 0 and <code>featureColumnCount()</code>,
+     * the column of labels and the unit columns being not counted.
+     * 
+     * @param row
+     *            the index of the row
+     * @param column
+     *            the index of the feature column
+     * @return the value at the specified position
+     */
+    public double getValue(int row, int column)
+    {
+        return columns.get(column).getValue(row);
+    }
+    
+    /**
+     * Computes the header of the specified column, by appending the unit name
+     * if the unit display strategy requires it.
+     * 
+     * @param col
+     *            the column
+     * @return the header of the column
+     */
+    private String header(ColumnView col)
+    {
+        if (unitDisplay == UnitDisplay.COLUMN_NAMES && col.unitName != null)
+        {
+            return String.format("%s_(%s)", col.name, col.unitName);
+        }
+        return col.name;
+    }
+    
+    
+    // ==================================================
+    // Export methods
+    
+    /**
+     * Writes the content of the view as delimited text, one line per region,
+     * without creating any intermediate table. The first line contains the
+     * column headers.
+     * 
+     * @param out
+     *            the output to write into
+     * @param delimiter
+     *            the string used to separate values within a line
+     * @throws UncheckedIOException
+     *             if an I/O error occurs
+     */
+    public void write(Appendable out, String delimiter)
+    {
+        boolean unitColumns = unitDisplay == UnitDisplay.NEW_COLUMNS;
+        try
+        {
+            // header line
+            out.append("Label");
+            for (ColumnView col : columns)
+            {
+                out.append(delimiter).append(header(col));
+                if (unitColumns && col.unitName != null)
+                {
+                    out.append(delimiter).append(col.name).append("_unit");
+                }
+            }
+            out.append('\n');
+            
+            // one line per region
+            for (int row = 0; row < labels.length; row++)
+            {
+                out.append(Integer.toString(labels[row]));
+                for (ColumnView col : columns)
+                {
+                    out.append(delimiter);
+                    if (col.isInteger())
+                    {
+                        out.append(Integer.toString(col.intValues[row]));
+                    }
+                    else
+                    {
+                        out.append(Double.toString(col.getValue(row)));
+                    }
+                    if (unitColumns && col.unitName != null)
+                    {
+                        out.append(delimiter).append(col.unitName);
+                    }
+                }
+                out.append('\n');
+            }
+        }
+        catch (IOException ex)
+        {
+            throw new UncheckedIOException(ex);
+        }
+    }
+    
+    /**
+     * Creates a new table from the view, using the unit display strategy of
+     * the analysis. The columns of the table wrap the arrays of the view
+     * without copying them. The labels are stored within the first column,
+     * that wraps the array of labels, to avoid creating a row name for each
+     * region.
+     * 
+     * @return a new Table containing the values of the view.
+     */
+    public Table toTable()
+    {
+        Table table = Table.create(labels.length, 0);
+        table.addColumn(IntegerColumn.create("Label", labels));
+        
+        // unit columns can share the same array of indices
+        int[] unitIndices = null;
+        for (ColumnView col : columns)
+        {
+            table.addColumn(createColumn(col));
+            
+            if (unitDisplay == UnitDisplay.NEW_COLUMNS && col.unitName != null)
+            {
+                if (unitIndices == null) unitIndices = new int[labels.length];
+                table.addColumn(CategoricalColumn.create(col.name + "_unit", unitIndices, new String[] {col.unitName}));
+            }
+        }
+        return table;
+    }
+    
+    /**
+     * Creates the column of a table corresponding to a column of the view,
+     * wrapping the values of the view.
+     */
+    private Column createColumn(ColumnView col)
+    {
+        if (col.column != null)
+        {
+            // the table is created for the view, so columns can be renamed
+            // without copy
+            col.column.setName(header(col));
+            return col.column;
+        }
+        
+        NumericColumn numCol = col.isInteger()
+                ? IntegerColumn.create(header(col), col.intValues)
+                : NumericColumn.create(header(col), col.doubleValues);
+        if (col.unitName != null) numCol.setUnitName(col.unitName);
+        return numCol;
+    }
+    
+    /**
+     * Creates the table containing the unit associated to each feature
+     * column. The table contains one row per feature column.
+     * 
+     * @return a new table containing the unit name of each column
+     */
+    public Table createUnitsTable()
+    {
+        String[] colNames = new String[columns.size()];
+        String[] unitNames = new String[columns.size()];
+        for (int c = 0; c < colNames.length; c++)
+        {
+            ColumnView col = columns.get(c);
+            colNames[c] = col.name;
+            unitNames[c] = col.unitName != null ? col.unitName : "";
+        }
+        ColumnsTable table = new ColumnsTable(CategoricalColumn.create("Unit", unitNames));
+        table.setRowAxis(CategoricalAxis.create("Feature", colNames));
+        return table;
+    }
+}
@@ -55,5 +55,25 @@ public interface RegionTabularFeature extends Feature
     {
         return null;
     }
+    
+    /**
+     * Returns either {@code null}, or the names of the columns of the table
+     * created by the method {@code createTable()}. When the names are
+     * specified, the result of the feature must be either an array of
+     * numerical values (for a single column), or an array of arrays of double
+     * containing the values of each column. This makes it possible to wrap
+     * the result arrays within a table view without copying them.
+     * 
+     * Default behavior is to return {@code null}.
+     * 
+     * @param data
+     *            the class containing all the computed features.
+     * @return an array of String containing the name of each column
+     * @see RegionTableView
+     */
+    public default String[] columnNames(RegionFeatures data)
+    {
+        return null;
+    }
 
 }
@@ -0,0 +1,216 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.Arrays;
+
+/**
+ * A run-length encoded representation of a 2D label map. Each row is stored
+ * as a sequence of runs of pixels with the same label. Runs of background
+ * pixels are not stored.
+ * 
+ * The runs of all the rows are stored within flat arrays, the runs of row
+ * <code>y</code> having indices between <code>rowOffsets[y]</code>
+ * (inclusive) and <code>rowOffsets[y+1]</code> (exclusive). Within a row,
+ * runs are sorted by increasing x-coordinate.
+ * 
+ * For label maps composed of large regions separated by background, the
+ * encoded label map is much smaller than the original one, and scan features
+ * can process whole runs instead of individual pixels.
+ * 
+ * @see RegionFeatures#runLengthLabelMap()
+ * @see LabelMapScanner
+ */
+public class RunLengthLabelMap implements LabelMapSource
+{
+    // ==================================================
+    // Static factory
+    
+    /**
+     * Encodes the label map provided by a source of rows.
+     * 
+     * @param source
+     *            the source of the rows of the label map
+     * @return the run-length encoded label map
+     */
+    public static final RunLengthLabelMap encode(LabelMapSource source)
+    {
+        int sizeX = source.sizeX();
+        int sizeY = source.sizeY();
+        RunLengthLabelMap map = new RunLengthLabelMap(sizeX, sizeY);
+        
+        int[] row = new int[sizeX];
+        int nRuns = 0;
+        for (int y = 0; y < sizeY; y++)
+        {
+            map.rowOffsets[y] = nRuns;
+            source.readRow(y, row);
+            
+            int x = 0;
+            while (x < sizeX)
+            {
+                // find the end of the current run
+                int label = row[x];
+                int x0 = x;
+                while (x < sizeX && row[x] == label)
+                {
+                    x++;
+                }
+                if (label == 0) continue;
+                
+                // append the run
+                if (nRuns == map.runLabels.length)
+                {
+                    map.grow(Math.max(nRuns * 2, 16));
+                }
+                map.runStarts[nRuns] = x0;
+                map.runEnds[nRuns] = x;
+                map.runLabels[nRuns] = label;
+                nRuns++;
+            }
+        }
+        map.rowOffsets[sizeY] = nRuns;
+        
+        // release the unused capacity
+        map.grow(nRuns);
+        return map;
+    }
+    
+    
+    // ==================================================
+    // Class members
+    
+    /**
+     * The size of the label map.
+     */
+    final int sizeX, sizeY;
+    
+    /**
+     * The index of the first run of each row, with an additional element
+     * containing the total number of runs.
+     */
+    final int[] rowOffsets;
+    
+    /**
+     * The x-coordinate of the first pixel of each run.
+     */
+    int[] runStarts = new int[0];
+    
+    /**
+     * The x-coordinate following the last pixel of each run.
+     */
+    int[] runEnds = new int[0];
+    
+    /**
+     * The label of each run.
+     */
+    int[] runLabels = new int[0];
+    
+    
+    // ==================================================
+    // Constructor
+    
+    private RunLengthLabelMap(int sizeX, int sizeY)
+    {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.rowOffsets = new int[sizeY + 1];
+    }
+    
+    private void grow(int capacity)
+    {
+        this.runStarts = Arrays.copyOf(runStarts, capacity);
+        this.runEnds = Arrays.copyOf(runEnds, capacity);
+        this.runLabels = Arrays.copyOf(runLabels, capacity);
+    }
+    
+    
+    // ==================================================
+    // Accessors
+    
+    /**
+     * @return the total number of runs of foreground pixels.
+     */
+    public int runCount()
+    {
+        return rowOffsets[sizeY];
+    }
+    
+    /**
+     * @param y
+     *            the index of a row
+     * @return the index of the first run of the row
+     */
+    public int firstRun(int y)
+    {
+        return rowOffsets[y];
+    }
+    
+    /**
+     * @param y
+     *            the index of a row
+     * @return the index following the last run of the row
+     */
+    public int lastRun(int y)
+    {
+        return rowOffsets[y + 1];
+    }
+    
+    public int runStart(int run)
+    {
+        return runStarts[run];
+    }
+    
+    public int runEnd(int run)
+    {
+        return runEnds[run];
+    }
+    
+    public int runLabel(int run)
+    {
+        return runLabels[run];
+    }
+    
+    
+    // ==================================================
+    // Implementation of the LabelMapSource interface
+    
+    @Override
+    public int sizeX()
+    {
+        return sizeX;
+    }
+    
+    @Override
+    public int sizeY()
+    {
+        return sizeY;
+    }
+    
+    @Override
+    public void readRow(int y, int[] buffer)
+    {
+        Arrays.fill(buffer, 0, sizeX, 0);
+        for (int r = rowOffsets[y]; r < rowOffsets[y + 1]; r++)
+        {
+            Arrays.fill(buffer, runStarts[r], runEnds[r], runLabels[r]);
+        }
+    }
+    
+    @Override
+    public void readRow(int y, int x0, int x1, int[] buffer)
+    {
+        Arrays.fill(buffer, x0, x1, 0);
+        for (int r = rowOffsets[y]; r < rowOffsets[y + 1]; r++)
+        {
+            int start = Math.max(runStarts[r], x0);
+            int end = Math.min(runEnds[r], x1);
+            if (start < end)
+            {
+                Arrays.fill(buffer, start, end, runLabels[r]);
+            }
+            if (runEnds[r] >= x1) break;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+/**
+ * Accumulates the contribution of the elements of a label map into per-region
+ * partial results, during a single traversal of the label map performed by a
+ * {@code LabelMapScanner}.
+ * 
+ * Regions are identified by their index in the scanner, that may differ from
+ * the final index of the region within the {@code RegionFeatures} data
+ * structure. The mapping between scanner indices and final indices is provided
+ * when the result is created.
+ * 
+ * Accumulators can process pixels, 2-by-2 configurations of pixels, or both.
+ * Default implementations of processing methods do nothing. When the label
+ * map is run-length encoded, pixels are provided as runs, and identical
+ * configurations are provided together with their count; default
+ * implementations process them one by one, and can be overridden with closed
+ * form updates.
+ * 
+ * @see LabelMapScanner
+ * @see ScanFeature
+ */
+public interface ScanAccumulator
+{
+    /**
+     * Ensures the accumulator can store the partial results of at least the
+     * specified number of regions. Called by the scanner each time a new
+     * region index is allocated.
+     * 
+     * @param nRegions
+     *            the number of regions the accumulator must be able to store
+     */
+    public void ensureCapacity(int nRegions);
+    
+    /**
+     * Adds the contribution of the pixel at the specified position.
+     * 
+     * @param index
+     *            the index of the region the pixel belongs to
+     * @param x
+     *            the x-coordinate of the pixel
+     * @param y
+     *            the y-coordinate of the pixel
+     */
+    public default void addPixel(int index, int x, int y)
+    {
+    }
+    
+    /**
+     * Adds the contribution of a run of pixels within a row. Default
+     * implementation adds the contribution of each pixel.
+     * 
+     * @param index
+     *            the index of the region the pixels belong to
+     * @param x0
+     *            the x-coordinate of the first pixel of the run
+     * @param x1
+     *            the x-coordinate following the last pixel of the run
+     * @param y
+     *            the y-coordinate of the row
+     */
+    public default void addRun(int index, int x0, int x1, int y)
+    {
+        for (int x = x0; x < x1; x++)
+        {
+            addPixel(index, x, y);
+        }
+    }
+    
+    /**
+     * Specifies whether this accumulator needs to process 2-by-2
+     * configurations of pixels. Default is false, meaning only pixels are
+     * processed.
+     * 
+     * @return true if the accumulator processes the 2-by-2 configurations.
+     */
+    public default boolean usesConfigurations()
+    {
+        return false;
+    }
+    
+    /**
+     * Adds the contribution of a 2-by-2 configuration of pixels, for the
+     * region with the specified index. The configuration is encoded as an
+     * integer between 0 and 15, using 1 for the upper-left pixel, 2 for the
+     * upper-right pixel, 4 for the lower-left pixel, and 8 for the lower-right
+     * pixel.
+     * 
+     * @param index
+     *            the index of a region contained within the configuration
+     * @param config
+     *            the index of the binary configuration for this region
+     */
+    public default void addConfiguration(int index, int config)
+    {
+    }
+    
+    /**
+     * Adds the contribution of several identical 2-by-2 configurations of
+     * pixels. Default implementation adds each configuration.
+     * 
+     * @param index
+     *            the index of a region contained within the configurations
+     * @param config
+     *            the index of the binary configuration for this region
+     * @param count
+     *            the number of configurations
+     */
+    public default void addConfigurations(int index, int config, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            addConfiguration(index, config);
+        }
+    }
+    
+    /**
+     * Adds the partial results of another accumulator of the same type into
+     * this accumulator. Used to merge the results computed on different parts
+     * of the label map.
+     * 
+     * @param other
+     *            another accumulator of the same class
+     * @param indexMap
+     *            the index within this accumulator of each region index of the
+     *            other accumulator
+     */
+    public void merge(ScanAccumulator other, int[] indexMap);
+    
+    /**
+     * Specifies whether partial results can be removed from this accumulator,
+     * making it possible to update the results after local edits of the label
+     * map. Default is false.
+     * 
+     * @return true if the <code>subtract()</code> method is supported.
+     */
+    public default boolean isSubtractable()
+    {
+        return false;
+    }
+    
+    /**
+     * Removes the partial results of another accumulator of the same type
+     * from this accumulator. This is the inverse operation of the
+     * <code>merge()</code> method.
+     * 
+     * @param other
+     *            another accumulator of the same class
+     * @param indexMap
+     *            the index within this accumulator of each region index of the
+     *            other accumulator
+     * @throws UnsupportedOperationException
+     *             if the accumulator does not support subtraction
+     */
+    public default void subtract(ScanAccumulator other, int[] indexMap)
+    {
+        throw new UnsupportedOperationException("Accumulator does not support subtraction: " + getClass().getName());
+    }
+    
+    /**
+     * Creates the result of the accumulation. The result contains as many
+     * elements as the length of the <code>order</code> array, the i-th element
+     * of the result corresponding to the region with index
+     * <code>order[i]</code> within the accumulator.
+     * 
+     * @param order
+     *            the accumulator index of each region within the result
+     * @return the result of the accumulation, usually as an array
+     */
+    public Object result(int[] order);
+}
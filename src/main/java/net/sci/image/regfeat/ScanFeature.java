@@ -0,0 +1,38 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.List;
+
+/**
+ * A feature that can be computed by accumulating information during a
+ * traversal of the label map. Scan features computed on the same label map
+ * share a single traversal.
+ * 
+ * Implementations only need to provide the accumulator. The default
+ * <code>compute()</code> method scans the label map with this feature alone;
+ * when several scan features are requested, the <code>RegionFeatures</code>
+ * class computes them all within the same scan.
+ * 
+ * @see ScanAccumulator
+ * @see LabelMapScanner
+ */
+public interface ScanFeature extends Feature
+{
+    /**
+     * Creates a new accumulator for computing this feature on the specified
+     * data.
+     * 
+     * @param data
+     *            the data structure containing the label map and the options
+     * @return a new accumulator for this feature
+     */
+    public ScanAccumulator createAccumulator(RegionFeatures data);
+    
+    @Override
+    public default Object compute(RegionFeatures data)
+    {
+        return data.scan(List.of(this)).get(this.getClass());
+    }
+}
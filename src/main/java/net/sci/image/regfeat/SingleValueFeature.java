@@ -50,6 +50,12 @@ public abstract class SingleValueFeature implements RegionTabularFeature
     @Override
     public abstract double[] compute(RegionFeatures data);
 
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return new String[] {this.name};
+    }
+    
     @Override
     public void updateTable(Table table, RegionFeatures data)
     {
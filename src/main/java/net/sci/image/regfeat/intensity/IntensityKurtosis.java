@@ -0,0 +1,53 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.intensity.core.IntensityMoments;
+
+/**
+ * The excess kurtosis of the intensity values within each region, defined as
+ * the ratio of the fourth central moment over the squared variance, minus
+ * three.
+ * 
+ * @see IntensityMoments
+ */
+public class IntensityKurtosis extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public IntensityKurtosis()
+    {
+        super("Intensity_Kurtosis");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        IntensityMoments.Moments moments = (IntensityMoments.Moments) data.results.get(IntensityMoments.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[moments.size()];
+        for (int i = 0; i < res.length; i++)
+        {
+            double m2 = moments.m2[i];
+            res[i] = m2 > 0 ? moments.counts[i] * moments.m4[i] / (m2 * m2) - 3.0 : Double.NaN;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(IntensityMoments.class);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionTabularFeature;
+import net.sci.image.regfeat.intensity.core.IntensityHistogram;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * Several quantiles of the intensity values within each region, estimated
+ * from the histogram of intensity values of the region. Default levels
+ * correspond to the 5th, 25th, 75th and 95th percentiles.
+ * 
+ * The result is given as an array of double with as many rows as the number
+ * of levels, each row containing the quantile of each region.
+ * 
+ * @see IntensityHistogram
+ */
+public class IntensityQuantiles implements RegionTabularFeature
+{
+    /**
+     * The levels of the quantiles, between 0 and 1.
+     */
+    double[] levels = new double[] {0.05, 0.25, 0.75, 0.95};
+    
+    /**
+     * Default empty constructor.
+     */
+    public IntensityQuantiles()
+    {
+    }
+    
+    public IntensityQuantiles levels(double... levels)
+    {
+        for (double level : levels)
+        {
+            if (level < 0 || level > 1)
+            {
+                throw new IllegalArgumentException("Quantile levels must be between 0 and 1");
+            }
+        }
+        this.levels = levels.clone();
+        return this;
+    }
+    
+    @Override
+    public double[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        IntensityHistogram.Histogram[] histograms = (IntensityHistogram.Histogram[]) data.results.get(IntensityHistogram.class);
+        
+        // compute each quantile for each region
+        double[][] res = new double[levels.length][histograms.length];
+        for (int i = 0; i < histograms.length; i++)
+        {
+            for (int l = 0; l < levels.length; l++)
+            {
+                res[l][i] = histograms[i].quantile(levels[l]);
+            }
+        }
+        return res;
+    }
+    
+    @Override
+    public String cacheParameters()
+    {
+        return "levels=" + Arrays.toString(levels);
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(IntensityHistogram.class);
+    }
+    
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        String[] names = new String[levels.length];
+        for (int l = 0; l < levels.length; l++)
+        {
+            names[l] = columnName(levels[l]);
+        }
+        return names;
+    }
+    
+    @Override
+    public void updateTable(Table table, RegionFeatures data)
+    {
+        Object obj = data.results.get(this.getClass());
+        if (obj instanceof double[][] quantiles)
+        {
+            for (int l = 0; l < levels.length; l++)
+            {
+                table.addColumn(NumericColumn.create(columnName(levels[l]), quantiles[l]));
+            }
+        }
+        else
+        {
+            throw new RuntimeException("Requires object argument to be an array of double arrays");
+        }
+    }
+    
+    /**
+     * Creates the name of the column associated to a quantile level, for
+     * example "Intensity_P25" for the level 0.25.
+     */
+    private static final String columnName(double level)
+    {
+        double percent = level * 100;
+        if (percent == Math.rint(percent))
+        {
+            return String.format(Locale.ENGLISH, "Intensity_P%02d", (int) percent);
+        }
+        return String.format(Locale.ENGLISH, "Intensity_P%s", Double.toString(percent).replace('.', '_'));
+    }
+}
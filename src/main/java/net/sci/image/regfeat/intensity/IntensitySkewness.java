@@ -0,0 +1,52 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.intensity.core.IntensityMoments;
+
+/**
+ * The skewness of the intensity values within each region, defined as the
+ * ratio of the third central moment over the cube of the standard deviation.
+ * 
+ * @see IntensityMoments
+ */
+public class IntensitySkewness extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public IntensitySkewness()
+    {
+        super("Intensity_Skewness");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        IntensityMoments.Moments moments = (IntensityMoments.Moments) data.results.get(IntensityMoments.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[moments.size()];
+        for (int i = 0; i < res.length; i++)
+        {
+            double m2 = moments.m2[i];
+            res[i] = m2 > 0 ? Math.sqrt(moments.counts[i]) * moments.m3[i] / Math.pow(m2, 1.5) : Double.NaN;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(IntensityMoments.class);
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.intensity.core.IntensityMoments;
+
+/**
+ * The variance of the intensity values within each region, computed with
+ * the unbiased estimator.
+ * 
+ * @see IntensityMoments
+ */
+public class IntensityVariance extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public IntensityVariance()
+    {
+        super("Intensity_Variance");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        IntensityMoments.Moments moments = (IntensityMoments.Moments) data.results.get(IntensityMoments.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[moments.size()];
+        for (int i = 0; i < res.length; i++)
+        {
+            long n = moments.counts[i];
+            res[i] = n > 1 ? moments.m2[i] / (n - 1) : Double.NaN;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(IntensityMoments.class);
+    }
+}
@@ -0,0 +1,50 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.intensity.core.IntensityMoments;
+
+/**
+ * The maximum intensity value within each region.
+ * 
+ * @see IntensityMoments
+ */
+public class MaxIntensity extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public MaxIntensity()
+    {
+        super("Max_Intensity");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        IntensityMoments.Moments moments = (IntensityMoments.Moments) data.results.get(IntensityMoments.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[moments.size()];
+        for (int i = 0; i < res.length; i++)
+        {
+            res[i] = moments.counts[i] > 0 ? moments.maxs[i] : Double.NaN;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(IntensityMoments.class);
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.intensity.core.IntensityHistogram;
+
+/**
+ * The median of the intensity values within each region, estimated from the
+ * histogram of intensity values of the region.
+ * 
+ * @see IntensityHistogram
+ */
+public class MedianIntensity extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public MedianIntensity()
+    {
+        super("Median_Intensity");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        IntensityHistogram.Histogram[] histograms = (IntensityHistogram.Histogram[]) data.results.get(IntensityHistogram.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[histograms.length];
+        for (int i = 0; i < res.length; i++)
+        {
+            res[i] = histograms[i].quantile(0.5);
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(IntensityHistogram.class);
+    }
+}
@@ -0,0 +1,512 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import net.sci.array.numeric.IntArray;
+import net.sci.array.numeric.ScalarArray2D;
+import net.sci.array.numeric.UInt16Array;
+import net.sci.array.numeric.UInt8Array;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.ScanAccumulator;
+import net.sci.image.regfeat.ScanFeature;
+
+/**
+ * Computes a compact histogram of the intensity values within each region,
+ * used for estimating quantiles without storing all the values of the region.
+ * 
+ * Values are mapped to bins of constant width. For integer images whose range
+ * of values does not exceed the maximum number of bins, each bin corresponds
+ * to a single integer value, and the quantiles are exact. Otherwise, the range
+ * of values of the image is divided into the maximum number of bins, and the
+ * error on quantiles is bounded by half the width of a bin.
+ * 
+ * The binning of UInt8 and UInt16 images is derived from the type of the
+ * image when possible. For other images, the range of values is computed
+ * once per intensity array by the <code>RegionFeatures</code> data
+ * structure, and shared by the analyses of subsets of regions.
+ * 
+ * The histogram of each region is sparse: it stores only the non-empty bins,
+ * so that its size is bounded by both the number of pixels of the region and
+ * the maximum number of bins. Histograms computed on different bands of the
+ * label map are merged, making it possible to scan the label map in parallel.
+ * 
+ * The maximum number of bins can be changed on the instance of the feature
+ * used by the <code>RegionFeatures</code> data structure:
+ * 
+ * <pre>{@code
+ * ((IntensityHistogram) data.getFeature(IntensityHistogram.class)).maxBinCount(65536);
+ * }</pre>
+ * 
+ * @see IntensityMoments#IMAGE_DATA_NAME
+ */
+public class IntensityHistogram implements ScanFeature
+{
+    // ==================================================
+    // Class members
+    
+    /**
+     * The maximum number of bins of the histograms. Default is 4096.
+     */
+    int maxBinCount = 4096;
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Default empty constructor.
+     */
+    public IntensityHistogram()
+    {
+    }
+    
+    
+    // ==================================================
+    // Setup methods
+    
+    public IntensityHistogram maxBinCount(int maxBinCount)
+    {
+        if (maxBinCount < 1)
+        {
+            throw new IllegalArgumentException("Number of bins must be positive");
+        }
+        this.maxBinCount = maxBinCount;
+        return this;
+    }
+    
+    
+    // ==================================================
+    // Implementation of the Feature interface
+    
+    @Override
+    public Histogram[] compute(RegionFeatures data)
+    {
+        return (Histogram[]) ScanFeature.super.compute(data);
+    }
+    
+    @Override
+    public ScanAccumulator createAccumulator(RegionFeatures data)
+    {
+        ScalarArray2D<?> array = IntensityMoments.intensityArray(data);
+        return new Accumulator(array, binning(data, array));
+    }
+    
+    @Override
+    public String cacheParameters()
+    {
+        return "maxBinCount=" + maxBinCount;
+    }
+    
+    @Override
+    public Collection<String> imageDataNames()
+    {
+        return List.of(IntensityMoments.IMAGE_DATA_NAME);
+    }
+    
+    /**
+     * Computes the binning of the intensity image. Images whose type has a
+     * small range of values use one bin per value, without reading the
+     * image. Otherwise, the binning is computed from the range of values of
+     * the image, that is computed only once per intensity array.
+     */
+    private Binning binning(RegionFeatures data, ScalarArray2D<?> array)
+    {
+        // the range of values is known from the type of the image
+        if (array instanceof UInt8Array && maxBinCount >= 256)
+        {
+            return new Binning(0, 1.0);
+        }
+        if (array instanceof UInt16Array && maxBinCount >= 65536)
+        {
+            return new Binning(0, 1.0);
+        }
+        
+        double[] valueRange = data.valueRange(array);
+        double minValue = valueRange[0];
+        double range = valueRange[1] - minValue;
+        
+        // use one bin per value for integer images with small range
+        if (array instanceof IntArray<?> && range < maxBinCount)
+        {
+            return new Binning(minValue, 1.0);
+        }
+        return new Binning(minValue, range > 0 ? range / (maxBinCount - 1) : 1.0);
+    }
+    
+    
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * The mapping between intensity values and bin indices. Each bin is
+     * centered on the value <code>origin + bin * width</code>.
+     * 
+     * @param origin
+     *            the value associated to the first bin
+     * @param width
+     *            the width of each bin
+     */
+    public record Binning(double origin, double width)
+    {
+        /**
+         * @param value
+         *            an intensity value
+         * @return the index of the bin containing the value
+         */
+        public int binIndex(double value)
+        {
+            return (int) Math.round((value - origin) / width);
+        }
+        
+        /**
+         * @param bin
+         *            the index of a bin
+         * @return the intensity value at the center of the bin
+         */
+        public double binValue(int bin)
+        {
+            return origin + bin * width;
+        }
+    }
+    
+    /**
+     * The sparse histogram of the intensity values of a single region. The
+     * non-empty bins are stored in increasing order, together with their
+     * counts. New bins are appended into a pending buffer, that is sorted and
+     * merged with the stored bins when it is full.
+     */
+    public static final class Histogram
+    {
+        /**
+         * The maximum size of the pending buffer.
+         */
+        static final int MAX_PENDING = 256;
+        
+        /**
+         * The binning shared by all the histograms.
+         */
+        final Binning binning;
+        
+        /**
+         * The indices of the non-empty bins, in increasing order.
+         */
+        int[] bins = new int[0];
+        
+        /**
+         * The number of values within each non-empty bin.
+         */
+        long[] counts = new long[0];
+        
+        /**
+         * The number of non-empty bins.
+         */
+        int size = 0;
+        
+        /**
+         * The bins of the values added since the last compaction.
+         */
+        int[] pending = new int[8];
+        
+        /**
+         * The number of pending values.
+         */
+        int nPending = 0;
+        
+        /**
+         * The total number of values.
+         */
+        long total = 0;
+        
+        Histogram(Binning binning)
+        {
+            this.binning = binning;
+        }
+        
+        /**
+         * Adds a value to the histogram.
+         * 
+         * @param value
+         *            the value to add
+         */
+        public void add(double value)
+        {
+            if (nPending == pending.length)
+            {
+                if (pending.length < MAX_PENDING)
+                {
+                    pending = Arrays.copyOf(pending, pending.length * 2);
+                }
+                else
+                {
+                    compact();
+                }
+            }
+            pending[nPending++] = binning.binIndex(value);
+            total++;
+        }
+        
+        /**
+         * Adds the values of another histogram with the same binning into this
+         * histogram.
+         * 
+         * @param other
+         *            the histogram to merge
+         */
+        public void merge(Histogram other)
+        {
+            other.compact();
+            compact();
+            mergeSorted(other.bins, other.counts, other.size);
+            total += other.total;
+        }
+        
+        /**
+         * Sorts the pending bins, and merges them with the stored bins.
+         */
+        void compact()
+        {
+            if (nPending == 0) return;
+            
+            // convert sorted pending bins into (bin, count) pairs
+            Arrays.sort(pending, 0, nPending);
+            int[] newBins = new int[nPending];
+            long[] newCounts = new long[nPending];
+            int n = 0;
+            for (int i = 0; i < nPending; i++)
+            {
+                if (n > 0 && newBins[n - 1] == pending[i])
+                {
+                    newCounts[n - 1]++;
+                }
+                else
+                {
+                    newBins[n] = pending[i];
+                    newCounts[n++] = 1;
+                }
+            }
+            nPending = 0;
+            
+            mergeSorted(newBins, newCounts, n);
+        }
+        
+        /**
+         * Merges a sorted list of bins into the stored bins.
+         */
+        private void mergeSorted(int[] bins2, long[] counts2, int size2)
+        {
+            int[] resBins = new int[size + size2];
+            long[] resCounts = new long[size + size2];
+            int i = 0, j = 0, n = 0;
+            while (i < size || j < size2)
+            {
+                if (j == size2 || (i < size && bins[i] < bins2[j]))
+                {
+                    resBins[n] = bins[i];
+                    resCounts[n++] = counts[i++];
+                }
+                else if (i == size || bins2[j] < bins[i])
+                {
+                    resBins[n] = bins2[j];
+                    resCounts[n++] = counts2[j++];
+                }
+                else
+                {
+                    resBins[n] = bins[i];
+                    resCounts[n++] = counts[i++] + counts2[j++];
+                }
+            }
+            
+            // keep arrays compact, as many regions may be stored
+            this.bins = n < resBins.length ? Arrays.copyOf(resBins, n) : resBins;
+            this.counts = n < resCounts.length ? Arrays.copyOf(resCounts, n) : resCounts;
+            this.size = n;
+        }
+        
+        /**
+         * @return the total number of values within the histogram.
+         */
+        public long total()
+        {
+            return total;
+        }
+        
+        /**
+         * Computes the quantile of the values for the specified level, using
+         * linear interpolation between the two closest ranks.
+         * 
+         * @param level
+         *            the level of the quantile, between 0 and 1
+         * @return the estimated quantile, or NaN if the histogram is empty
+         */
+        public double quantile(double level)
+        {
+            compact();
+            if (total == 0) return Double.NaN;
+            
+            double h = (total - 1) * level;
+            long r0 = (long) Math.floor(h);
+            double v0 = valueAtRank(r0);
+            if (r0 == h) return v0;
+            double v1 = valueAtRank(r0 + 1);
+            return v0 + (h - r0) * (v1 - v0);
+        }
+        
+        /**
+         * Returns the value of the bin containing the value with the
+         * specified rank, starting from 0.
+         */
+        private double valueAtRank(long rank)
+        {
+            long cumSum = 0;
+            for (int i = 0; i < size; i++)
+            {
+                cumSum += counts[i];
+                if (cumSum > rank) return binning.binValue(bins[i]);
+            }
+            return binning.binValue(bins[size - 1]);
+        }
+        
+        /**
+         * Computes the median absolute deviation of the values with respect
+         * to their median.
+         * 
+         * @return the median absolute deviation, or NaN if the histogram is
+         *         empty
+         */
+        public double medianAbsoluteDeviation()
+        {
+            double median = quantile(0.5);
+            if (total == 0) return Double.NaN;
+            
+            double h = (total - 1) * 0.5;
+            long r0 = (long) Math.floor(h);
+            double d0 = deviationAtRank(median, r0);
+            if (r0 == h) return d0;
+            double d1 = deviationAtRank(median, r0 + 1);
+            return d0 + (h - r0) * (d1 - d0);
+        }
+        
+        /**
+         * Returns the absolute deviation to the median with the specified
+         * rank. Deviations of bins on each side of the median are already
+         * sorted, so they are merged using two cursors.
+         */
+        private double deviationAtRank(double median, long rank)
+        {
+            // index of the first bin above the median
+            int right = 0;
+            while (right < size && binning.binValue(bins[right]) < median)
+            {
+                right++;
+            }
+            int left = right - 1;
+            
+            long cumSum = 0;
+            double dev = 0;
+            while (left >= 0 || right < size)
+            {
+                double devLeft = left >= 0 ? median - binning.binValue(bins[left]) : Double.POSITIVE_INFINITY;
+                double devRight = right < size ? binning.binValue(bins[right]) - median : Double.POSITIVE_INFINITY;
+                if (devLeft <= devRight)
+                {
+                    dev = devLeft;
+                    cumSum += counts[left--];
+                }
+                else
+                {
+                    dev = devRight;
+                    cumSum += counts[right++];
+                }
+                if (cumSum > rank) break;
+            }
+            return dev;
+        }
+    }
+    
+    /**
+     * Updates the histogram of each region during the scan of the label map.
+     */
+    private static final class Accumulator implements ScanAccumulator
+    {
+        final ScalarArray2D<?> array;
+        
+        final Binning binning;
+        
+        /**
+         * The histogram of each region, created when the first value of the
+         * region is added.
+         */
+        Histogram[] histograms = new Histogram[0];
+        
+        Accumulator(ScalarArray2D<?> array, Binning binning)
+        {
+            this.array = array;
+            this.binning = binning;
+        }
+        
+        @Override
+        public void ensureCapacity(int nRegions)
+        {
+            int n = histograms.length;
+            if (nRegions > n)
+            {
+                histograms = Arrays.copyOf(histograms, Math.max(nRegions, n * 2));
+            }
+        }
+        
+        @Override
+        public void addPixel(int index, int x, int y)
+        {
+            Histogram histo = histograms[index];
+            if (histo == null)
+            {
+                histo = new Histogram(binning);
+                histograms[index] = histo;
+            }
+            histo.add(array.getValue(x, y));
+        }
+        
+        @Override
+        public void merge(ScanAccumulator other, int[] indexMap)
+        {
+            Histogram[] otherHistos = ((Accumulator) other).histograms;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                Histogram otherHisto = otherHistos[i];
+                if (otherHisto == null) continue;
+                
+                int index = indexMap[i];
+                if (histograms[index] == null)
+                {
+                    histograms[index] = otherHisto;
+                }
+                else
+                {
+                    histograms[index].merge(otherHisto);
+                }
+            }
+        }
+        
+        @Override
+        public Histogram[] result(int[] order)
+        {
+            Histogram[] res = new Histogram[order.length];
+            for (int i = 0; i < order.length; i++)
+            {
+                Histogram histo = histograms[order[i]];
+                if (histo == null)
+                {
+                    histo = new Histogram(binning);
+                }
+                histo.compact();
+                res[i] = histo;
+            }
+            return res;
+        }
+    }
+}
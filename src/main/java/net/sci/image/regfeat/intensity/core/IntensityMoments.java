@@ -0,0 +1,332 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import net.sci.array.Array;
+import net.sci.array.numeric.ScalarArray2D;
+import net.sci.image.Image;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.ScanAccumulator;
+import net.sci.image.regfeat.ScanFeature;
+
+/**
+ * Computes the central moments of the intensity values within each region, up
+ * to the fourth order, together with the minimum and maximum values.
+ * 
+ * The intensity image must be added to the <code>RegionFeatures</code> data
+ * structure under the name given by the <code>IMAGE_DATA_NAME</code> constant,
+ * and must have the same size as the label map.
+ * 
+ * Moments are computed in a single pass using numerically stable updates, and
+ * are stored within flat arrays of primitive values. Moments computed on
+ * different bands of the label map are merged using the pairwise formulas
+ * given by Pébay (2008), making it possible to scan the label map in
+ * parallel.
+ * 
+ * @see Moments
+ */
+public class IntensityMoments implements ScanFeature
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The name of the intensity image within the image data of the
+     * <code>RegionFeatures</code> class.
+     */
+    public static final String IMAGE_DATA_NAME = "intensity";
+    
+    /**
+     * Retrieves the intensity image from the data structure, and checks it is
+     * a 2D scalar array with the same size as the label map.
+     * 
+     * @param data
+     *            the data structure containing the label map and the image data
+     * @return the array containing the intensity values
+     */
+    public static final ScalarArray2D<?> intensityArray(RegionFeatures data)
+    {
+        Image image = data.getImageData(IMAGE_DATA_NAME);
+        if (image == null)
+        {
+            throw new RuntimeException("Requires an intensity image with name: " + IMAGE_DATA_NAME);
+        }
+        
+        Array<?> array = image.getData();
+        if (!(array instanceof ScalarArray2D<?> array2d))
+        {
+            throw new RuntimeException("Requires a 2D scalar array as intensity image");
+        }
+        
+        int sizeX = data.labelMapSource().sizeX();
+        int sizeY = data.labelMapSource().sizeY();
+        if (array2d.size(0) != sizeX || array2d.size(1) != sizeY)
+        {
+            throw new RuntimeException("Intensity image and label map must have the same size");
+        }
+        return array2d;
+    }
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Default empty constructor.
+     */
+    public IntensityMoments()
+    {
+    }
+    
+    
+    // ==================================================
+    // Implementation of the Feature interface
+    
+    @Override
+    public Moments compute(RegionFeatures data)
+    {
+        return (Moments) ScanFeature.super.compute(data);
+    }
+    
+    @Override
+    public ScanAccumulator createAccumulator(RegionFeatures data)
+    {
+        return new Accumulator(intensityArray(data));
+    }
+    
+    @Override
+    public Collection<String> imageDataNames()
+    {
+        return List.of(IMAGE_DATA_NAME);
+    }
+    
+    
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * The moments of the intensity values within each region, stored as flat
+     * arrays indexed by region.
+     */
+    public static final class Moments
+    {
+        /**
+         * The number of pixels of each region.
+         */
+        public long[] counts;
+        
+        /**
+         * The mean of the values within each region.
+         */
+        public double[] means;
+        
+        /**
+         * The sum of squared differences to the mean.
+         */
+        public double[] m2;
+        
+        /**
+         * The sum of cubed differences to the mean.
+         */
+        public double[] m3;
+        
+        /**
+         * The sum of differences to the mean raised to the fourth power.
+         */
+        public double[] m4;
+        
+        /**
+         * The minimum value within each region.
+         */
+        public double[] mins;
+        
+        /**
+         * The maximum value within each region.
+         */
+        public double[] maxs;
+        
+        /**
+         * Creates a new set of moments for the specified number of regions.
+         * 
+         * @param nRegions
+         *            the number of regions
+         */
+        public Moments(int nRegions)
+        {
+            this.counts = new long[nRegions];
+            this.means = new double[nRegions];
+            this.m2 = new double[nRegions];
+            this.m3 = new double[nRegions];
+            this.m4 = new double[nRegions];
+            this.mins = new double[nRegions];
+            this.maxs = new double[nRegions];
+            Arrays.fill(this.mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(this.maxs, Double.NEGATIVE_INFINITY);
+        }
+        
+        /**
+         * @return the number of regions.
+         */
+        public int size()
+        {
+            return counts.length;
+        }
+        
+        /**
+         * Updates the moments of a region with a new value.
+         * 
+         * @param i
+         *            the index of the region
+         * @param value
+         *            the new value
+         */
+        public void add(int i, double value)
+        {
+            long n1 = counts[i];
+            long n = n1 + 1;
+            double delta = value - means[i];
+            double deltaN = delta / n;
+            double deltaN2 = deltaN * deltaN;
+            double term1 = delta * deltaN * n1;
+            
+            means[i] += deltaN;
+            m4[i] += term1 * deltaN2 * (n * n - 3 * n + 3) + 6 * deltaN2 * m2[i] - 4 * deltaN * m3[i];
+            m3[i] += term1 * deltaN * (n - 2) - 3 * deltaN * m2[i];
+            m2[i] += term1;
+            counts[i] = n;
+            
+            if (value < mins[i]) mins[i] = value;
+            if (value > maxs[i]) maxs[i] = value;
+        }
+        
+        /**
+         * Merges the moments of a region of another set of moments into the
+         * moments of a region of this set.
+         * 
+         * @param i
+         *            the index of the region within this set
+         * @param other
+         *            the other set of moments
+         * @param j
+         *            the index of the region within the other set
+         */
+        public void merge(int i, Moments other, int j)
+        {
+            long nb = other.counts[j];
+            if (nb == 0) return;
+            long na = counts[i];
+            if (na == 0)
+            {
+                copy(i, other, j);
+                return;
+            }
+            
+            double n = na + nb;
+            double delta = other.means[j] - means[i];
+            double delta2 = delta * delta;
+            double nab = (double) na * nb;
+            double ma2 = m2[i];
+            double ma3 = m3[i];
+            
+            means[i] += delta * nb / n;
+            m2[i] = ma2 + other.m2[j] + delta2 * nab / n;
+            m3[i] = ma3 + other.m3[j] 
+                    + delta2 * delta * nab * (na - nb) / (n * n) 
+                    + 3 * delta * (na * other.m2[j] - nb * ma2) / n;
+            m4[i] += other.m4[j] 
+                    + delta2 * delta2 * nab * ((double) na * na - nab + (double) nb * nb) / (n * n * n) 
+                    + 6 * delta2 * ((double) na * na * other.m2[j] + (double) nb * nb * ma2) / (n * n) 
+                    + 4 * delta * (na * other.m3[j] - nb * ma3) / n;
+            counts[i] = na + nb;
+            
+            mins[i] = Math.min(mins[i], other.mins[j]);
+            maxs[i] = Math.max(maxs[i], other.maxs[j]);
+        }
+        
+        private void copy(int i, Moments other, int j)
+        {
+            counts[i] = other.counts[j];
+            means[i] = other.means[j];
+            m2[i] = other.m2[j];
+            m3[i] = other.m3[j];
+            m4[i] = other.m4[j];
+            mins[i] = other.mins[j];
+            maxs[i] = other.maxs[j];
+        }
+        
+        /**
+         * Returns a copy of these moments with enough capacity for the
+         * specified number of regions.
+         */
+        Moments resize(int nRegions)
+        {
+            Moments res = new Moments(nRegions);
+            int n = Math.min(nRegions, size());
+            System.arraycopy(counts, 0, res.counts, 0, n);
+            System.arraycopy(means, 0, res.means, 0, n);
+            System.arraycopy(m2, 0, res.m2, 0, n);
+            System.arraycopy(m3, 0, res.m3, 0, n);
+            System.arraycopy(m4, 0, res.m4, 0, n);
+            System.arraycopy(mins, 0, res.mins, 0, n);
+            System.arraycopy(maxs, 0, res.maxs, 0, n);
+            return res;
+        }
+    }
+    
+    /**
+     * Updates the moments of each region during the scan of the label map.
+     */
+    private static final class Accumulator implements ScanAccumulator
+    {
+        final ScalarArray2D<?> array;
+        
+        Moments moments = new Moments(0);
+        
+        Accumulator(ScalarArray2D<?> array)
+        {
+            this.array = array;
+        }
+        
+        @Override
+        public void ensureCapacity(int nRegions)
+        {
+            int n = moments.size();
+            if (nRegions > n)
+            {
+                moments = moments.resize(Math.max(nRegions, n * 2));
+            }
+        }
+        
+        @Override
+        public void addPixel(int index, int x, int y)
+        {
+            moments.add(index, array.getValue(x, y));
+        }
+        
+        @Override
+        public void merge(ScanAccumulator other, int[] indexMap)
+        {
+            Moments otherMoments = ((Accumulator) other).moments;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                moments.merge(indexMap[i], otherMoments, i);
+            }
+        }
+        
+        @Override
+        public Moments result(int[] order)
+        {
+            Moments res = new Moments(order.length);
+            for (int i = 0; i < order.length; i++)
+            {
+                res.copy(i, moments, order[i]);
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Core features used to compute some of the features in the parent package.
+ */
+package net.sci.image.regfeat.intensity.core;
@@ -0,0 +1,21 @@
+/**
+ * Features describing the distribution of intensity values within regions.
+ * 
+ * The intensity image must be added to the <code>RegionFeatures</code> data
+ * structure, using the name given by
+ * <code>IntensityMoments.IMAGE_DATA_NAME</code>:
+ * 
+ * <pre>{@code
+ * RegionFeatures.initialize(labelMap)
+ *     .addImageData(IntensityMoments.IMAGE_DATA_NAME, intensityImage)
+ *     .add(MeanIntensity.class)
+ *     .add(IntensityVariance.class)
+ *     .createTable();
+ * }</pre>
+ * 
+ * Moment-based features are computed from the moments accumulated during a
+ * single scan of the label map. Quantile-based features (median, percentiles,
+ * median absolute deviation) are estimated from a compact histogram of the
+ * values of each region, computed within the same scan.
+ */
+package net.sci.image.regfeat.intensity;
@@ -36,7 +36,7 @@ public class Area extends SingleValueFeature
         int[] counts = (int[]) data.results.get(ElementCount.class);
         
         // area of unit voxel
-        Calibration calib = data.labelMap.getCalibration();
+        Calibration calib = data.calibration();
         double pixelArea = calib.getXAxis().getSpacing() * calib.getYAxis().getSpacing(); 
         
         // compute area from pixel count
@@ -54,6 +54,6 @@ public class Area extends SingleValueFeature
     @Override
     public String[] columnUnitNames(RegionFeatures data)
     {
-        return new String[] {data.labelMap.getCalibration().getXAxis().getUnitName() + "^2"};
+        return new String[] {data.calibration().getXAxis().getUnitName() + "^2"};
     }
 }
@@ -0,0 +1,113 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.LabelIndex;
+import net.sci.image.regfeat.LabelMapSource;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.LabelDistanceMap;
+
+/**
+ * The average thickness of each region, computed as the average of the
+ * local thickness 2*d-1 over the skeleton pixels of the region, d being the
+ * distance of the pixel to the region boundary.
+ * 
+ * The skeleton is defined from the distance map as the set of centers of
+ * maximal disks: a pixel belongs to the skeleton if none of its 4-neighbors
+ * within the same region is the center of a disk containing the disk
+ * centered on the pixel. This avoids an explicit thinning of each region.
+ * Pixels are assumed to be square, the result being calibrated using the
+ * spacing along the x-axis.
+ * 
+ * @see LabelDistanceMap
+ */
+public class AverageThickness extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public AverageThickness()
+    {
+        super("Average_Thickness");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        LabelDistanceMap.Distances distances = (LabelDistanceMap.Distances) data.results.get(LabelDistanceMap.class);
+        int[] dist2 = distances.dist2;
+        int sizeX = distances.sizeX;
+        int sizeY = distances.sizeY;
+        
+        // accumulate the local thickness of the skeleton pixels of each region
+        LabelMapSource labelMap = data.labelMapSource();
+        LabelIndex labelIndex = data.labelIndex();
+        int n = labelIndex.size();
+        double[] sums = new double[n];
+        int[] counts = new int[n];
+        int[] prevRow = new int[sizeX];
+        int[] currRow = new int[sizeX];
+        int[] nextRow = new int[sizeX];
+        labelMap.readRow(0, currRow);
+        for (int y = 0; y < sizeY; y++)
+        {
+            if (y < sizeY - 1) labelMap.readRow(y + 1, nextRow);
+            int offset = y * sizeX;
+            for (int x = 0; x < sizeX; x++)
+            {
+                int d2 = dist2[offset + x];
+                if (d2 == 0) continue;
+                int label = currRow[x];
+                int index = labelIndex.indexOf(label);
+                if (index < 0) continue;
+                
+                // the disk of a neighbor contains the disk of the pixel if
+                // its radius is greater than or equal to d+1
+                double d = Math.sqrt(d2);
+                double minContaining = (d + 1) * (d + 1);
+                if (x > 0 && currRow[x - 1] == label && dist2[offset + x - 1] >= minContaining) continue;
+                if (x < sizeX - 1 && currRow[x + 1] == label && dist2[offset + x + 1] >= minContaining) continue;
+                if (y > 0 && prevRow[x] == label && dist2[offset - sizeX + x] >= minContaining) continue;
+                if (y < sizeY - 1 && nextRow[x] == label && dist2[offset + sizeX + x] >= minContaining) continue;
+                
+                sums[index] += 2 * d - 1;
+                counts[index]++;
+            }
+            
+            // rotate rows
+            int[] tmp = prevRow;
+            prevRow = currRow;
+            currRow = nextRow;
+            nextRow = tmp;
+        }
+        data.getReport().addTraversal(AverageThickness.class, (long) sizeX * sizeY, 0);
+        
+        double spacing = data.calibration().getXAxis().getSpacing();
+        double[] res = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            res[i] = counts[i] > 0 ? sums[i] / counts[i] * spacing : Double.NaN;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(LabelDistanceMap.class);
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName()};
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionTabularFeature;
+import net.sci.image.regfeat.morpho2d.core.RegionMoments;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * The bounding box of each region, given as the calibrated extent of the
+ * region along each axis. The box contains the whole extent of the boundary
+ * pixels: as the center of pixel (x,y) is located at the calibrated
+ * position of (x,y), the box spans half a pixel beyond the centers of the
+ * extreme pixels, consistently with the centroid and the oriented bounding
+ * box.
+ * 
+ * The result is given as an array of double with four rows, corresponding to
+ * the minimum and maximum x-coordinates, and to the minimum and maximum
+ * y-coordinates, each row containing the values of each region.
+ * 
+ * @see RegionMoments
+ */
+public class Bounds implements RegionTabularFeature
+{
+    /**
+     * The names of the columns of the result table.
+     */
+    static final String[] COLUMN_NAMES = new String[] {"Box_X_Min", "Box_X_Max", "Box_Y_Min", "Box_Y_Max"};
+    
+    /**
+     * Default empty constructor.
+     */
+    public Bounds()
+    {
+    }
+    
+    @Override
+    public double[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        RegionMoments.Moments moments = (RegionMoments.Moments) data.results.get(RegionMoments.class);
+        
+        // retrieve spatial calibration
+        Calibration calib = data.calibration();
+        double sx = calib.getXAxis().getSpacing();
+        double sy = calib.getYAxis().getSpacing();
+        double ox = calib.getXAxis().getOrigin();
+        double oy = calib.getYAxis().getOrigin();
+        
+        // convert pixel extents to calibrated bounds
+        int n = moments.size();
+        double[][] res = new double[4][n];
+        for (int i = 0; i < n; i++)
+        {
+            if (moments.counts[i] == 0)
+            {
+                res[0][i] = res[1][i] = res[2][i] = res[3][i] = Double.NaN;
+                continue;
+            }
+            res[0][i] = (moments.xMin[i] - 0.5) * sx + ox;
+            res[1][i] = (moments.xMax[i] + 0.5) * sx + ox;
+            res[2][i] = (moments.yMin[i] - 0.5) * sy + oy;
+            res[3][i] = (moments.yMax[i] + 0.5) * sy + oy;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(RegionMoments.class);
+    }
+    
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return COLUMN_NAMES;
+    }
+    
+    @Override
+    public void updateTable(Table table, RegionFeatures data)
+    {
+        Object obj = data.results.get(this.getClass());
+        if (obj instanceof double[][] values)
+        {
+            String[] unitNames = columnUnitNames(data);
+            for (int c = 0; c < COLUMN_NAMES.length; c++)
+            {
+                NumericColumn numCol = NumericColumn.create(COLUMN_NAMES[c], values[c]);
+                numCol.setUnitName(unitNames[c]);
+                table.addColumn(numCol);
+            }
+        }
+        else
+        {
+            throw new RuntimeException("Requires object argument to be an array of double arrays");
+        }
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        String unitX = data.calibration().getXAxis().getUnitName();
+        String unitY = data.calibration().getYAxis().getUnitName();
+        return new String[] {unitX, unitX, unitY, unitY};
+    }
+}
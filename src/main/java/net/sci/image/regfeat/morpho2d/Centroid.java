@@ -0,0 +1,105 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionTabularFeature;
+import net.sci.image.regfeat.morpho2d.core.RegionMoments;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * The centroid of each region, computed as the calibrated mean of the
+ * coordinates of the pixels of the region.
+ * 
+ * The result is given as an array of double with two rows, corresponding to
+ * the x- and y-coordinates of the centroid of each region.
+ * 
+ * @see RegionMoments
+ */
+public class Centroid implements RegionTabularFeature
+{
+    /**
+     * The names of the columns of the result table.
+     */
+    static final String[] COLUMN_NAMES = new String[] {"Centroid_X", "Centroid_Y"};
+    
+    /**
+     * Default empty constructor.
+     */
+    public Centroid()
+    {
+    }
+    
+    @Override
+    public double[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        RegionMoments.Moments moments = (RegionMoments.Moments) data.results.get(RegionMoments.class);
+        
+        // retrieve spatial calibration
+        Calibration calib = data.calibration();
+        double sx = calib.getXAxis().getSpacing();
+        double sy = calib.getYAxis().getSpacing();
+        double ox = calib.getXAxis().getOrigin();
+        double oy = calib.getYAxis().getOrigin();
+        
+        // compute calibrated mean of coordinates
+        int n = moments.size();
+        double[][] res = new double[2][n];
+        for (int i = 0; i < n; i++)
+        {
+            double count = moments.counts[i];
+            res[0][i] = (moments.sumX[i] / count) * sx + ox;
+            res[1][i] = (moments.sumY[i] / count) * sy + oy;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(RegionMoments.class);
+    }
+    
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return COLUMN_NAMES;
+    }
+    
+    @Override
+    public void updateTable(Table table, RegionFeatures data)
+    {
+        Object obj = data.results.get(this.getClass());
+        if (obj instanceof double[][] values)
+        {
+            String[] unitNames = columnUnitNames(data);
+            for (int c = 0; c < COLUMN_NAMES.length; c++)
+            {
+                NumericColumn numCol = NumericColumn.create(COLUMN_NAMES[c], values[c]);
+                numCol.setUnitName(unitNames[c]);
+                table.addColumn(numCol);
+            }
+        }
+        else
+        {
+            throw new RuntimeException("Requires object argument to be an array of double arrays");
+        }
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        String unitX = data.calibration().getXAxis().getUnitName();
+        String unitY = data.calibration().getYAxis().getUnitName();
+        return new String[] {unitX, unitY};
+    }
+}
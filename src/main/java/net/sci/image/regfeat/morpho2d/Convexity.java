@@ -0,0 +1,59 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.ConvexHulls;
+
+/**
+ * The convexity of each region, defined as the ratio of the area of the
+ * region over the area of its convex hull. As hull vertices are pixel
+ * corners, the convexity is between 0 and 1, and equals 1 for rectangles.
+ * 
+ * @see Area
+ * @see ConvexHulls
+ */
+public class Convexity extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public Convexity()
+    {
+        super("Convexity");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        double[] areas = (double[]) data.results.get(Area.class);
+        int[][] hulls = (int[][]) data.results.get(ConvexHulls.class);
+        
+        // area of unit pixel
+        Calibration calib = data.calibration();
+        double pixelArea = calib.getXAxis().getSpacing() * calib.getYAxis().getSpacing();
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[areas.length];
+        for (int i = 0; i < res.length; i++)
+        {
+            res[i] = areas[i] / (ConvexHulls.area(hulls[i]) * pixelArea);
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(Area.class, ConvexHulls.class);
+    }
+}
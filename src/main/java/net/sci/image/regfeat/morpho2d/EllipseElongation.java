@@ -0,0 +1,52 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+
+/**
+ * The elongation of the equivalent ellipse of each region, defined as the
+ * ratio of the major semi-axis length over the minor semi-axis length.
+ * 
+ * @see EquivalentEllipse
+ */
+public class EllipseElongation extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public EllipseElongation()
+    {
+        super("Ellipse_Elongation");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        double[][] ellipses = (double[][]) data.results.get(EquivalentEllipse.class);
+        
+        // iterate over regions to compute new feature
+        double[] radii1 = ellipses[2];
+        double[] radii2 = ellipses[3];
+        double[] res = new double[radii1.length];
+        for (int i = 0; i < res.length; i++)
+        {
+            res[i] = radii1[i] / radii2[i];
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(EquivalentEllipse.class);
+    }
+}
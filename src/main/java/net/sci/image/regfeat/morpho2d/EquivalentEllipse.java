@@ -0,0 +1,123 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionTabularFeature;
+import net.sci.image.regfeat.morpho2d.core.RegionMoments;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * The equivalent ellipse of each region, that has the same moments up to the
+ * second order as the region.
+ * 
+ * The second order moments are computed from the calibrated coordinates of
+ * the pixels, and take into account the extent of each pixel by adding the
+ * moment of a uniform square. The result is given as an array of double with
+ * five rows, corresponding to the coordinates of the center, the lengths of
+ * the major and minor semi-axes, and the orientation of the major axis, in
+ * degrees.
+ * 
+ * @see RegionMoments
+ * @see EllipseElongation
+ */
+public class EquivalentEllipse implements RegionTabularFeature
+{
+    /**
+     * The names of the columns of the result table.
+     */
+    static final String[] COLUMN_NAMES = new String[] {"Ellipse_Center_X", "Ellipse_Center_Y", "Ellipse_Radius1", "Ellipse_Radius2", "Ellipse_Orientation"};
+    
+    /**
+     * Default empty constructor.
+     */
+    public EquivalentEllipse()
+    {
+    }
+    
+    @Override
+    public double[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        RegionMoments.Moments moments = (RegionMoments.Moments) data.results.get(RegionMoments.class);
+        
+        // retrieve spatial calibration
+        Calibration calib = data.calibration();
+        double sx = calib.getXAxis().getSpacing();
+        double sy = calib.getYAxis().getSpacing();
+        double ox = calib.getXAxis().getOrigin();
+        double oy = calib.getYAxis().getOrigin();
+        
+        int n = moments.size();
+        double[][] res = new double[5][n];
+        for (int i = 0; i < n; i++)
+        {
+            // centroid in pixel coordinates
+            double count = moments.counts[i];
+            double mx = moments.sumX[i] / count;
+            double my = moments.sumY[i] / count;
+            
+            // calibrated centered second order moments, including the
+            // moment of the pixel itself
+            double xx = (moments.sumX2[i] / count - mx * mx + 1.0 / 12.0) * sx * sx;
+            double xy = (moments.sumXY[i] / count - mx * my) * sx * sy;
+            double yy = (moments.sumY2[i] / count - my * my + 1.0 / 12.0) * sy * sy;
+            
+            // compute ellipse semi-axes lengths and orientation
+            double common = Math.sqrt((xx - yy) * (xx - yy) + 4 * xy * xy);
+            res[0][i] = mx * sx + ox;
+            res[1][i] = my * sy + oy;
+            res[2][i] = Math.sqrt(2 * (xx + yy + common));
+            res[3][i] = Math.sqrt(Math.max(2 * (xx + yy - common), 0));
+            res[4][i] = Math.toDegrees(Math.atan2(2 * xy, xx - yy) / 2);
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(RegionMoments.class);
+    }
+    
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return COLUMN_NAMES;
+    }
+    
+    @Override
+    public void updateTable(Table table, RegionFeatures data)
+    {
+        Object obj = data.results.get(this.getClass());
+        if (obj instanceof double[][] values)
+        {
+            String[] unitNames = columnUnitNames(data);
+            for (int c = 0; c < COLUMN_NAMES.length; c++)
+            {
+                NumericColumn numCol = NumericColumn.create(COLUMN_NAMES[c], values[c]);
+                numCol.setUnitName(unitNames[c]);
+                table.addColumn(numCol);
+            }
+        }
+        else
+        {
+            throw new RuntimeException("Requires object argument to be an array of double arrays");
+        }
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        String unit = data.calibration().getXAxis().getUnitName();
+        return new String[] {unit, unit, unit, unit, "degree"};
+    }
+}
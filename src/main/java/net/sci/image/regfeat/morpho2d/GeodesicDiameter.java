@@ -0,0 +1,269 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.LabelMapSource;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.RegionMoments;
+
+/**
+ * The geodesic diameter of each region, defined as the largest geodesic
+ * distance between two pixels of the region, the geodesic distance being the
+ * length of the shortest path joining the two pixels and contained within the
+ * region.
+ * 
+ * Geodesic distances are computed using chamfer weights 5 and 7 for
+ * orthogonal and diagonal moves, normalized by 5. The diameter is obtained by
+ * two propagations: the first one, from an arbitrary pixel of the region,
+ * identifies the farthest pixel, from which the second one finds the largest
+ * distance. The length of one pixel is added to the largest distance, to
+ * take into account the size of the end pixels. Pixels are assumed to be
+ * square, the result being calibrated using the spacing along the x-axis. For
+ * regions composed of several connected components, only the component
+ * containing the first pixel in raster order is considered.
+ * 
+ * Each region is cropped to its bounding box, and the distances are
+ * propagated with an integer bucket queue, within buffers reused by each
+ * thread for the regions of the same computation. Regions are processed
+ * concurrently if a pool of threads is specified.
+ * 
+ * @see Tortuosity
+ * @see GeodesicElongation
+ */
+public class GeodesicDiameter extends SingleValueFeature
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The chamfer weight of orthogonal moves.
+     */
+    static final int ORTHO_WEIGHT = 5;
+    
+    /**
+     * The chamfer weight of diagonal moves.
+     */
+    static final int DIAG_WEIGHT = 7;
+    
+    /**
+     * The number of buckets of the queue, larger than the largest weight.
+     */
+    static final int BUCKET_COUNT = 8;
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Default empty constructor.
+     */
+    public GeodesicDiameter()
+    {
+        super("Geodesic_Diameter");
+    }
+    
+    
+    // ==================================================
+    // Implementation of the Feature interface
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        RegionMoments.Moments moments = (RegionMoments.Moments) data.results.get(RegionMoments.class);
+        
+        LabelMapSource labelMap = data.runLengthEncoding ? data.runLengthLabelMap() : data.labelMapSource();
+        double spacing = data.calibration().getXAxis().getSpacing();
+        int[] labels = data.labels;
+        
+        // the buffers of each thread, reused between the regions of this
+        // computation, and released with it
+        ThreadLocal<Scratch> scratchBuffers = ThreadLocal.withInitial(Scratch::new);
+        
+        double[] res = new double[labels.length];
+        data.forEachRegion(i -> {
+            if (moments.counts[i] == 0) return;
+            Scratch scratch = scratchBuffers.get();
+            scratch.crop(labelMap, labels[i], moments.xMin[i], moments.yMin[i], moments.xMax[i] + 1, moments.yMax[i] + 1);
+            res[i] = scratch.geodesicDiameter() * spacing;
+            long area = (long) (moments.xMax[i] - moments.xMin[i] + 1) * (moments.yMax[i] - moments.yMin[i] + 1);
+            data.getReport().addTraversal(GeodesicDiameter.class, area, 0);
+        });
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(RegionMoments.class);
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName()};
+    }
+    
+    
+    // ==================================================
+    // Inner class for geodesic propagation
+    
+    /**
+     * The buffers used to compute the geodesic diameter of a region cropped
+     * to its bounding box. Buffers grow as needed during a computation, and
+     * are released at the end of the computation.
+     */
+    private static final class Scratch
+    {
+        /**
+         * The buffer used to read the rows of the label map.
+         */
+        int[] row = new int[0];
+        
+        /**
+         * The distance of each pixel of the padded crop: -1 for pixels
+         * outside the region, Integer.MAX_VALUE for pixels not reached yet.
+         */
+        int[] dist = new int[0];
+        
+        /**
+         * The size of the padded crop.
+         */
+        int width, height;
+        
+        /**
+         * The buckets of the queue, each one containing the pixels with the
+         * same distance modulo the number of buckets.
+         */
+        int[][] buckets = new int[BUCKET_COUNT][16];
+        int[] bucketSizes = new int[BUCKET_COUNT];
+        
+        /**
+         * The offsets and weights of the eight neighbors.
+         */
+        int[] offsets = new int[8];
+        int[] weights = new int[] {DIAG_WEIGHT, ORTHO_WEIGHT, DIAG_WEIGHT, ORTHO_WEIGHT, ORTHO_WEIGHT, DIAG_WEIGHT, ORTHO_WEIGHT, DIAG_WEIGHT};
+        
+        /**
+         * Reads the pixels of the region within the specified bounding box,
+         * and pads the crop with one pixel on each side.
+         */
+        void crop(LabelMapSource labelMap, int label, int x0, int y0, int x1, int y1)
+        {
+            if (row.length < labelMap.sizeX())
+            {
+                row = new int[labelMap.sizeX()];
+            }
+            
+            width = x1 - x0 + 2;
+            height = y1 - y0 + 2;
+            int size = width * height;
+            if (dist.length < size)
+            {
+                dist = new int[Math.max(size, dist.length * 2)];
+            }
+            Arrays.fill(dist, 0, size, -1);
+            
+            for (int y = y0; y < y1; y++)
+            {
+                labelMap.readRow(y, x0, x1, row);
+                int offset = (y - y0 + 1) * width + 1 - x0;
+                for (int x = x0; x < x1; x++)
+                {
+                    if (row[x] == label) dist[offset + x] = Integer.MAX_VALUE;
+                }
+            }
+            
+            int k = 0;
+            for (int dy = -1; dy <= 1; dy++)
+            {
+                for (int dx = -1; dx <= 1; dx++)
+                {
+                    if (dx != 0 || dy != 0) offsets[k++] = dy * width + dx;
+                }
+            }
+        }
+        
+        /**
+         * Computes the geodesic diameter of the cropped region, in pixel
+         * units.
+         */
+        double geodesicDiameter()
+        {
+            // first pixel of the region in raster order
+            int size = width * height;
+            int start = 0;
+            while (start < size && dist[start] < 0) start++;
+            if (start == size) return 0;
+            
+            // two propagations: the first one identifies an extremity
+            int p1 = propagate(start);
+            int p2 = propagate(p1);
+            return (double) dist[p2] / ORTHO_WEIGHT + 1;
+        }
+        
+        /**
+         * Propagates the geodesic distances from the specified pixel, and
+         * returns the pixel with the largest distance.
+         */
+        int propagate(int start)
+        {
+            // reset the distances of the region pixels
+            int size = width * height;
+            for (int p = 0; p < size; p++)
+            {
+                if (dist[p] >= 0) dist[p] = Integer.MAX_VALUE;
+            }
+            
+            dist[start] = 0;
+            push(start, 0);
+            int pending = 1;
+            int farthest = start;
+            
+            // process pixels by increasing distance
+            for (int d = 0; pending > 0; d++)
+            {
+                int b = d % BUCKET_COUNT;
+                while (bucketSizes[b] > 0)
+                {
+                    int p = buckets[b][--bucketSizes[b]];
+                    pending--;
+                    
+                    // skip pixels reached by a shorter path
+                    if (dist[p] != d) continue;
+                    farthest = p;
+                    
+                    for (int k = 0; k < 8; k++)
+                    {
+                        int q = p + offsets[k];
+                        int dq = d + weights[k];
+                        if (dq < dist[q])
+                        {
+                            dist[q] = dq;
+                            push(q, dq);
+                            pending++;
+                        }
+                    }
+                }
+            }
+            return farthest;
+        }
+        
+        private void push(int p, int d)
+        {
+            int b = d % BUCKET_COUNT;
+            if (bucketSizes[b] == buckets[b].length)
+            {
+                buckets[b] = Arrays.copyOf(buckets[b], bucketSizes[b] * 2);
+            }
+            buckets[b][bucketSizes[b]++] = p;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+
+/**
+ * The geodesic elongation of each region, defined from the geodesic diameter
+ * L and the area S of the region as pi * L^2 / (4 * S). The geodesic
+ * elongation equals 1 for disks, and increases for elongated or winding
+ * regions.
+ * 
+ * @see GeodesicDiameter
+ * @see Area
+ */
+public class GeodesicElongation extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public GeodesicElongation()
+    {
+        super("Geodesic_Elongation");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        double[] geodDiams = (double[]) data.results.get(GeodesicDiameter.class);
+        double[] areas = (double[]) data.results.get(Area.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[geodDiams.length];
+        for (int i = 0; i < res.length; i++)
+        {
+            double diam = geodDiams[i];
+            res[i] = Math.PI * diam * diam / (4 * areas[i]);
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(GeodesicDiameter.class, Area.class);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.LabelIndex;
+import net.sci.image.regfeat.LabelMapSource;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionTabularFeature;
+import net.sci.image.regfeat.morpho2d.core.LabelDistanceMap;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * The largest disk inscribed within each region, centered on the pixel of
+ * the region with the largest distance to the region boundary. The radius of
+ * the disk is the distance of its center to the nearest pixel outside the
+ * region.
+ * 
+ * The result is given as an array of double with three rows, corresponding
+ * to the x- and y-coordinates of the center and to the radius of the disk of
+ * each region. Pixels are assumed to be square, the radius being calibrated
+ * using the spacing along the x-axis.
+ * 
+ * @see LabelDistanceMap
+ */
+public class LargestInscribedDisk implements RegionTabularFeature
+{
+    /**
+     * The names of the columns of the result table.
+     */
+    static final String[] COLUMN_NAMES = new String[] {"InscrDisk_Center_X", "InscrDisk_Center_Y", "InscrDisk_Radius"};
+    
+    /**
+     * Default empty constructor.
+     */
+    public LargestInscribedDisk()
+    {
+    }
+    
+    @Override
+    public double[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        LabelDistanceMap.Distances distances = (LabelDistanceMap.Distances) data.results.get(LabelDistanceMap.class);
+        
+        // find the pixel with the largest distance within each region
+        LabelMapSource labelMap = data.labelMapSource();
+        LabelIndex labelIndex = data.labelIndex();
+        int sizeX = distances.sizeX;
+        int n = labelIndex.size();
+        int[] maxDist2 = new int[n];
+        int[] maxPos = new int[n];
+        Arrays.fill(maxPos, -1);
+        int[] row = new int[sizeX];
+        for (int y = 0; y < distances.sizeY; y++)
+        {
+            labelMap.readRow(y, row);
+            int offset = y * sizeX;
+            for (int x = 0; x < sizeX; x++)
+            {
+                int d2 = distances.dist2[offset + x];
+                if (d2 == 0) continue;
+                int index = labelIndex.indexOf(row[x]);
+                if (index >= 0 && d2 > maxDist2[index])
+                {
+                    maxDist2[index] = d2;
+                    maxPos[index] = offset + x;
+                }
+            }
+        }
+        data.getReport().addTraversal(LargestInscribedDisk.class, (long) sizeX * distances.sizeY, 0);
+        
+        // retrieve spatial calibration
+        Calibration calib = data.calibration();
+        double sx = calib.getXAxis().getSpacing();
+        double sy = calib.getYAxis().getSpacing();
+        double ox = calib.getXAxis().getOrigin();
+        double oy = calib.getYAxis().getOrigin();
+        
+        // convert to calibrated disks
+        double[][] res = new double[3][n];
+        for (int i = 0; i < n; i++)
+        {
+            if (maxPos[i] < 0)
+            {
+                res[0][i] = res[1][i] = res[2][i] = Double.NaN;
+                continue;
+            }
+            res[0][i] = (maxPos[i] % sizeX) * sx + ox;
+            res[1][i] = (maxPos[i] / sizeX) * sy + oy;
+            res[2][i] = Math.sqrt(maxDist2[i]) * sx;
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(LabelDistanceMap.class);
+    }
+    
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return COLUMN_NAMES;
+    }
+    
+    @Override
+    public void updateTable(Table table, RegionFeatures data)
+    {
+        Object obj = data.results.get(this.getClass());
+        if (obj instanceof double[][] values)
+        {
+            String[] unitNames = columnUnitNames(data);
+            for (int c = 0; c < COLUMN_NAMES.length; c++)
+            {
+                NumericColumn numCol = NumericColumn.create(COLUMN_NAMES[c], values[c]);
+                numCol.setUnitName(unitNames[c]);
+                table.addColumn(numCol);
+            }
+        }
+        else
+        {
+            throw new RuntimeException("Requires object argument to be an array of double arrays");
+        }
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        String unitX = data.calibration().getXAxis().getUnitName();
+        String unitY = data.calibration().getYAxis().getUnitName();
+        return new String[] {unitX, unitY, unitX};
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.ConvexHulls;
+
+/**
+ * The maximum Feret diameter of each region, defined as the largest distance
+ * between two points of the region. Pixels are considered as unit squares, so
+ * that the diameter of a single pixel is the length of its diagonal.
+ * 
+ * The diameter is computed from the vertices of the convex hull, using the
+ * rotating calipers algorithm, in linear time with respect to the number of
+ * hull vertices.
+ * 
+ * @see ConvexHulls
+ */
+public class MaxFeretDiameter extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public MaxFeretDiameter()
+    {
+        super("Max_Feret_Diameter");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] hulls = (int[][]) data.results.get(ConvexHulls.class);
+        
+        // spacing between pixels
+        Calibration calib = data.calibration();
+        double sx = calib.getXAxis().getSpacing();
+        double sy = calib.getYAxis().getSpacing();
+        
+        // compute diameter of each region
+        double[] res = new double[hulls.length];
+        data.forEachRegion(i -> res[i] = ConvexHulls.maxFeretDiameter(hulls[i], sx, sy));
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(ConvexHulls.class);
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName()};
+    }
+}
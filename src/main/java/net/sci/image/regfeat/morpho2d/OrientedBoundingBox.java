@@ -0,0 +1,252 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionTabularFeature;
+import net.sci.image.regfeat.morpho2d.core.ConvexHulls;
+import net.sci.table.NumericColumn;
+import net.sci.table.Table;
+
+/**
+ * The oriented bounding box of each region, defined as the rectangle with the
+ * smallest area that contains the region.
+ * 
+ * One side of the minimum-area rectangle is collinear with an edge of the
+ * convex hull of the region. The box is computed using rotating calipers:
+ * for each hull edge, the vertices with extreme projections along the edge,
+ * and the vertex farthest from the edge, are updated by advancing three
+ * pointers around the hull, leading to a computation time linear with
+ * respect to the number of hull vertices. The computation is performed in
+ * calibrated coordinates, and regions are processed concurrently if a pool
+ * of threads is specified.
+ * 
+ * The result is given as an array of double with five rows, corresponding to
+ * the x- and y-coordinates of the box center, the length and the width of
+ * the box, and the orientation of the length axis, in degrees.
+ * 
+ * @see ConvexHulls
+ * @see OrientedBoxElongation
+ */
+public class OrientedBoundingBox implements RegionTabularFeature
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The names of the columns of the result table.
+     */
+    static final String[] COLUMN_NAMES = new String[] {"OBox_Center_X", "OBox_Center_Y", "OBox_Length", "OBox_Width", "OBox_Orientation"};
+    
+    /**
+     * Computes the minimum-area rectangle enclosing a convex polygon, using
+     * rotating calipers.
+     * 
+     * @param px
+     *            the x-coordinates of the polygon vertices
+     * @param py
+     *            the y-coordinates of the polygon vertices
+     * @return the box, as an array containing the center coordinates, the
+     *         length, the width, and the orientation in degrees
+     */
+    public static final double[] minimumAreaBox(double[] px, double[] py)
+    {
+        int n = px.length;
+        if (n == 0)
+        {
+            return new double[] {Double.NaN, Double.NaN, 0, 0, 0};
+        }
+        if (n == 1)
+        {
+            return new double[] {px[0], py[0], 0, 0, 0};
+        }
+        
+        double minArea = Double.POSITIVE_INFINITY;
+        double[] box = new double[5];
+        int jMax = 0, jMin = 0, jFar = 0;
+        for (int i = 0; i < n; i++)
+        {
+            // unit vector along current edge
+            int i1 = (i + 1) % n;
+            double dx = px[i1] - px[i];
+            double dy = py[i1] - py[i];
+            double len = Math.hypot(dx, dy);
+            if (len == 0) continue;
+            double ux = dx / len;
+            double uy = dy / len;
+            
+            if (i == 0)
+            {
+                // initialize pointers by a complete search
+                for (int j = 1; j < n; j++)
+                {
+                    if (dot(px, py, j, ux, uy) > dot(px, py, jMax, ux, uy)) jMax = j;
+                    if (dot(px, py, j, ux, uy) < dot(px, py, jMin, ux, uy)) jMin = j;
+                    if (height(px, py, j, i, ux, uy) > height(px, py, jFar, i, ux, uy)) jFar = j;
+                }
+            }
+            else
+            {
+                // advance pointers while the extreme values increase
+                for (int c = 0; c < n && dot(px, py, (jMax + 1) % n, ux, uy) >= dot(px, py, jMax, ux, uy); c++)
+                {
+                    jMax = (jMax + 1) % n;
+                }
+                for (int c = 0; c < n && dot(px, py, (jMin + 1) % n, ux, uy) <= dot(px, py, jMin, ux, uy); c++)
+                {
+                    jMin = (jMin + 1) % n;
+                }
+                for (int c = 0; c < n && height(px, py, (jFar + 1) % n, i, ux, uy) >= height(px, py, jFar, i, ux, uy); c++)
+                {
+                    jFar = (jFar + 1) % n;
+                }
+            }
+            
+            // size of the box aligned with the edge
+            double maxProj = dot(px, py, jMax, ux, uy);
+            double minProj = dot(px, py, jMin, ux, uy);
+            double extent = maxProj - minProj;
+            double signedHeight = (px[jFar] - px[i]) * uy - (py[jFar] - py[i]) * ux;
+            double height = Math.abs(signedHeight);
+            double area = extent * height;
+            if (area >= minArea) continue;
+            minArea = area;
+            
+            // center of the box, from the edge origin, the middle of the
+            // projections, and half the height along the normal
+            double t = (minProj + maxProj) / 2 - dot(px, py, i, ux, uy);
+            double h = signedHeight / 2;
+            box[0] = px[i] + t * ux + h * uy;
+            box[1] = py[i] + t * uy - h * ux;
+            
+            // the length corresponds to the largest side
+            double angle = extent >= height ? Math.atan2(uy, ux) : Math.atan2(ux, -uy);
+            box[2] = Math.max(extent, height);
+            box[3] = Math.min(extent, height);
+            box[4] = normalizeAngle(Math.toDegrees(angle));
+        }
+        return box;
+    }
+    
+    private static final double dot(double[] px, double[] py, int j, double ux, double uy)
+    {
+        return px[j] * ux + py[j] * uy;
+    }
+    
+    /**
+     * Computes the distance of vertex j to the line containing vertex i with
+     * direction u.
+     */
+    private static final double height(double[] px, double[] py, int j, int i, double ux, double uy)
+    {
+        return Math.abs((px[j] - px[i]) * uy - (py[j] - py[i]) * ux);
+    }
+    
+    /**
+     * Converts an angle in degrees to the range [-90, 90).
+     */
+    private static final double normalizeAngle(double angle)
+    {
+        angle = angle % 180;
+        if (angle >= 90) angle -= 180;
+        if (angle < -90) angle += 180;
+        return angle;
+    }
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Default empty constructor.
+     */
+    public OrientedBoundingBox()
+    {
+    }
+    
+    
+    // ==================================================
+    // Implementation of the RegionTabularFeature interface
+    
+    @Override
+    public double[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] hulls = (int[][]) data.results.get(ConvexHulls.class);
+        
+        // retrieve spatial calibration
+        Calibration calib = data.calibration();
+        double sx = calib.getXAxis().getSpacing();
+        double sy = calib.getYAxis().getSpacing();
+        double ox = calib.getXAxis().getOrigin();
+        double oy = calib.getYAxis().getOrigin();
+        
+        double[][] res = new double[5][hulls.length];
+        data.forEachRegion(i -> {
+            // calibrated coordinates of hull vertices, that are pixel corners
+            int[] hull = hulls[i];
+            int nv = hull.length / 2;
+            double[] px = new double[nv];
+            double[] py = new double[nv];
+            for (int k = 0; k < nv; k++)
+            {
+                px[k] = (hull[2 * k] - 0.5) * sx + ox;
+                py[k] = (hull[2 * k + 1] - 0.5) * sy + oy;
+            }
+            
+            double[] box = minimumAreaBox(px, py);
+            for (int c = 0; c < 5; c++)
+            {
+                res[c][i] = box[c];
+            }
+        });
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(ConvexHulls.class);
+    }
+    
+    @Override
+    public String[] columnNames(RegionFeatures data)
+    {
+        return COLUMN_NAMES;
+    }
+    
+    @Override
+    public void updateTable(Table table, RegionFeatures data)
+    {
+        Object obj = data.results.get(this.getClass());
+        if (obj instanceof double[][] values)
+        {
+            String[] unitNames = columnUnitNames(data);
+            for (int c = 0; c < COLUMN_NAMES.length; c++)
+            {
+                NumericColumn numCol = NumericColumn.create(COLUMN_NAMES[c], values[c]);
+                numCol.setUnitName(unitNames[c]);
+                table.addColumn(numCol);
+            }
+        }
+        else
+        {
+            throw new RuntimeException("Requires object argument to be an array of double arrays");
+        }
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        String unitX = data.calibration().getXAxis().getUnitName();
+        String unitY = data.calibration().getYAxis().getUnitName();
+        return new String[] {unitX, unitY, unitX, unitX, "degree"};
+    }
+}
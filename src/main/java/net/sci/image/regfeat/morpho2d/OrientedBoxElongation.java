@@ -0,0 +1,52 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+
+/**
+ * The elongation of the oriented bounding box of each region, defined as the
+ * ratio of the box length over the box width.
+ * 
+ * @see OrientedBoundingBox
+ */
+public class OrientedBoxElongation extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public OrientedBoxElongation()
+    {
+        super("OBox_Elongation");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        double[][] boxes = (double[][]) data.results.get(OrientedBoundingBox.class);
+        
+        // iterate over regions to compute new feature
+        double[] lengths = boxes[2];
+        double[] widths = boxes[3];
+        double[] res = new double[lengths.length];
+        for (int i = 0; i < res.length; i++)
+        {
+            res[i] = lengths[i] / widths[i];
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(OrientedBoundingBox.class);
+    }
+}
@@ -42,6 +42,6 @@ public class Perimeter extends SingleValueFeature
     
     public String[] columnUnitNames(RegionFeatures data)
     {
-        return new String[] {data.labelMap.getCalibration().getXAxis().getUnitName()};
+        return new String[] {data.calibration().getXAxis().getUnitName()};
     }
 }
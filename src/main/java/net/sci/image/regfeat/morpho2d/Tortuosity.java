@@ -0,0 +1,53 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+
+/**
+ * The tortuosity of each region, defined as the ratio of the geodesic
+ * diameter over the maximum Feret diameter. The tortuosity is close to 1 for
+ * convex regions, and increases for winding regions.
+ * 
+ * @see GeodesicDiameter
+ * @see MaxFeretDiameter
+ */
+public class Tortuosity extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public Tortuosity()
+    {
+        super("Tortuosity");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        double[] geodDiams = (double[]) data.results.get(GeodesicDiameter.class);
+        double[] feretDiams = (double[]) data.results.get(MaxFeretDiameter.class);
+        
+        // iterate over regions to compute new feature
+        double[] res = new double[geodDiams.length];
+        for (int i = 0; i < res.length; i++)
+        {
+            res[i] = geodDiams[i] / feretDiams[i];
+        }
+        return res;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(GeodesicDiameter.class, MaxFeretDiameter.class);
+    }
+}
@@ -3,17 +3,11 @@
  */
 package net.sci.image.regfeat.morpho2d.core;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
-import net.sci.algo.AlgoStub;
-import net.sci.array.Array;
-import net.sci.array.numeric.Int;
-import net.sci.array.numeric.IntArray;
-import net.sci.array.numeric.IntArray2D;
-import net.sci.image.label.LabelImages;
-import net.sci.image.regfeat.Feature;
 import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.ScanAccumulator;
+import net.sci.image.regfeat.ScanFeature;
 
 /**
  * Computes the histogram of binary configurations for each region of the input
@@ -23,8 +17,12 @@ import net.sci.image.regfeat.RegionFeatures;
  * 2-by-2 configurations that contain at least one pixel of the image, by
  * considering the pixels outside image as background.
  * 
+ * The histograms are computed by the label map scanner, together with the
+ * other scan features.
+ * 
+ * @see net.sci.image.regfeat.LabelMapScanner
  */
-public class BinaryConfigurationHistogram extends AlgoStub implements Feature
+public class BinaryConfigurationHistogram implements ScanFeature
 {
     // ==================================================
     // Static utility methods
@@ -121,89 +119,104 @@ public class BinaryConfigurationHistogram extends AlgoStub implements Feature
     @Override
     public int[][] compute(RegionFeatures data)
     {
-        // retrieve data
-        @SuppressWarnings({ "unchecked", "rawtypes" })
-        IntArray2D<?> labelMap = IntArray2D.wrap(IntArray.wrap((Array<? extends Int>) data.labelMap.getData()));
-        int[] labels = data.labels;
-        
-        // create associative array to know index of each label
-        int nLabels = labels.length;
-        HashMap<Integer, Integer> labelIndices = LabelImages.mapLabelIndices(labels);
-
-        // initialize result
-        int[][] histograms = new int[nLabels][16];
-
-        // size of image
-        int sizeX = labelMap.size(0);
-        int sizeY = labelMap.size(1);
-
-        // for each configuration of 2x2 pixels, we identify the labels
-        ArrayList<Integer> localLabels = new ArrayList<Integer>(4);
-
-        // values of pixels within current 2-by-2 configuration
-        // (first digit for y, second digit for x)
-        int[] configValues = new int[4];
+        return (int[][]) ScanFeature.super.compute(data);
+    }
+    
+    @Override
+    public ScanAccumulator createAccumulator(RegionFeatures data)
+    {
+        return new Accumulator();
+    }
+    
+    
+    // ==================================================
+    // Inner class for accumulating configurations
+    
+    /**
+     * Updates the histogram of binary configurations of each region during
+     * the scan of the label map.
+     */
+    private static final class Accumulator implements ScanAccumulator
+    {
+        int[][] histograms = new int[0][];
         
-        // Iterate over all 2-by-2 configurations containing at least one pixel
-        // within the image.
-        // Current pixel is the lower-right pixel in configuration
-        // (corresponding to b11).
-        for (int y = 0; y < sizeY + 1; y++) 
+        @Override
+        public void ensureCapacity(int nRegions)
         {
-            this.fireProgressChanged(this, y, sizeY + 1);
-
-            configValues[0] = 0;
-            configValues[2] = 0;
+            int n = histograms.length;
+            if (nRegions <= n) return;
             
-            for (int x = 0; x < sizeX + 1; x++) 
+            histograms = Arrays.copyOf(histograms, Math.max(nRegions, n * 2));
+            for (int i = n; i < histograms.length; i++)
             {
-                // update pixel values of configuration
-                configValues[1] = x < sizeX & y > 0 ? labelMap.getInt(x, y - 1) : 0;
-                configValues[3] = x < sizeX & y < sizeY ? labelMap.getInt(x, y) : 0;
-
-                // identify labels in current config
-                localLabels.clear();
-                for (int label : configValues)
+                histograms[i] = new int[16];
+            }
+        }
+        
+        @Override
+        public boolean usesConfigurations()
+        {
+            return true;
+        }
+        
+        @Override
+        public void addConfiguration(int index, int config)
+        {
+            histograms[index][config]++;
+        }
+        
+        @Override
+        public void addConfigurations(int index, int config, int count)
+        {
+            histograms[index][config] += count;
+        }
+        
+        @Override
+        public void merge(ScanAccumulator other, int[] indexMap)
+        {
+            int[][] otherHistos = ((Accumulator) other).histograms;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                int[] histo = histograms[indexMap[i]];
+                int[] otherHisto = otherHistos[i];
+                for (int c = 0; c < 16; c++)
                 {
-                    // process only the requested labels
-                    if (!labelIndices.containsKey(label)) continue;
-                    
-                    // keep only one instance of each label
-                    if (!localLabels.contains(label))
-                        localLabels.add(label);
+                    histo[c] += otherHisto[c];
                 }
-
-                // For each label, compute binary confi
-                for (int label : localLabels) 
+            }
+        }
+        
+        @Override
+        public boolean isSubtractable()
+        {
+            return true;
+        }
+        
+        @Override
+        public void subtract(ScanAccumulator other, int[] indexMap)
+        {
+            int[][] otherHistos = ((Accumulator) other).histograms;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                int[] histo = histograms[indexMap[i]];
+                int[] otherHisto = otherHistos[i];
+                for (int c = 0; c < 16; c++)
                 {
-                    // Compute index of local configuration
-                    int index = configIndex(configValues, label);
-
-                    // retrieve label index from label value
-                    int labelIndex = labelIndices.get(label);
-
-                    // update histogram of current label
-                    histograms[labelIndex][index]++;
+                    histo[c] -= otherHisto[c];
                 }
-
-                // update values of configuration for next iteration
-                configValues[0] = configValues[1];
-                configValues[2] = configValues[3];
             }
         }
-
-        this.fireProgressChanged(this, 1, 1);
-        return histograms;
-    }
-    
-    private static final int configIndex(int[] configValues, int label)
-    {
-        // Compute index of local configuration
-        int index = 0;
-        index += configValues[0] == label ? 1 : 0;
-        index += configValues[1] == label ? 2 : 0;
-        index += configValues[2] == label ? 4 : 0;
-        index += configValues[3] == label ? 8 : 0;
-        return index;
+        
+        @Override
+        public int[][] result(int[] order)
+        {
+            // copy histograms, as accumulators may be updated after the scan
+            int[][] res = new int[order.length][];
+            for (int i = 0; i < order.length; i++)
+            {
+                res[i] = histograms[order[i]].clone();
+            }
+            return res;
+        }
     }
 }
@@ -0,0 +1,233 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+
+/**
+ * Computes the convex hull of each region of a 2D label map.
+ * 
+ * Regions are considered as unions of unit squares, so that hull vertices are
+ * pixel corners, with integer coordinates. The hulls are computed from the
+ * row extents of the regions: only the extreme corners of each row are
+ * considered, and as they are already sorted, the monotone chain algorithm
+ * computes each hull in linear time. Regions are processed concurrently if a
+ * pool of threads is specified.
+ * 
+ * The result contains one array per region, storing the coordinates of the
+ * hull vertices as (x0, y0, x1, y1, ...), in pixel units. Vertices are ordered
+ * such that the signed area of the polygon is positive, and collinear
+ * vertices are removed.
+ * 
+ * @see RegionRowExtents
+ * @see net.sci.image.regfeat.morpho2d.Convexity
+ * @see net.sci.image.regfeat.morpho2d.MaxFeretDiameter
+ * @see net.sci.image.regfeat.morpho2d.OrientedBoundingBox
+ */
+public class ConvexHulls implements Feature
+{
+    // ==================================================
+    // Static methods
+    
+    /**
+     * Computes the convex hull of a region from its row extents.
+     * 
+     * @param rows
+     *            the row extents of the region, as triplets (y, x0, x1) sorted
+     *            by increasing y
+     * @return the vertices of the convex hull, as (x0, y0, x1, y1, ...)
+     */
+    public static final int[] convexHull(int[] rows)
+    {
+        int nRows = rows.length / 3;
+        if (nRows == 0) return new int[0];
+        
+        // compute the extreme x-coordinates of each horizontal line of pixel
+        // corners, the line of y-coordinate y being shared by rows y-1 and y
+        int[] lineY = new int[nRows * 2];
+        int[] lineMin = new int[nRows * 2];
+        int[] lineMax = new int[nRows * 2];
+        int nLines = 0;
+        for (int r = 0; r < nRows; r++)
+        {
+            int y = rows[3 * r];
+            int x0 = rows[3 * r + 1];
+            int x1 = rows[3 * r + 2];
+            for (int yLine = y; yLine <= y + 1; yLine++)
+            {
+                if (nLines > 0 && lineY[nLines - 1] == yLine)
+                {
+                    lineMin[nLines - 1] = Math.min(lineMin[nLines - 1], x0);
+                    lineMax[nLines - 1] = Math.max(lineMax[nLines - 1], x1);
+                }
+                else
+                {
+                    lineY[nLines] = yLine;
+                    lineMin[nLines] = x0;
+                    lineMax[nLines] = x1;
+                    nLines++;
+                }
+            }
+        }
+        
+        // candidate vertices, sorted by y, then by x
+        int[] px = new int[nLines * 2];
+        int[] py = new int[nLines * 2];
+        int nPoints = 0;
+        for (int i = 0; i < nLines; i++)
+        {
+            px[nPoints] = lineMin[i];
+            py[nPoints++] = lineY[i];
+            if (lineMax[i] != lineMin[i])
+            {
+                px[nPoints] = lineMax[i];
+                py[nPoints++] = lineY[i];
+            }
+        }
+        
+        // monotone chain: first chain in increasing order, second chain in
+        // decreasing order
+        int[] hx = new int[nPoints * 2];
+        int[] hy = new int[nPoints * 2];
+        int n = 0;
+        for (int i = 0; i < nPoints; i++)
+        {
+            while (n >= 2 && cross(hx[n - 2], hy[n - 2], hx[n - 1], hy[n - 1], px[i], py[i]) <= 0) n--;
+            hx[n] = px[i];
+            hy[n++] = py[i];
+        }
+        int n0 = n + 1;
+        for (int i = nPoints - 2; i >= 0; i--)
+        {
+            while (n >= n0 && cross(hx[n - 2], hy[n - 2], hx[n - 1], hy[n - 1], px[i], py[i]) <= 0) n--;
+            hx[n] = px[i];
+            hy[n++] = py[i];
+        }
+        // the last vertex is the same as the first one
+        n--;
+        
+        int[] hull = new int[n * 2];
+        for (int i = 0; i < n; i++)
+        {
+            hull[2 * i] = hx[i];
+            hull[2 * i + 1] = hy[i];
+        }
+        return hull;
+    }
+    
+    /**
+     * Computes twice the signed area of the triangle (p0, p1, p2).
+     */
+    static final long cross(int x0, int y0, int x1, int y1, int x2, int y2)
+    {
+        return (long) (x1 - x0) * (y2 - y0) - (long) (y1 - y0) * (x2 - x0);
+    }
+    
+    /**
+     * Computes the area of a convex hull, in pixel units.
+     * 
+     * @param hull
+     *            the vertices of the hull, as (x0, y0, x1, y1, ...)
+     * @return the area of the hull
+     */
+    public static final double area(int[] hull)
+    {
+        int n = hull.length / 2;
+        long sum = 0;
+        for (int i = 0; i < n; i++)
+        {
+            int j = (i + 1) % n;
+            sum += (long) hull[2 * i] * hull[2 * j + 1] - (long) hull[2 * j] * hull[2 * i + 1];
+        }
+        return sum * 0.5;
+    }
+    
+    /**
+     * Computes the largest distance between two vertices of a convex hull,
+     * using the rotating calipers algorithm. As antipodal pairs of vertices
+     * are preserved by scaling, they are identified in pixel coordinates, and
+     * only the distances are computed in calibrated units.
+     * 
+     * @param hull
+     *            the vertices of the hull, as (x0, y0, x1, y1, ...)
+     * @param sx
+     *            the spacing between pixels along the x-axis
+     * @param sy
+     *            the spacing between pixels along the y-axis
+     * @return the maximum Feret diameter of the hull, or 0 for an empty hull
+     */
+    public static final double maxFeretDiameter(int[] hull, double sx, double sy)
+    {
+        int n = hull.length / 2;
+        if (n < 2) return 0;
+        
+        double maxDist2 = 0;
+        int j = 1;
+        for (int i = 0; i < n; i++)
+        {
+            int i1 = (i + 1) % n;
+            int xi = hull[2 * i], yi = hull[2 * i + 1];
+            int xi1 = hull[2 * i1], yi1 = hull[2 * i1 + 1];
+            
+            // advance the opposite vertex while it moves away from the edge
+            while (true)
+            {
+                int j1 = (j + 1) % n;
+                long h1 = Math.abs(cross(xi, yi, xi1, yi1, hull[2 * j1], hull[2 * j1 + 1]));
+                long h0 = Math.abs(cross(xi, yi, xi1, yi1, hull[2 * j], hull[2 * j + 1]));
+                if (h1 <= h0) break;
+                j = j1;
+            }
+            
+            maxDist2 = Math.max(maxDist2, dist2(hull, i, j, sx, sy));
+            maxDist2 = Math.max(maxDist2, dist2(hull, i1, j, sx, sy));
+        }
+        return Math.sqrt(maxDist2);
+    }
+    
+    private static final double dist2(int[] hull, int i, int j, double sx, double sy)
+    {
+        double dx = (hull[2 * i] - hull[2 * j]) * sx;
+        double dy = (hull[2 * i + 1] - hull[2 * j + 1]) * sy;
+        return dx * dx + dy * dy;
+    }
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Default empty constructor.
+     */
+    public ConvexHulls()
+    {
+    }
+    
+    
+    // ==================================================
+    // Implementation of the Feature interface
+    
+    @Override
+    public int[][] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] rowExtents = (int[][]) data.results.get(RegionRowExtents.class);
+        
+        // compute the hull of each region
+        int[][] hulls = new int[rowExtents.length][];
+        data.forEachRegion(i -> hulls[i] = convexHull(rowExtents[i]));
+        return hulls;
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(RegionRowExtents.class);
+    }
+}
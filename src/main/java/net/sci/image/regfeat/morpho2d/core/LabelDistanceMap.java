@@ -0,0 +1,353 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.LabelMapSource;
+import net.sci.image.regfeat.RegionFeatures;
+
+/**
+ * Computes the Euclidean distance map of a 2D label map, associating to each
+ * pixel of a region the distance to the nearest pixel that does not belong
+ * to the same region. Pixels outside the image are considered as background,
+ * and pixels adjacent to the boundary of their region have a distance of 1.
+ * 
+ * The distance map is computed once, and shared by the features that use
+ * it. The computation uses the separable algorithm of Felzenszwalb and
+ * Huttenlocher, adapted to label maps. The first step computes the vertical
+ * distance of each pixel to the boundary of its region, within strips of
+ * columns. The second step processes each horizontal run of pixels of the
+ * same region independently, by computing the lower envelope of the
+ * parabolas associated to the pixels of the run, bounded by the two pixels
+ * outside the run. Strips and rows are processed concurrently if a pool of
+ * threads is specified.
+ * 
+ * The result is a {@code Distances} instance storing the squared distances,
+ * that are integers. The distances of all the pixels are stored in memory,
+ * within a single array, even when the label map is read from a
+ * {@code LabelMapSource}. The number of pixels of the label map is therefore
+ * limited to the maximum size of an array. Within this limit, the squared
+ * distances fit into integers: they are bounded by the square of half the
+ * smallest size of the label map plus one, and the smallest size is below
+ * 46341.
+ * 
+ * @see net.sci.image.regfeat.morpho2d.LargestInscribedDisk
+ * @see net.sci.image.regfeat.morpho2d.AverageThickness
+ */
+public class LabelDistanceMap implements Feature
+{
+    // ==================================================
+    // Static members
+    
+    /**
+     * The number of columns within the strips processed by the first step.
+     */
+    static final int STRIP_WIDTH = 256;
+    
+    /**
+     * The number of rows within the blocks processed by the second step.
+     */
+    static final int BLOCK_HEIGHT = 64;
+    
+    /**
+     * The maximum number of pixels of the label map, corresponding to the
+     * maximum size of an array.
+     */
+    static final long MAX_PIXEL_COUNT = Integer.MAX_VALUE - 8;
+    
+    /**
+     * The buffers of each thread, reused between strips and blocks.
+     */
+    private static final ThreadLocal<Buffers> threadBuffers = ThreadLocal.withInitial(Buffers::new);
+    
+    
+    // ==================================================
+    // Inner class
+    
+    /**
+     * The squared distances of each pixel of the label map, stored in raster
+     * order. Background pixels have a distance of 0.
+     */
+    public static final class Distances
+    {
+        /**
+         * The size of the label map.
+         */
+        public final int sizeX, sizeY;
+        
+        /**
+         * The squared distance of each pixel, stored in raster order.
+         */
+        public final int[] dist2;
+        
+        Distances(int sizeX, int sizeY)
+        {
+            long pixelCount = (long) sizeX * sizeY;
+            if (pixelCount > MAX_PIXEL_COUNT)
+            {
+                throw new RuntimeException(String.format(
+                        "Label map too large for computing the distance map: %d x %d pixels, maximum is %d pixels",
+                        sizeX, sizeY, MAX_PIXEL_COUNT));
+            }
+            this.sizeX = sizeX;
+            this.sizeY = sizeY;
+            this.dist2 = new int[(int) pixelCount];
+        }
+        
+        /**
+         * Returns the distance of the specified pixel to the boundary of its
+         * region, in pixel units.
+         * 
+         * @param x
+         *            the x-coordinate of the pixel
+         * @param y
+         *            the y-coordinate of the pixel
+         * @return the distance to the boundary of the region
+         */
+        public double distance(int x, int y)
+        {
+            return Math.sqrt(dist2[y * sizeX + x]);
+        }
+    }
+    
+    
+    /**
+     * The buffers used for processing strips and blocks, with a size large
+     * enough for the label map currently processed.
+     */
+    private static final class Buffers
+    {
+        int[] row1 = new int[0];
+        int[] row2 = new int[0];
+        int[] counts = new int[0];
+        long[] f = new long[0];
+        int[] v = new int[0];
+        double[] z = new double[0];
+        
+        Buffers ensureSize(int sizeX)
+        {
+            if (row1.length < sizeX)
+            {
+                row1 = new int[sizeX];
+                row2 = new int[sizeX];
+                counts = new int[sizeX];
+                f = new long[sizeX + 2];
+                v = new int[sizeX + 2];
+                z = new double[sizeX + 3];
+            }
+            return this;
+        }
+    }
+    
+    
+    // ==================================================
+    // Constructor
+    
+    /**
+     * Default empty constructor.
+     */
+    public LabelDistanceMap()
+    {
+    }
+    
+    
+    // ==================================================
+    // Implementation of the Feature interface
+    
+    @Override
+    public Distances compute(RegionFeatures data)
+    {
+        LabelMapSource labelMap = data.runLengthEncoding ? data.runLengthLabelMap() : data.labelMapSource();
+        int sizeX = labelMap.sizeX();
+        int sizeY = labelMap.sizeY();
+        Distances distances = new Distances(sizeX, sizeY);
+        
+        // vertical distances, within strips of columns
+        int nStrips = (sizeX + STRIP_WIDTH - 1) / STRIP_WIDTH;
+        parallelFor(data.pool, nStrips, s -> {
+            int x0 = s * STRIP_WIDTH;
+            processColumns(labelMap, x0, Math.min(x0 + STRIP_WIDTH, sizeX), distances);
+        });
+        
+        // squared Euclidean distances, within blocks of rows
+        int nBlocks = (sizeY + BLOCK_HEIGHT - 1) / BLOCK_HEIGHT;
+        parallelFor(data.pool, nBlocks, b -> {
+            int y0 = b * BLOCK_HEIGHT;
+            processRows(labelMap, y0, Math.min(y0 + BLOCK_HEIGHT, sizeY), distances);
+        });
+        
+        // each pass reads the whole label map
+        data.getReport().addTraversal(LabelDistanceMap.class, 2L * sizeX * sizeY, 0);
+        return distances;
+    }
+    
+    
+    // ==================================================
+    // Computation steps
+    
+    /**
+     * Runs the operation for each index between 0 and n, within the pool if
+     * it is not null.
+     */
+    private static final void parallelFor(ForkJoinPool pool, int n, IntConsumer action)
+    {
+        if (pool == null)
+        {
+            for (int i = 0; i < n; i++)
+            {
+                action.accept(i);
+            }
+            return;
+        }
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(action)).join();
+    }
+    
+    /**
+     * Computes, for the pixels within the columns between x0 and x1, the
+     * vertical distance to the nearest pixel of the same column with a
+     * different label, using one downward and one upward pass.
+     */
+    private static final void processColumns(LabelMapSource labelMap, int x0, int x1, Distances distances)
+    {
+        int sizeX = distances.sizeX;
+        int sizeY = distances.sizeY;
+        int[] dist = distances.dist2;
+        Buffers buffers = threadBuffers.get().ensureSize(sizeX);
+        int[] prevRow = buffers.row1;
+        int[] currRow = buffers.row2;
+        
+        // downward pass: distance to the nearest different label above
+        for (int y = 0; y < sizeY; y++)
+        {
+            labelMap.readRow(y, x0, x1, currRow);
+            int offset = y * sizeX;
+            for (int x = x0; x < x1; x++)
+            {
+                boolean same = y > 0 && prevRow[x] == currRow[x];
+                dist[offset + x] = same ? dist[offset - sizeX + x] + 1 : 1;
+            }
+            int[] tmp = prevRow;
+            prevRow = currRow;
+            currRow = tmp;
+        }
+        
+        // upward pass: keep the smallest distance, background being set to 0
+        int[] below = buffers.counts;
+        for (int y = sizeY - 1; y >= 0; y--)
+        {
+            labelMap.readRow(y, x0, x1, currRow);
+            int offset = y * sizeX;
+            for (int x = x0; x < x1; x++)
+            {
+                int label = currRow[x];
+                below[x] = y < sizeY - 1 && prevRow[x] == label ? below[x] + 1 : 1;
+                dist[offset + x] = label == 0 ? 0 : Math.min(dist[offset + x], below[x]);
+            }
+            int[] tmp = prevRow;
+            prevRow = currRow;
+            currRow = tmp;
+        }
+    }
+    
+    /**
+     * Computes the squared distances of the pixels within the rows between
+     * y0 and y1, from the vertical distances.
+     */
+    private static final void processRows(LabelMapSource labelMap, int y0, int y1, Distances distances)
+    {
+        int sizeX = distances.sizeX;
+        int[] dist = distances.dist2;
+        Buffers buffers = threadBuffers.get().ensureSize(sizeX);
+        int[] row = buffers.row1;
+        
+        // buffers for the lower envelope, with one additional site on each
+        // side of a run
+        long[] f = buffers.f;
+        int[] v = buffers.v;
+        double[] z = buffers.z;
+        
+        for (int y = y0; y < y1; y++)
+        {
+            labelMap.readRow(y, row);
+            int offset = y * sizeX;
+            
+            int x = 0;
+            while (x < sizeX)
+            {
+                // identify the run of the current label
+                int label = row[x];
+                int a = x;
+                while (x < sizeX && row[x] == label)
+                {
+                    x++;
+                }
+                if (label == 0) continue;
+                
+                processRun(dist, offset, a, x, f, v, z);
+            }
+        }
+    }
+    
+    /**
+     * Computes the squared distances of the pixels of a run between a
+     * (inclusive) and b (exclusive), as the lower envelope of the parabolas
+     * centered on the pixels of the run, and on the two pixels bounding the
+     * run. Sites are indexed relatively to a-1.
+     */
+    private static final void processRun(int[] dist, int offset, int a, int b, long[] f, int[] v, double[] z)
+    {
+        int nSites = b - a + 2;
+        f[0] = 0;
+        for (int x = a; x < b; x++)
+        {
+            long g = dist[offset + x];
+            f[x - a + 1] = g * g;
+        }
+        f[nSites - 1] = 0;
+        
+        // compute the lower envelope
+        int k = 0;
+        v[0] = 0;
+        z[0] = Double.NEGATIVE_INFINITY;
+        z[1] = Double.POSITIVE_INFINITY;
+        for (int q = 1; q < nSites; q++)
+        {
+            double s = intersection(f, q, v[k]);
+            while (s <= z[k])
+            {
+                k--;
+                s = intersection(f, q, v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Double.POSITIVE_INFINITY;
+        }
+        
+        // evaluate the envelope at each pixel of the run
+        k = 0;
+        for (int q = 1; q < nSites - 1; q++)
+        {
+            while (z[k + 1] < q)
+            {
+                k++;
+            }
+            long d = q - v[k];
+            dist[offset + a + q - 1] = (int) (d * d + f[v[k]]);
+        }
+    }
+    
+    /**
+     * Computes the abscissa of the intersection of the parabolas centered on
+     * sites q and p.
+     */
+    private static final double intersection(long[] f, int q, int p)
+    {
+        return ((f[q] + (long) q * q) - (f[p] + (long) p * p)) / (2.0 * (q - p));
+    }
+}
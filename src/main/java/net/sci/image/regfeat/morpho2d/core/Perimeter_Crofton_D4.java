@@ -34,7 +34,7 @@ public class Perimeter_Crofton_D4 extends SingleValueFeature
         int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram.class);
         
         // compute LUT
-        Calibration calib = data.labelMap.getCalibration();
+        Calibration calib = data.calibration();
         double[] lut = IntrinsicVolumes2DUtils.perimeterLut(calib, 4);
         
         return BinaryConfigurationHistogram.applyLut(histos, lut);
@@ -48,6 +48,6 @@ public class Perimeter_Crofton_D4 extends SingleValueFeature
     
     public String[] columnUnitNames(RegionFeatures data)
     {
-        return new String[] {data.labelMap.getCalibration().getXAxis().getUnitName()};
+        return new String[] {data.calibration().getXAxis().getUnitName()};
     }
 }
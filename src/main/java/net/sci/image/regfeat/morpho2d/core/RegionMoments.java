@@ -0,0 +1,265 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d.core;
+
+import java.util.Arrays;
+
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.ScanAccumulator;
+import net.sci.image.regfeat.ScanFeature;
+
+/**
+ * Computes the raw moments of the pixel coordinates of each region, up to the
+ * second order, together with the extent of the region along each axis.
+ * 
+ * Moments are accumulated as exact integer sums, within flat arrays of
+ * primitive values, in pixel coordinates. The calibration is applied by the
+ * features that use these moments, so that bounding box, centroid and
+ * equivalent ellipse share the same scan of the label map.
+ * 
+ * @see net.sci.image.regfeat.morpho2d.Bounds
+ * @see net.sci.image.regfeat.morpho2d.Centroid
+ * @see net.sci.image.regfeat.morpho2d.EquivalentEllipse
+ */
+public class RegionMoments implements ScanFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public RegionMoments()
+    {
+    }
+    
+    @Override
+    public Moments compute(RegionFeatures data)
+    {
+        return (Moments) ScanFeature.super.compute(data);
+    }
+    
+    @Override
+    public ScanAccumulator createAccumulator(RegionFeatures data)
+    {
+        return new Accumulator();
+    }
+    
+    
+    // ==================================================
+    // Inner classes
+    
+    /**
+     * The raw moments and the extent of each region, stored as flat arrays
+     * indexed by region. Coordinates correspond to pixel indices.
+     */
+    public static final class Moments
+    {
+        /**
+         * The number of pixels of each region.
+         */
+        public long[] counts;
+        
+        /**
+         * The sums of x, y, x^2, x*y and y^2.
+         */
+        public long[] sumX, sumY, sumX2, sumXY, sumY2;
+        
+        /**
+         * The extent of each region along each axis, inclusive.
+         */
+        public int[] xMin, xMax, yMin, yMax;
+        
+        /**
+         * Creates a new set of moments for the specified number of regions.
+         * 
+         * @param nRegions
+         *            the number of regions
+         */
+        public Moments(int nRegions)
+        {
+            this.counts = new long[nRegions];
+            this.sumX = new long[nRegions];
+            this.sumY = new long[nRegions];
+            this.sumX2 = new long[nRegions];
+            this.sumXY = new long[nRegions];
+            this.sumY2 = new long[nRegions];
+            this.xMin = new int[nRegions];
+            this.xMax = new int[nRegions];
+            this.yMin = new int[nRegions];
+            this.yMax = new int[nRegions];
+            Arrays.fill(this.xMin, Integer.MAX_VALUE);
+            Arrays.fill(this.xMax, Integer.MIN_VALUE);
+            Arrays.fill(this.yMin, Integer.MAX_VALUE);
+            Arrays.fill(this.yMax, Integer.MIN_VALUE);
+        }
+        
+        /**
+         * @return the number of regions.
+         */
+        public int size()
+        {
+            return counts.length;
+        }
+        
+        /**
+         * Adds the contribution of a pixel to the moments of a region.
+         * 
+         * @param i
+         *            the index of the region
+         * @param x
+         *            the x-coordinate of the pixel
+         * @param y
+         *            the y-coordinate of the pixel
+         */
+        public void add(int i, int x, int y)
+        {
+            counts[i]++;
+            sumX[i] += x;
+            sumY[i] += y;
+            sumX2[i] += (long) x * x;
+            sumXY[i] += (long) x * y;
+            sumY2[i] += (long) y * y;
+            if (x < xMin[i]) xMin[i] = x;
+            if (x > xMax[i]) xMax[i] = x;
+            if (y < yMin[i]) yMin[i] = y;
+            if (y > yMax[i]) yMax[i] = y;
+        }
+        
+        /**
+         * Adds the contribution of a run of pixels to the moments of a
+         * region, using closed forms of the sums over the run.
+         * 
+         * @param i
+         *            the index of the region
+         * @param x0
+         *            the x-coordinate of the first pixel of the run
+         * @param x1
+         *            the x-coordinate following the last pixel of the run
+         * @param y
+         *            the y-coordinate of the run
+         */
+        public void addRun(int i, int x0, int x1, int y)
+        {
+            // sums over the run, written as x = x0 + k with k in [0, n-1]
+            long n = x1 - x0;
+            long s1 = sumOfIntegers(n);
+            long sx = n * x0 + s1;
+            long sx2 = n * x0 * x0 + 2 * x0 * s1 + sumOfSquares(n);
+            counts[i] += n;
+            sumX[i] += sx;
+            sumY[i] += n * y;
+            sumX2[i] += sx2;
+            sumXY[i] += sx * y;
+            sumY2[i] += n * y * y;
+            if (x0 < xMin[i]) xMin[i] = x0;
+            if (x1 - 1 > xMax[i]) xMax[i] = x1 - 1;
+            if (y < yMin[i]) yMin[i] = y;
+            if (y > yMax[i]) yMax[i] = y;
+        }
+        
+        /**
+         * Returns the sum of the integers from 0 to n-1.
+         */
+        private static final long sumOfIntegers(long n)
+        {
+            return n * (n - 1) / 2;
+        }
+        
+        /**
+         * Returns the sum of the squares of the integers from 0 to n-1.
+         */
+        private static final long sumOfSquares(long n)
+        {
+            return (n - 1) * n * (2 * n - 1) / 6;
+        }
+        
+        /**
+         * Adds the moments of a region of another set of moments to the
+         * moments of a region of this set.
+         * 
+         * @param i
+         *            the index of the region within this set
+         * @param other
+         *            the other set of moments
+         * @param j
+         *            the index of the region within the other set
+         */
+        public void merge(int i, Moments other, int j)
+        {
+            counts[i] += other.counts[j];
+            sumX[i] += other.sumX[j];
+            sumY[i] += other.sumY[j];
+            sumX2[i] += other.sumX2[j];
+            sumXY[i] += other.sumXY[j];
+            sumY2[i] += other.sumY2[j];
+            xMin[i] = Math.min(xMin[i], other.xMin[j]);
+            xMax[i] = Math.max(xMax[i], other.xMax[j]);
+            yMin[i] = Math.min(yMin[i], other.yMin[j]);
+            yMax[i] = Math.max(yMax[i], other.yMax[j]);
+        }
+        
+        /**
+         * Returns a new set of moments with the specified number of regions,
+         * containing the moments of the first regions of this set.
+         */
+        Moments resize(int nRegions)
+        {
+            Moments res = new Moments(nRegions);
+            for (int i = 0; i < Math.min(nRegions, size()); i++)
+            {
+                res.merge(i, this, i);
+            }
+            return res;
+        }
+    }
+    
+    /**
+     * Updates the moments of each region during the scan of the label map.
+     */
+    private static final class Accumulator implements ScanAccumulator
+    {
+        Moments moments = new Moments(0);
+        
+        @Override
+        public void ensureCapacity(int nRegions)
+        {
+            int n = moments.size();
+            if (nRegions > n)
+            {
+                moments = moments.resize(Math.max(nRegions, n * 2));
+            }
+        }
+        
+        @Override
+        public void addPixel(int index, int x, int y)
+        {
+            moments.add(index, x, y);
+        }
+        
+        @Override
+        public void addRun(int index, int x0, int x1, int y)
+        {
+            moments.addRun(index, x0, x1, y);
+        }
+        
+        @Override
+        public void merge(ScanAccumulator other, int[] indexMap)
+        {
+            Moments otherMoments = ((Accumulator) other).moments;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                moments.merge(indexMap[i], otherMoments, i);
+            }
+        }
+        
+        @Override
+        public Moments result(int[] order)
+        {
+            Moments res = new Moments(order.length);
+            for (int i = 0; i < order.length; i++)
+            {
+                res.merge(i, moments, order[i]);
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d.core;
+
+import java.util.Arrays;
+
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.ScanAccumulator;
+import net.sci.image.regfeat.ScanFeature;
+
+/**
+ * Computes, for each region and each row of the label map intersecting the
+ * region, the horizontal extent of the region within the row.
+ * 
+ * The result contains one array per region, storing a triplet (y, x0, x1)
+ * for each row of the region, where x0 is the x-coordinate of the leftmost
+ * pixel of the region within row y, and x1 is the x-coordinate following
+ * the rightmost one. Triplets are sorted by increasing y-coordinate.
+ * 
+ * Row extents retain the extreme pixels of the region boundary, and are
+ * sufficient for computing its convex hull, using a storage proportional to
+ * the height of the region.
+ * 
+ * @see ConvexHulls
+ */
+public class RegionRowExtents implements ScanFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public RegionRowExtents()
+    {
+    }
+    
+    @Override
+    public int[][] compute(RegionFeatures data)
+    {
+        return (int[][]) ScanFeature.super.compute(data);
+    }
+    
+    @Override
+    public ScanAccumulator createAccumulator(RegionFeatures data)
+    {
+        return new Accumulator();
+    }
+    
+    
+    // ==================================================
+    // Inner class for accumulating row extents
+    
+    /**
+     * Updates the row extents of each region during the scan of the label
+     * map. Rows are scanned in increasing order within a band, so only the
+     * last triplet of a region may need to be updated.
+     */
+    private static final class Accumulator implements ScanAccumulator
+    {
+        int[][] extents = new int[0][];
+        int[] sizes = new int[0];
+        
+        @Override
+        public void ensureCapacity(int nRegions)
+        {
+            int n = extents.length;
+            if (nRegions <= n) return;
+            
+            int n2 = Math.max(nRegions, n * 2);
+            extents = Arrays.copyOf(extents, n2);
+            sizes = Arrays.copyOf(sizes, n2);
+        }
+        
+        @Override
+        public void addPixel(int index, int x, int y)
+        {
+            addRun(index, x, x + 1, y);
+        }
+        
+        @Override
+        public void addRun(int index, int x0, int x1, int y)
+        {
+            int[] array = extents[index];
+            int size = sizes[index];
+            
+            // update the extent of the current row
+            if (size > 0 && array[size - 3] == y)
+            {
+                if (x0 < array[size - 2]) array[size - 2] = x0;
+                if (x1 > array[size - 1]) array[size - 1] = x1;
+                return;
+            }
+            
+            // append a new row
+            if (array == null)
+            {
+                array = new int[12];
+                extents[index] = array;
+            }
+            else if (size == array.length)
+            {
+                array = Arrays.copyOf(array, size * 2);
+                extents[index] = array;
+            }
+            array[size] = y;
+            array[size + 1] = x0;
+            array[size + 2] = x1;
+            sizes[index] = size + 3;
+        }
+        
+        @Override
+        public void merge(ScanAccumulator other, int[] indexMap)
+        {
+            Accumulator acc = (Accumulator) other;
+            for (int i = 0; i < indexMap.length; i++)
+            {
+                int otherSize = acc.sizes[i];
+                if (otherSize == 0) continue;
+                
+                int index = indexMap[i];
+                int size = sizes[index];
+                if (size == 0)
+                {
+                    extents[index] = acc.extents[i];
+                    sizes[index] = otherSize;
+                    continue;
+                }
+                
+                int[] array = Arrays.copyOf(extents[index], size + otherSize);
+                System.arraycopy(acc.extents[i], 0, array, size, otherSize);
+                extents[index] = array;
+                sizes[index] = size + otherSize;
+            }
+        }
+        
+        @Override
+        public int[][] result(int[] order)
+        {
+            int[][] res = new int[order.length][];
+            for (int i = 0; i < order.length; i++)
+            {
+                int index = order[i];
+                res[i] = sortRows(extents[index], sizes[index]);
+            }
+            return res;
+        }
+        
+        /**
+         * Returns a trimmed copy of the triplets, sorted by y-coordinate.
+         * Triplets are usually already sorted, except when regions are
+         * scanned within several windows.
+         */
+        private static final int[] sortRows(int[] array, int size)
+        {
+            if (size == 0) return new int[0];
+            int[] res = Arrays.copyOf(array, size);
+            
+            boolean sorted = true;
+            for (int k = 3; k < size && sorted; k += 3)
+            {
+                sorted = res[k] > res[k - 3];
+            }
+            if (sorted) return res;
+            
+            // sort triplets by y, and combine the ones of the same row
+            Integer[] perm = new Integer[size / 3];
+            for (int i = 0; i < perm.length; i++) perm[i] = i;
+            Arrays.sort(perm, (a, b) -> Integer.compare(res[3 * a], res[3 * b]));
+            int[] sortedRes = new int[size];
+            int n = 0;
+            for (int p : perm)
+            {
+                int y = res[3 * p];
+                if (n > 0 && sortedRes[n - 3] == y)
+                {
+                    sortedRes[n - 2] = Math.min(sortedRes[n - 2], res[3 * p + 1]);
+                    sortedRes[n - 1] = Math.max(sortedRes[n - 1], res[3 * p + 2]);
+                    continue;
+                }
+                sortedRes[n++] = y;
+                sortedRes[n++] = res[3 * p + 1];
+                sortedRes[n++] = res[3 * p + 2];
+            }
+            return Arrays.copyOf(sortedRes, n);
+        }
+    }
+}
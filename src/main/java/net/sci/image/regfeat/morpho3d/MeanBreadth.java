@@ -0,0 +1,58 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.analyze.region3d.IntrinsicVolumes3DUtils;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+import net.sci.image.regfeat.morpho3d.core.BinaryConfigurationHistogram3D;
+
+/**
+ * Computes the mean breadth of 3D regions, using discretization of Crofton
+ * formula with thirteen directions, and C8 connectivity within planar
+ * sections.
+ * 
+ * @see BinaryConfigurationHistogram3D
+ */
+public class MeanBreadth extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public MeanBreadth()
+    {
+        super("Mean_Breadth");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram3D.class);
+        
+        // compute LUT
+        Calibration calib = data.calibration();
+        double[] lut = IntrinsicVolumes3DUtils.meanBreadthLut(calib, 13, 8);
+        
+        return BinaryConfigurationHistogram.applyLut(histos, lut);
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(BinaryConfigurationHistogram3D.class);
+    }
+    
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName()};
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho3d.core.SurfaceArea_Crofton_D13;
+
+/**
+ * Computes the surface area of a 3D region. In practice, this feature is an
+ * alias for the SurfaceArea_Crofton_D13 feature.
+ * 
+ */
+public class SurfaceArea extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public SurfaceArea()
+    {
+        super("Surface_Area");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        return (double[]) data.results.get(SurfaceArea_Crofton_D13.class);
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(SurfaceArea_Crofton_D13.class);
+    }
+    
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName() + "^2"};
+    }
+}
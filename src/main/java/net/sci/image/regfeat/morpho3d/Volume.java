@@ -0,0 +1,58 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.analyze.region3d.IntrinsicVolumes3DUtils;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+import net.sci.image.regfeat.morpho3d.core.BinaryConfigurationHistogram3D;
+
+/**
+ * A feature that computes the volume of 3D regions, from the histogram of
+ * 2-by-2-by-2 binary configurations.
+ * 
+ * @see BinaryConfigurationHistogram3D
+ */
+public class Volume extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public Volume()
+    {
+        super("Volume");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram3D.class);
+        
+        // compute LUT
+        Calibration calib = data.calibration();
+        double[] lut = IntrinsicVolumes3DUtils.volumeLut(calib);
+        
+        return BinaryConfigurationHistogram.applyLut(histos, lut);
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(BinaryConfigurationHistogram3D.class);
+    }
+    
+    @Override
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName() + "^3"};
+    }
+}
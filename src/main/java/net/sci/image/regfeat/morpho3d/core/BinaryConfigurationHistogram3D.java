@@ -0,0 +1,275 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import net.sci.algo.AlgoStub;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.LabelIndex;
+import net.sci.image.regfeat.LabelRowReader;
+import net.sci.image.regfeat.RegionFeatures;
+
+/**
+ * Computes the histogram of binary configurations for each region of the input
+ * 3D label image.
+ * 
+ * Takes into account the border of the image: histograms consider all the
+ * 2-by-2-by-2 configurations that contain at least one voxel of the image, by
+ * considering the voxels outside image as background. The index of each
+ * configuration is obtained by summing the values 1, 2, 4, 8, 16, 32, 64 and
+ * 128 for the voxels of the configuration that belong to the region, the
+ * x-coordinate varying first.
+ * 
+ * Configurations are processed slice pair by slice pair. If a pool of threads
+ * is specified within the <code>RegionFeatures</code> data, the slice pairs
+ * are split into slabs processed concurrently, and the partial histograms are
+ * merged.
+ */
+public class BinaryConfigurationHistogram3D extends AlgoStub implements Feature
+{
+    /**
+     * The minimum number of slice pairs within a slab.
+     */
+    static final int MIN_SLAB_SIZE = 4;
+    
+    // ==================================================
+    // Implementation of the Feature interface
+    
+    @Override
+    public int[][] compute(RegionFeatures data)
+    {
+        // retrieve data, using a row reader specialized for the type of array
+        LabelRowReader labelMap = LabelRowReader.create(data.labelMap.getData());
+        LabelIndex labelIndex = data.labelIndex();
+        int nLabels = labelIndex.size();
+        
+        // number of slice pairs to process
+        int nPlanes = labelMap.sizeZ() + 1;
+        long nPixels = (long) labelMap.sizeX() * labelMap.sizeY() * labelMap.sizeZ();
+        long nConfigs = (long) (labelMap.sizeX() + 1) * (labelMap.sizeY() + 1) * nPlanes;
+        data.getReport().addTraversal(BinaryConfigurationHistogram3D.class, nPixels, nConfigs);
+        
+        // choose the number of slabs
+        ForkJoinPool pool = data.pool;
+        int nSlabs = 1;
+        if (pool != null)
+        {
+            nSlabs = Math.min(pool.getParallelism(), nPlanes / MIN_SLAB_SIZE);
+        }
+        
+        if (nSlabs <= 1)
+        {
+            int[][] histograms = new int[nLabels][];
+            processSlab(labelMap, labelIndex, 0, nPlanes, histograms, true);
+            return finalizeHistograms(histograms);
+        }
+        
+        // process each slab within a thread of the pool
+        ArrayList<Future<int[][]>> futures = new ArrayList<>(nSlabs);
+        for (int s = 0; s < nSlabs; s++)
+        {
+            int z0 = (int) ((long) nPlanes * s / nSlabs);
+            int z1 = (int) ((long) nPlanes * (s + 1) / nSlabs);
+            futures.add(pool.submit(() -> {
+                int[][] partial = new int[nLabels][];
+                processSlab(labelMap, labelIndex, z0, z1, partial, false);
+                return partial;
+            }));
+        }
+        
+        // merge partial histograms
+        int[][] histograms = new int[nLabels][];
+        for (int s = 0; s < nSlabs; s++)
+        {
+            int[][] partial;
+            try
+            {
+                partial = futures.get(s).get();
+            }
+            catch (InterruptedException | ExecutionException ex)
+            {
+                throw new RuntimeException("Error during computation of 3D configuration histograms", ex);
+            }
+            for (int i = 0; i < nLabels; i++)
+            {
+                if (partial[i] == null) continue;
+                if (histograms[i] == null)
+                {
+                    histograms[i] = partial[i];
+                    continue;
+                }
+                for (int c = 0; c < 256; c++)
+                {
+                    histograms[i][c] += partial[i][c];
+                }
+            }
+            this.fireProgressChanged(this, s + 1, nSlabs);
+        }
+        
+        return finalizeHistograms(histograms);
+    }
+    
+    /**
+     * Replaces the histograms of regions that were not encountered by empty
+     * histograms.
+     */
+    private static final int[][] finalizeHistograms(int[][] histograms)
+    {
+        for (int i = 0; i < histograms.length; i++)
+        {
+            if (histograms[i] == null) histograms[i] = new int[256];
+        }
+        return histograms;
+    }
+    
+    /**
+     * Processes the configuration planes between z0 (inclusive) and z1
+     * (exclusive). Configuration plane z contains the voxels of slices z-1
+     * and z. Histograms are allocated when a region is first encountered.
+     */
+    private void processSlab(LabelRowReader labelMap, LabelIndex labelIndex, int z0, int z1, int[][] histograms, boolean fireEvents)
+    {
+        // size of image
+        int sizeX = labelMap.sizeX();
+        int sizeY = labelMap.sizeY();
+        int sizeZ = labelMap.sizeZ();
+        
+        // rolling window over the region indices of the previous and current
+        // slices, padded with one element on each side. -1 corresponds to
+        // background or to labels that are not processed.
+        int strideY = sizeX + 2;
+        int[] prevSlice = new int[strideY * (sizeY + 2)];
+        int[] currSlice = new int[strideY * (sizeY + 2)];
+        Arrays.fill(prevSlice, -1);
+        Arrays.fill(currSlice, -1);
+        
+        // the buffer for reading the labels of a row, shared by all slices
+        int[] row = new int[sizeX];
+        
+        // the last slice of the previous slab is required for configurations
+        if (z0 > 0)
+        {
+            readSliceIndices(labelMap, labelIndex, z0 - 1, row, currSlice);
+        }
+        
+        // the region indices of the current configuration
+        int[] indices = new int[8];
+        
+        for (int z = z0; z < z1; z++)
+        {
+            if (fireEvents) this.fireProgressChanged(this, z - z0, z1 - z0);
+            
+            // swap slices
+            int[] tmp = prevSlice;
+            prevSlice = currSlice;
+            currSlice = tmp;
+            if (z < sizeZ)
+            {
+                readSliceIndices(labelMap, labelIndex, z, row, currSlice);
+            }
+            else
+            {
+                Arrays.fill(currSlice, -1);
+            }
+            
+            for (int y = 0; y < sizeY + 1; y++)
+            {
+                for (int x = 0; x < sizeX + 1; x++)
+                {
+                    // position of the first voxel of configuration within
+                    // padded slices
+                    int pos = y * strideY + x;
+                    indices[0] = prevSlice[pos];
+                    indices[1] = prevSlice[pos + 1];
+                    indices[2] = prevSlice[pos + strideY];
+                    indices[3] = prevSlice[pos + strideY + 1];
+                    indices[4] = currSlice[pos];
+                    indices[5] = currSlice[pos + 1];
+                    indices[6] = currSlice[pos + strideY];
+                    indices[7] = currSlice[pos + strideY + 1];
+                    
+                    // skip configurations containing only background
+                    if ((indices[0] & indices[1] & indices[2] & indices[3] 
+                            & indices[4] & indices[5] & indices[6] & indices[7]) < 0) continue;
+                    
+                    updateHistograms(indices, histograms);
+                }
+            }
+        }
+        
+        if (fireEvents) this.fireProgressChanged(this, 1, 1);
+    }
+    
+    /**
+     * Updates the histogram of each region within the configuration. Each
+     * region is processed when it is first encountered, so that the bits of
+     * the previous voxels are known to be zero.
+     */
+    private static final void updateHistograms(int[] indices, int[][] histograms)
+    {
+        for (int i = 0; i < 8; i++)
+        {
+            int index = indices[i];
+            if (index < 0) continue;
+            
+            boolean found = false;
+            for (int j = 0; j < i; j++)
+            {
+                found |= indices[j] == index;
+            }
+            if (found) continue;
+            
+            int config = 1 << i;
+            for (int j = i + 1; j < 8; j++)
+            {
+                config |= indices[j] == index ? 1 << j : 0;
+            }
+            
+            int[] histo = histograms[index];
+            if (histo == null)
+            {
+                histo = new int[256];
+                histograms[index] = histo;
+            }
+            histo[config]++;
+        }
+    }
+    
+    /**
+     * Reads the labels of the specified slice, and stores the index of each
+     * voxel within the padded slice buffer. The row buffer is used for
+     * reading the labels, and must contain at least sizeX elements.
+     */
+    private static final void readSliceIndices(LabelRowReader labelMap, LabelIndex labelIndex, int z, int[] row, int[] slice)
+    {
+        int sizeX = labelMap.sizeX();
+        int sizeY = labelMap.sizeY();
+        int strideY = sizeX + 2;
+        
+        // keep index of previous label, as successive voxels often share the
+        // same label
+        int prevLabel = 0;
+        int prevIndex = -1;
+        for (int y = 0; y < sizeY; y++)
+        {
+            labelMap.readRow(y, z, 0, sizeX, row);
+            int offset = (y + 1) * strideY + 1;
+            for (int x = 0; x < sizeX; x++)
+            {
+                int label = row[x];
+                if (label != prevLabel)
+                {
+                    prevLabel = label;
+                    prevIndex = label == 0 ? -1 : labelIndex.indexOf(label);
+                }
+                slice[offset + x] = prevIndex;
+            }
+        }
+    }
+}
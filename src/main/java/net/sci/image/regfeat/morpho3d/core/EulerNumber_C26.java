@@ -0,0 +1,48 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.analyze.region3d.IntrinsicVolumes3DUtils;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+
+/**
+ * Euler number of 3D regions using the C26 connectivity.
+ * 
+ * @see EulerNumber_C6
+ */
+public class EulerNumber_C26 extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public EulerNumber_C26()
+    {
+        super("Euler_Number_C26");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram3D.class);
+        
+        // compute LUT
+        double[] lut = IntrinsicVolumes3DUtils.eulerNumberLut(26);
+        
+        return BinaryConfigurationHistogram.applyLut(histos, lut);
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(BinaryConfigurationHistogram3D.class);
+    }    
+}
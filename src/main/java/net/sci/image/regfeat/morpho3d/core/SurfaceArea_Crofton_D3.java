@@ -0,0 +1,56 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import net.sci.image.Calibration;
+import net.sci.image.analyze.region3d.IntrinsicVolumes3DUtils;
+import net.sci.image.regfeat.Feature;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SingleValueFeature;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+
+/**
+ * Computation of surface area using discretization of Crofton formula with
+ * three directions.
+ * 
+ * @see SurfaceArea_Crofton_D13
+ */
+public class SurfaceArea_Crofton_D3 extends SingleValueFeature
+{
+    /**
+     * Default empty constructor.
+     */
+    public SurfaceArea_Crofton_D3()
+    {
+        super("SurfaceArea_Crofton_D3");
+    }
+    
+    @Override
+    public double[] compute(RegionFeatures data)
+    {
+        // retrieve required feature values
+        data.ensureRequiredFeaturesAreComputed(this);
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram3D.class);
+        
+        // compute LUT
+        Calibration calib = data.calibration();
+        double[] lut = IntrinsicVolumes3DUtils.surfaceAreaLut(calib, 3);
+        
+        return BinaryConfigurationHistogram.applyLut(histos, lut);
+    }
+    
+    @Override
+    public Collection<Class<? extends Feature>> requiredFeatures()
+    {
+        return Arrays.asList(BinaryConfigurationHistogram3D.class);
+    }
+    
+    public String[] columnUnitNames(RegionFeatures data)
+    {
+        return new String[] {data.calibration().getXAxis().getUnitName() + "^2"};
+    }
+}
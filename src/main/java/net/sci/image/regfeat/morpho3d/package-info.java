@@ -0,0 +1,4 @@
+/**
+ * Features for morphology analysis of 3D regions.
+ */
+package net.sci.image.regfeat.morpho3d;
\ No newline at end of file
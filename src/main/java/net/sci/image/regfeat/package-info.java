@@ -9,11 +9,22 @@
  * from images as well as additional data</li>
  * </ul>
  * 
+ * Features that can be computed by accumulating pixel or configuration values
+ * implement the <code>ScanFeature</code> interface. All the scan features
+ * required for an analysis are computed within a single traversal of the label
+ * map by the <code>LabelMapScanner</code> class.
+ * 
  * The sub-pacakges correspond to different families of features:
  * <ul>
  * <li>the <code>morpho2d</code> package gathers features describing morphology
  * of regions,
  * <li>
+ * <li>the <code>morpho3d</code> package gathers features describing morphology
+ * of 3D regions,
+ * <li>
+ * <li>the <code>intensity</code> package gathers features describing the
+ * distribution of intensity values within regions,
+ * <li>
  * <li>the <code>spatial</code> package gathers mostly provides computation of
  * region adjacency graph.
  * <li>
@@ -13,15 +13,34 @@ import imago.gui.ImagoFrame;
 import imago.gui.image.ImageFrame;
 import imago.gui.table.TableFrame;
 import net.sci.algo.ConsoleAlgoListener;
+import net.sci.axis.CategoricalAxis;
 import net.sci.image.Image;
 import net.sci.image.regfeat.Feature;
 import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.RegionFeaturesBatch;
 import net.sci.image.regfeat.RegionFeatures.UnitDisplay;
 import net.sci.image.regfeat.morpho2d.Area;
+import net.sci.image.regfeat.morpho2d.AverageThickness;
+import net.sci.image.regfeat.morpho2d.Bounds;
+import net.sci.image.regfeat.morpho2d.Centroid;
 import net.sci.image.regfeat.morpho2d.Circularity;
+import net.sci.image.regfeat.morpho2d.Convexity;
+import net.sci.image.regfeat.morpho2d.EllipseElongation;
+import net.sci.image.regfeat.morpho2d.EquivalentEllipse;
 import net.sci.image.regfeat.morpho2d.EulerNumber;
+import net.sci.image.regfeat.morpho2d.GeodesicDiameter;
+import net.sci.image.regfeat.morpho2d.GeodesicElongation;
+import net.sci.image.regfeat.morpho2d.LargestInscribedDisk;
+import net.sci.image.regfeat.morpho2d.MaxFeretDiameter;
+import net.sci.image.regfeat.morpho2d.OrientedBoundingBox;
+import net.sci.image.regfeat.morpho2d.OrientedBoxElongation;
 import net.sci.image.regfeat.morpho2d.Perimeter;
+import net.sci.image.regfeat.morpho2d.Tortuosity;
+import net.sci.table.CategoricalColumn;
+import net.sci.table.Column;
+import net.sci.table.NumericColumn;
 import net.sci.table.Table;
+import net.sci.table.impl.ColumnsTable;
 
 
 /**
@@ -79,10 +98,10 @@ public class RegionMorphology2D implements FramePlugin
         
         Table[] tables = analyze(image, options);
         Table featuresTable = tables[0];
-//        if (options.includeImageName)
-//        {
-//            featuresTable = insertImageNameColumn(featuresTable, image.getName());
-//        }
+        if (options.includeImageName)
+        {
+            featuresTable = insertImageNameColumn(featuresTable, image.getName());
+        }
         
         // show result
         featuresTable.setName(image.getName() + "-Morphometry");
@@ -94,6 +113,23 @@ public class RegionMorphology2D implements FramePlugin
         }
     }
     
+    /**
+     * Creates a new table with a first column containing the name of the
+     * image, followed by the columns of the original table.
+     */
+    private static final Table insertImageNameColumn(Table table, String imageName)
+    {
+        int nRows = table.rowCount();
+        Table res = Table.create(nRows, 0);
+        res.addColumn(CategoricalColumn.create("Image", new int[nRows], new String[] {imageName}));
+        for (Column col : table.columns())
+        {
+            res.addColumn(col);
+        }
+        res.setRowAxis(table.getRowAxis());
+        return res;
+    }
+    
     private static final Options chooseOptions(ImagoFrame frame, Image labelMap, Options initialChoice)
     {
         GenericDialog gd = new GenericDialog(frame, "Region Morphology");
@@ -103,24 +139,24 @@ public class RegionMorphology2D implements FramePlugin
         String[] featureNames = new String[] {
                 "Area", "Perimeter", 
                 "Circularity", "Euler_Number",
-//                "Bounding_Box", "Centroid",
-//                "Equivalent_Ellipse", "Ellipse_Elongation",
-//                "Convexity", "Max_Feret_Diameter",
-//                "Oriented_Box", "Oriented_Box_Elongation",
-//                "Geodesic_Diameter", "Tortuosity",
-//                "Max_Inscribed_Disk", "Average_Thickness",
-//                "Geodesic_Elongation",
+                "Bounding_Box", "Centroid",
+                "Equivalent_Ellipse", "Ellipse_Elongation",
+                "Convexity", "Max_Feret_Diameter",
+                "Oriented_Box", "Oriented_Box_Elongation",
+                "Geodesic_Diameter", "Tortuosity",
+                "Max_Inscribed_Disk", "Average_Thickness",
+                "Geodesic_Elongation",
         };
         boolean[] states = new boolean[] {
                 features.contains(Area.class), features.contains(Perimeter.class),
                 features.contains(Circularity.class), features.contains(EulerNumber.class),
-//                features.contains(Bounds.class), features.contains(Centroid.class),
-//                features.contains(EquivalentEllipse.class), features.contains(EllipseElongation.class),
-//                features.contains(Convexity.class), features.contains(MaxFeretDiameter.class),
-//                features.contains(OrientedBoundingBox.class), features.contains(OrientedBoxElongation.class),
-//                features.contains(GeodesicDiameter.class), features.contains(Tortuosity.class),
-//                features.contains(LargestInscribedDisk.class), features.contains(AverageThickness.class),
-//                features.contains(GeodesicElongation.class),
+                features.contains(Bounds.class), features.contains(Centroid.class),
+                features.contains(EquivalentEllipse.class), features.contains(EllipseElongation.class),
+                features.contains(Convexity.class), features.contains(MaxFeretDiameter.class),
+                features.contains(OrientedBoundingBox.class), features.contains(OrientedBoxElongation.class),
+                features.contains(GeodesicDiameter.class), features.contains(Tortuosity.class),
+                features.contains(LargestInscribedDisk.class), features.contains(AverageThickness.class),
+                features.contains(GeodesicElongation.class),
         };
         gd.addCheckboxGroup(featureNames.length / 2 + 1, 2, featureNames, states, new String[] {"Features:", ""});
         
@@ -143,19 +179,19 @@ public class RegionMorphology2D implements FramePlugin
         if (gd.getNextBoolean()) features.add(Perimeter.class);
         if (gd.getNextBoolean()) features.add(Circularity.class);
         if (gd.getNextBoolean()) features.add(EulerNumber.class);
-//        if (gd.getNextBoolean()) features.add(Bounds.class);
-//        if (gd.getNextBoolean()) features.add(Centroid.class);
-//        if (gd.getNextBoolean()) features.add(EquivalentEllipse.class);
-//        if (gd.getNextBoolean()) features.add(EllipseElongation.class);
-//        if (gd.getNextBoolean()) features.add(Convexity.class);
-//        if (gd.getNextBoolean()) features.add(MaxFeretDiameter.class);
-//        if (gd.getNextBoolean()) features.add(OrientedBoundingBox.class);
-//        if (gd.getNextBoolean()) features.add(OrientedBoxElongation.class);
-//        if (gd.getNextBoolean()) features.add(GeodesicDiameter.class);
-//        if (gd.getNextBoolean()) features.add(Tortuosity.class);
-//        if (gd.getNextBoolean()) features.add(LargestInscribedDisk.class);
-//        if (gd.getNextBoolean()) features.add(AverageThickness.class);
-//        if (gd.getNextBoolean()) features.add(GeodesicElongation.class);
+        if (gd.getNextBoolean()) features.add(Bounds.class);
+        if (gd.getNextBoolean()) features.add(Centroid.class);
+        if (gd.getNextBoolean()) features.add(EquivalentEllipse.class);
+        if (gd.getNextBoolean()) features.add(EllipseElongation.class);
+        if (gd.getNextBoolean()) features.add(Convexity.class);
+        if (gd.getNextBoolean()) features.add(MaxFeretDiameter.class);
+        if (gd.getNextBoolean()) features.add(OrientedBoundingBox.class);
+        if (gd.getNextBoolean()) features.add(OrientedBoxElongation.class);
+        if (gd.getNextBoolean()) features.add(GeodesicDiameter.class);
+        if (gd.getNextBoolean()) features.add(Tortuosity.class);
+        if (gd.getNextBoolean()) features.add(LargestInscribedDisk.class);
+        if (gd.getNextBoolean()) features.add(AverageThickness.class);
+        if (gd.getNextBoolean()) features.add(GeodesicElongation.class);
         
         options.unitDisplay = unitDisplayValues[gd.getNextChoiceIndex()];
         options.includeImageName = gd.getNextBoolean();
@@ -165,85 +201,75 @@ public class RegionMorphology2D implements FramePlugin
     
     private static final Table[] analyze(Image imagePlus, Options options)
     {
-//        // retrieve dimensions
-//        int nChannels = imagePlus.getNChannels();
-//        int nFrames = imagePlus.getNFrames();
-//        
-//        // process simple case
-//        if (nChannels * nFrames == 1)
-//        {
+        // process simple case
+        if (imagePlus.getData().dimensionality() == 2)
+        {
             return analyzeSingleSlice(imagePlus, options);
-//        }
-//        
-//        ImageStack stack = imagePlus.getStack();
-//        ArrayList<ResultsTable> allTables = new ArrayList<ResultsTable>(nChannels * nFrames);
-//        ResultsTable unitsTable = null;
-//
-//        // iterate over slices 
-//        for (int iFrame = 0; iFrame < nFrames; iFrame++)
-//        {
-//            for (int iChannel = 0; iChannel < nChannels; iChannel++)
-//            {
-//                int index = imagePlus.getStackIndex(iChannel, 0, iFrame);
-//                ImageProcessor array = stack.getProcessor(index);
-//                ImagePlus sliceImage = new ImagePlus(imagePlus.getTitle(), array);
-//                sliceImage.copyScale(imagePlus);
-//
-//                ResultsTable[] tables = analyzeSingleSlice(sliceImage, options);
-//                allTables.add(tables[0]);
-//                unitsTable = tables[1];
-//            }
-//        }
-//
-//        Table res = new Table();
-//        Iterator<Table> iter = allTables.iterator();
-//        
-//        // create string patterns
-//        // TODO: should also add iteration on slices within a 3D image
-//        String pattC = "_c%0" + Math.max((int) Math.ceil(Math.log10(nChannels-1)), 1) + "d";
-//        String pattT = "_t%0" + Math.max((int) Math.ceil(Math.log10(nFrames-1)), 1) + "d";
-//        StringBuilder sb = new StringBuilder();
-//        
-//        // iterate over individual tables
-//        for (int iFrame = 0; iFrame < nFrames; iFrame++)
-//        {
-//            String tStr = String.format(pattT, iFrame);
-//            
-//            for (int iChannel = 0; iChannel < nChannels; iChannel++)
-//            {
-//                String cStr = String.format(pattC, iChannel);
-//                
-//                Table tbl = iter.next();
-//                for (int iRow = 0; iRow < tbl.getCounter(); iRow++)
-//                {
-//                    // start new row
-//                    res.incrementCounter();
-//                    
-//                    String labelString = tbl.getLabel(iRow);
-//                    
-//                    // create label for the new row
-//                    sb.setLength(0);
-//                    sb.append("L" + labelString);
-//                    if (nFrames > 1) sb.append(tStr);
-//                    if (nChannels > 1) sb.append(cStr);
-//                    res.addLabel(sb.toString());
-//                    
-//                    // add columns for meta-data
-//                    res.addValue("Region", Integer.parseInt(labelString));
-//                    if (nChannels > 1) res.addValue("Channel", iChannel);
-//                    if (nFrames > 1) res.addValue("Frame", iFrame);
-//                    
-//                    // copy all column values
-//                    for (String colName : tbl.getHeadings())
-//                    {
-//                        if ("Label".equalsIgnoreCase(colName)) continue;
-//                        res.addValue(colName, tbl.getValue(colName, iRow));
-//                    }
-//                }
-//            }
-//        }
-//        
-//        return new Table[] {res, unitsTable};
+        }
+        
+        // analyze each slice of the hyperstack concurrently
+        RegionFeaturesBatch batch = new RegionFeaturesBatch();
+        options.features.stream().forEachOrdered(feature -> batch.add(feature));
+        ConsoleAlgoListener.monitor(batch);
+        Table table = batch.processSlices(imagePlus);
+        
+        return applyUnitDisplay(table, options.unitDisplay);
+    }
+    
+    /**
+     * Manages the units of the numeric columns of a table computed on the
+     * slices of a hyperstack, in the same way as the
+     * <code>RegionFeatures.createTables()</code> method.
+     */
+    private static final Table[] applyUnitDisplay(Table table, UnitDisplay unitDisplay)
+    {
+        Table res = Table.create(table.rowCount(), 0);
+        ArrayList<String> colNames = new ArrayList<>();
+        ArrayList<String> unitNames = new ArrayList<>();
+        
+        for (Column col : table.columns())
+        {
+            String unitName = col instanceof NumericColumn numCol ? numCol.getUnitName() : null;
+            switch (unitDisplay)
+            {
+                case NONE:
+                    res.addColumn(col);
+                    break;
+                case COLUMN_NAMES:
+                    if (unitName != null)
+                    {
+                        col.setName(String.format("%s_(%s)", col.getName(), unitName));
+                    }
+                    res.addColumn(col);
+                    break;
+                case NEW_COLUMNS:
+                    res.addColumn(col);
+                    if (unitName != null)
+                    {
+                        int[] indices = new int[col.length()];
+                        res.addColumn(CategoricalColumn.create(col.getName() + "_unit", indices, new String[] {unitName}));
+                    }
+                    break;
+                case NEW_TABLE:
+                    res.addColumn(col);
+                    if (unitName != null)
+                    {
+                        colNames.add(col.getName());
+                        unitNames.add(unitName);
+                    }
+                    break;
+                default:
+                    throw new RuntimeException("Unknown strategy for managing units");
+            }
+        }
+        
+        ColumnsTable unitsTable = new ColumnsTable();
+        if (unitDisplay == UnitDisplay.NEW_TABLE)
+        {
+            unitsTable = new ColumnsTable(CategoricalColumn.create("Unit", unitNames.toArray(String[]::new)));
+            unitsTable.setRowAxis(CategoricalAxis.create("Feature", colNames.toArray(String[]::new)));
+        }
+        return new Table[] {res, unitsTable};
     }
     
     private static final Table[] analyzeSingleSlice(Image imagePlus, Options options)
@@ -0,0 +1,53 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.sci.image.regfeat.morpho2d.AverageThickness;
+import net.sci.image.regfeat.morpho2d.LargestInscribedDisk;
+import net.sci.image.regfeat.morpho2d.core.LabelDistanceMap;
+
+/**
+ * Checks the costs recorded within the report of a computation.
+ */
+public class ComputationReportTest
+{
+    /**
+     * Test method for {@link ComputationReport#addTraversal(Class, long, long)},
+     * that checks the features computed outside the scan record the pixels
+     * they traverse.
+     */
+    @Test
+    public final void testAddTraversal()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(40, 30, LabelMapScannerTest.LABELS, 15, 0.0, 80);
+        RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map));
+        data.add(LargestInscribedDisk.class).add(AverageThickness.class).computeAll();
+        
+        ComputationReport report = data.getReport();
+        assertEquals(2 * 40 * 30, report.get(LabelDistanceMap.class).pixelCount());
+        assertEquals(40 * 30, report.get(LargestInscribedDisk.class).pixelCount());
+        assertEquals(40 * 30, report.get(AverageThickness.class).pixelCount());
+    }
+    
+    /**
+     * Test method for {@link ComputationReport#addTraversal(Class, long, long)},
+     * that checks the traversals reported several times are summed.
+     */
+    @Test
+    public final void testAddTraversal_accumulate()
+    {
+        ComputationReport report = new ComputationReport();
+        report.addTraversal(LabelDistanceMap.class, 10, 1);
+        report.addTraversal(LabelDistanceMap.class, 5, 2);
+        
+        long[] traversal = report.takeTraversal(LabelDistanceMap.class);
+        assertEquals(15, traversal[0]);
+        assertEquals(3, traversal[1]);
+        assertEquals(0, report.takeTraversal(LabelDistanceMap.class)[0]);
+    }
+}
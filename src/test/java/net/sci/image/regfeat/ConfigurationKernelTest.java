@@ -0,0 +1,68 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the configuration kernel selected at runtime, that may be the
+ * vectorized one, with the scalar implementation.
+ */
+public class ConfigurationKernelTest
+{
+    /**
+     * Test method for {@link ConfigurationKernel#histogram(int[], int[], int, int, int[])}.
+     */
+    @Test
+    public final void testHistogram()
+    {
+        ConfigurationKernel kernel = ConfigurationKernel.getInstance();
+        ConfigurationKernel scalar = new ConfigurationKernel.Scalar();
+        
+        Random random = new Random(30);
+        for (int nConfigs : new int[] {0, 1, 7, 8, 15, 16, 17, 63, 64, 65, 200})
+        {
+            int[] prevRow = new int[nConfigs + 1];
+            int[] currRow = new int[nConfigs + 1];
+            for (int x = 0; x <= nConfigs; x++)
+            {
+                prevRow[x] = random.nextInt(5) - 1;
+                currRow[x] = random.nextInt(5) - 1;
+            }
+            
+            for (int index = 0; index < 3; index++)
+            {
+                int[] expected = new int[16];
+                int[] histo = new int[16];
+                scalar.histogram(prevRow, currRow, nConfigs, index, expected);
+                kernel.histogram(prevRow, currRow, nConfigs, index, histo);
+                assertArrayEquals("nConfigs=" + nConfigs + ", index=" + index, expected, histo);
+            }
+        }
+    }
+    
+    /**
+     * Test method for {@link ConfigurationKernel.Scalar#histogram(int[], int[], int, int, int[])}.
+     */
+    @Test
+    public final void testHistogram_scalar()
+    {
+        // region 1 over two rows: one isolated pixel, and a horizontal pair
+        int[] prevRow = new int[] {-1, 1, -1, -1, -1};
+        int[] currRow = new int[] {-1, -1, 1, 1, -1};
+        int[] histo = new int[16];
+        new ConfigurationKernel.Scalar().histogram(prevRow, currRow, 4, 1, histo);
+        
+        int[] expected = new int[16];
+        expected[2] = 1;
+        expected[1 + 8] = 1;
+        expected[4 + 8] = 1;
+        expected[4] = 1;
+        assertArrayEquals(expected, histo);
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sci.image.Image;
+import net.sci.image.regfeat.morpho2d.Area;
+import net.sci.image.regfeat.morpho2d.Perimeter;
+
+/**
+ * Checks the storage of feature results within the persistent cache.
+ */
+public class FeatureCacheTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link FeatureCache#put(String, Object)} and
+     * {@link FeatureCache#get(String)}, that checks each type of value is
+     * read back unchanged, including from another cache instance sharing the
+     * same directory.
+     */
+    @Test
+    public final void testPutGet_roundTrip() throws IOException
+    {
+        Path dir = folder.newFolder("cache").toPath();
+        FeatureCache cache = new FeatureCache(dir, 1L << 20);
+        
+        int[] ints = new int[] {0, -1, 17, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        long[] longs = new long[] {0L, -1L, 1L << 40};
+        double[] doubles = new double[] {0.0, -2.5, Double.NaN, Double.POSITIVE_INFINITY, Math.PI};
+        int[][] ints2d = new int[][] {{1, 2, 3}, {}, {4}};
+        double[][] doubles2d = new double[][] {{1.5, 2.5}, {Double.NaN}};
+        assertTrue(cache.put("ints", ints));
+        assertTrue(cache.put("longs", longs));
+        assertTrue(cache.put("doubles", doubles));
+        assertTrue(cache.put("ints2d", ints2d));
+        assertTrue(cache.put("doubles2d", doubles2d));
+        assertFalse(cache.put("string", "not cacheable"));
+        
+        for (FeatureCache c : new FeatureCache[] {cache, new FeatureCache(dir, 1L << 20)})
+        {
+            assertArrayEquals(ints, (int[]) c.get("ints"));
+            assertArrayEquals(longs, (long[]) c.get("longs"));
+            assertArrayEquals(doubles, (double[]) c.get("doubles"), 0.0);
+            assertArrayEquals(ints2d, (int[][]) c.get("ints2d"));
+            double[][] res = (double[][]) c.get("doubles2d");
+            assertArrayEquals(doubles2d[0], res[0], 0.0);
+            assertArrayEquals(doubles2d[1], res[1], 0.0);
+            assertNull(c.get("string"));
+            assertNull(c.get("missing"));
+        }
+    }
+    
+    /**
+     * Test method for {@link FeatureCache#put(String, Object)}, that checks
+     * the least recently used entries are removed when the cache is full.
+     */
+    @Test
+    public final void testPut_eviction() throws IOException
+    {
+        Path dir = folder.newFolder("cache").toPath();
+        double[] value = new double[100];
+        
+        // find the size of an entry
+        FeatureCache cache = new FeatureCache(dir, 1L << 20);
+        cache.put("a", value);
+        long entrySize = Files.size(dir.resolve("a" + FeatureCache.FILE_EXTENSION));
+        cache.clear();
+        
+        // a cache that can store three entries
+        cache = new FeatureCache(dir, 3 * entrySize + entrySize / 2);
+        String[] keys = new String[] {"a", "b", "c"};
+        for (int k = 0; k < keys.length; k++)
+        {
+            cache.put(keys[k], value);
+            Files.setLastModifiedTime(dir.resolve(keys[k] + FeatureCache.FILE_EXTENSION), FileTime.fromMillis(1000L * (k + 1)));
+        }
+        
+        // use the oldest entry, then add a new entry
+        assertNotNull(cache.get("a"));
+        cache.put("d", value);
+        
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("c"));
+        assertNotNull(cache.get("d"));
+    }
+    
+    /**
+     * Test method for {@link RegionFeatures#cache(FeatureCache)}, that checks
+     * a second analysis of the same label map retrieves the results from the
+     * cache.
+     */
+    @Test
+    public final void testRegionFeatures_cacheHit() throws IOException
+    {
+        FeatureCache cache = new FeatureCache(folder.newFolder("cache").toPath(), 1L << 20);
+        int[][] map = SampleLabelMaps.randomLabelMap(50, 40, LabelMapScannerTest.LABELS, 20, 0.05, 130);
+        Image image = SampleLabelMaps.createImage(map);
+        
+        RegionFeatures first = RegionFeatures.initialize(image).cache(cache);
+        first.add(Area.class).add(Perimeter.class).computeAll();
+        
+        // a new image with the same content has the same keys
+        RegionFeatures second = RegionFeatures.initialize(SampleLabelMaps.createImage(map)).cache(cache);
+        second.add(Area.class).add(Perimeter.class).computeAll();
+        assertTrue(isCacheHit(second, Area.class));
+        assertTrue(isCacheHit(second, Perimeter.class));
+        assertArrayEquals(first.getLabels(), second.getLabels());
+        assertArrayEquals((double[]) first.results.get(Area.class), (double[]) second.results.get(Area.class), 0.0);
+        assertArrayEquals((double[]) first.results.get(Perimeter.class), (double[]) second.results.get(Perimeter.class), 0.0);
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    private static final boolean isCacheHit(RegionFeatures data, Class<? extends Feature> featureClass)
+    {
+        return data.getReport().entries().stream().anyMatch(entry -> entry.cacheHit() && entry.features().contains(featureClass));
+    }
+}
@@ -0,0 +1,234 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.sci.image.Image;
+import net.sci.image.regfeat.morpho2d.Area;
+import net.sci.image.regfeat.morpho2d.Circularity;
+import net.sci.image.regfeat.morpho2d.EulerNumber;
+import net.sci.image.regfeat.morpho2d.Perimeter;
+
+/**
+ * Checks the computation of features along their dependency graph.
+ */
+public class FeatureSchedulerTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link FeatureScheduler#computeAll(Collection)}, that
+     * checks the features computed concurrently are the same as the ones
+     * computed sequentially.
+     */
+    @Test
+    public final void testComputeAll_sameAsSequential()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 50, LabelMapScannerTest.LABELS, 30, 0.05, 70);
+        Image image = SampleLabelMaps.createImage(map);
+        List<Class<? extends Feature>> classes = List.of(Area.class, Perimeter.class, EulerNumber.class, Circularity.class);
+        
+        RegionFeatures seq = RegionFeatures.initialize(image);
+        classes.forEach(seq::add);
+        seq.computeAll();
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RegionFeatures par = RegionFeatures.initialize(image).parallel(pool);
+            classes.forEach(par::add);
+            par.computeAll();
+            
+            assertArrayEquals(seq.getLabels(), par.getLabels());
+            for (Class<? extends Feature> featureClass : classes)
+            {
+                assertArrayEquals(featureClass.getSimpleName(), (double[]) seq.results.get(featureClass), (double[]) par.results.get(featureClass), 0.0);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Test method for {@link FeatureScheduler#computeAll(Collection)}, that
+     * checks a feature required by several features is computed only once.
+     */
+    @Test
+    public final void testComputeAll_sharedDependency()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(30, 20, LabelMapScannerTest.LABELS, 10, 0.0, 71);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            CountedFeature.count.set(0);
+            RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map)).parallel(pool);
+            data.add(DependentFeature1.class).add(DependentFeature2.class).add(CountedFeature.class).computeAll();
+            
+            assertEquals(1, CountedFeature.count.get());
+            int[] counts = SampleLabelMaps.countElements(map, data.getLabels());
+            assertArrayEquals(counts, (int[]) data.results.get(DependentFeature1.class));
+            assertArrayEquals(counts, (int[]) data.results.get(DependentFeature2.class));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Test method for {@link FeatureScheduler#computeAll(Collection)}, that
+     * checks cyclic dependencies are detected.
+     */
+    @Test
+    public final void testComputeAll_cyclicDependency()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(30, 20, LabelMapScannerTest.LABELS, 10, 0.0, 72);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map)).parallel(pool);
+            data.add(CyclicFeature1.class);
+            data.computeAll();
+            fail("Cyclic dependency not detected");
+        }
+        catch (RuntimeException ex)
+        {
+            // expected
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Sample features
+    
+    /**
+     * Returns the element counts, and counts the number of computations.
+     */
+    public static class CountedFeature implements Feature
+    {
+        static final AtomicInteger count = new AtomicInteger(0);
+        
+        public CountedFeature()
+        {
+        }
+        
+        @Override
+        public int[] compute(RegionFeatures data)
+        {
+            count.incrementAndGet();
+            return ((int[]) data.results.get(ElementCount.class)).clone();
+        }
+        
+        @Override
+        public Collection<Class<? extends Feature>> requiredFeatures()
+        {
+            return List.of(ElementCount.class);
+        }
+    }
+    
+    /**
+     * Copies the result of the counted feature.
+     */
+    public static class DependentFeature1 implements Feature
+    {
+        public DependentFeature1()
+        {
+        }
+        
+        @Override
+        public int[] compute(RegionFeatures data)
+        {
+            return ((int[]) data.results.get(CountedFeature.class)).clone();
+        }
+        
+        @Override
+        public Collection<Class<? extends Feature>> requiredFeatures()
+        {
+            return List.of(CountedFeature.class);
+        }
+    }
+    
+    /**
+     * Copies the result of the counted feature.
+     */
+    public static class DependentFeature2 implements Feature
+    {
+        public DependentFeature2()
+        {
+        }
+        
+        @Override
+        public int[] compute(RegionFeatures data)
+        {
+            return ((int[]) data.results.get(CountedFeature.class)).clone();
+        }
+        
+        @Override
+        public Collection<Class<? extends Feature>> requiredFeatures()
+        {
+            return List.of(CountedFeature.class, ElementCount.class);
+        }
+    }
+    
+    /**
+     * A feature that depends on itself through another feature.
+     */
+    public static class CyclicFeature1 implements Feature
+    {
+        public CyclicFeature1()
+        {
+        }
+        
+        @Override
+        public Object compute(RegionFeatures data)
+        {
+            return null;
+        }
+        
+        @Override
+        public Collection<Class<? extends Feature>> requiredFeatures()
+        {
+            return List.of(CyclicFeature2.class);
+        }
+    }
+    
+    /**
+     * A feature that depends on itself through another feature.
+     */
+    public static class CyclicFeature2 implements Feature
+    {
+        public CyclicFeature2()
+        {
+        }
+        
+        @Override
+        public Object compute(RegionFeatures data)
+        {
+            return null;
+        }
+        
+        @Override
+        public Collection<Class<? extends Feature>> requiredFeatures()
+        {
+            return List.of(CyclicFeature1.class);
+        }
+    }
+}
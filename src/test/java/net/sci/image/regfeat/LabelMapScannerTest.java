@@ -0,0 +1,241 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import net.sci.image.Image;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+
+/**
+ * Compares the results of the scan of 2D label maps with the baseline
+ * computations of the element counts and of the configuration histograms.
+ */
+public class LabelMapScannerTest
+{
+    // ==================================================
+    // Sample labels
+    
+    /**
+     * Contiguous labels, with many regions.
+     */
+    static final int[] LABELS = new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+    
+    /**
+     * Sparse labels, that can not be indexed by their values.
+     */
+    static final int[] SPARSE_LABELS = new int[] {17, 3000, 70000, 123456, 987654321, 1 << 30};
+    
+    
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link LabelMapScanner}, when the labels are identified
+     * during the scan.
+     */
+    @Test
+    public final void testScan_discoveredLabels()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 45, LABELS, 40, 0.1, 1);
+        RegionFeatures data = scan(RegionFeatures.initialize(SampleLabelMaps.createImage(map)));
+        assertBaselineResults(map, SampleLabelMaps.findLabels(map), data);
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, with sparse label values.
+     */
+    @Test
+    public final void testScan_sparseLabels()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(50, 40, SPARSE_LABELS, 30, 0.1, 2);
+        RegionFeatures data = scan(RegionFeatures.initialize(SampleLabelMaps.createImage(map)));
+        assertBaselineResults(map, SampleLabelMaps.findLabels(map), data);
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, when the labels are specified
+     * by the caller, including a label that is not present within the map.
+     */
+    @Test
+    public final void testScan_requestedLabels()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 45, LABELS, 40, 0.1, 3);
+        int[] labels = new int[] {2, 5, 11, 99};
+        RegionFeatures data = scan(RegionFeatures.initialize(SampleLabelMaps.createImage(map), labels));
+        assertBaselineResults(map, labels, data);
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, for a binary mask, that is
+     * processed by the configuration kernel.
+     */
+    @Test
+    public final void testScan_binaryMask()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(70, 50, new int[] {1}, 20, 0.2, 4);
+        RegionFeatures data = scan(RegionFeatures.initialize(SampleLabelMaps.createImage(map)));
+        assertBaselineResults(map, SampleLabelMaps.findLabels(map), data);
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, for a label map with few
+     * regions, that is processed by the configuration kernel.
+     */
+    @Test
+    public final void testScan_fewRegions()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(70, 50, new int[] {3, 8, 200}, 20, 0.1, 5);
+        RegionFeatures data = scan(RegionFeatures.initialize(SampleLabelMaps.createImage(map)));
+        assertBaselineResults(map, SampleLabelMaps.findLabels(map), data);
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, with 8-bits and 16-bits label
+     * images, whose rows are read without conversion.
+     */
+    @Test
+    public final void testScan_integerTypes()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 45, new int[] {1, 7, 100, 255}, 40, 0.1, 6);
+        int[] labels = SampleLabelMaps.findLabels(map);
+        assertBaselineResults(map, labels, scan(RegionFeatures.initialize(SampleLabelMaps.createUInt8Image(map))));
+        assertBaselineResults(map, labels, scan(RegionFeatures.initialize(SampleLabelMaps.createUInt16Image(map))));
+        
+        int[][] map16 = SampleLabelMaps.randomLabelMap(60, 45, new int[] {1, 300, 4000, 65535}, 40, 0.1, 7);
+        assertBaselineResults(map16, SampleLabelMaps.findLabels(map16), scan(RegionFeatures.initialize(SampleLabelMaps.createUInt16Image(map16))));
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, that checks a parallel scan
+     * over several bands of rows gives the same results as a sequential scan
+     * within a single band.
+     */
+    @Test
+    public final void testScan_parallelBands()
+    {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            // many regions
+            int[][] map = SampleLabelMaps.randomLabelMap(40, 700, LABELS, 300, 0.05, 8);
+            Image image = SampleLabelMaps.createImage(map);
+            RegionFeatures seq = scan(RegionFeatures.initialize(image));
+            RegionFeatures par = scan(RegionFeatures.initialize(image).parallel(pool));
+            assertSameResults(seq, par);
+            assertBaselineResults(map, SampleLabelMaps.findLabels(map), par);
+            
+            // few regions, using the configuration kernel
+            int[][] mask = SampleLabelMaps.randomLabelMap(40, 700, new int[] {1, 2}, 300, 0.05, 9);
+            Image maskImage = SampleLabelMaps.createImage(mask);
+            seq = scan(RegionFeatures.initialize(maskImage));
+            par = scan(RegionFeatures.initialize(maskImage).parallel(pool));
+            assertSameResults(seq, par);
+            assertBaselineResults(mask, SampleLabelMaps.findLabels(mask), par);
+            
+            // requested labels
+            int[] labels = new int[] {3, 4, 10};
+            seq = scan(RegionFeatures.initialize(image, labels));
+            par = scan(RegionFeatures.initialize(image, labels).parallel(pool));
+            assertSameResults(seq, par);
+            assertBaselineResults(map, labels, par);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Test method for {@link LabelMapScanner}, that checks the scan of the
+     * run-length encoding of the label map gives the same results as the scan
+     * of the dense label map.
+     */
+    @Test
+    public final void testScan_runLengthEncoding()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(80, 60, LABELS, 50, 0.02, 10);
+        Image image = SampleLabelMaps.createImage(map);
+        RegionFeatures dense = scan(RegionFeatures.initialize(image));
+        RegionFeatures rle = scan(RegionFeatures.initialize(image).runLengthEncoding(true));
+        assertSameResults(dense, rle);
+        assertBaselineResults(map, SampleLabelMaps.findLabels(map), rle);
+        
+        int[][] mask = SampleLabelMaps.randomLabelMap(80, 60, new int[] {1}, 20, 0.0, 11);
+        Image maskImage = SampleLabelMaps.createImage(mask);
+        dense = scan(RegionFeatures.initialize(maskImage));
+        rle = scan(RegionFeatures.initialize(maskImage).runLengthEncoding(true));
+        assertSameResults(dense, rle);
+        assertBaselineResults(mask, SampleLabelMaps.findLabels(mask), rle);
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            int[][] tall = SampleLabelMaps.randomLabelMap(30, 500, SPARSE_LABELS, 200, 0.02, 12);
+            Image tallImage = SampleLabelMaps.createImage(tall);
+            dense = scan(RegionFeatures.initialize(tallImage));
+            rle = scan(RegionFeatures.initialize(tallImage).runLengthEncoding(true).parallel(pool));
+            assertSameResults(dense, rle);
+            assertBaselineResults(tall, SampleLabelMaps.findLabels(tall), rle);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Computes the element counts and the configuration histograms within a
+     * single scan of the label map.
+     */
+    static final RegionFeatures scan(RegionFeatures data)
+    {
+        return data.add(ElementCount.class).add(BinaryConfigurationHistogram.class).computeAll();
+    }
+    
+    /**
+     * Checks the labels and the results of the scan are the same as the ones
+     * of the baseline computations.
+     */
+    static final void assertBaselineResults(int[][] map, int[] labels, RegionFeatures data)
+    {
+        assertArrayEquals(labels, data.getLabels());
+        assertArrayEquals(SampleLabelMaps.countElements(map, labels), (int[]) data.results.get(ElementCount.class));
+        
+        int[][] expected = SampleLabelMaps.configurationHistograms(map, labels);
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram.class);
+        assertEquals(expected.length, histos.length);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertArrayEquals("Label " + labels[i], expected[i], histos[i]);
+        }
+    }
+    
+    /**
+     * Checks two analyses of the same label map give the same labels and the
+     * same results.
+     */
+    static final void assertSameResults(RegionFeatures expected, RegionFeatures data)
+    {
+        assertArrayEquals(expected.getLabels(), data.getLabels());
+        assertArrayEquals((int[]) expected.results.get(ElementCount.class), (int[]) data.results.get(ElementCount.class));
+        
+        int[][] expHistos = (int[][]) expected.results.get(BinaryConfigurationHistogram.class);
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram.class);
+        assertEquals(expHistos.length, histos.length);
+        for (int i = 0; i < expHistos.length; i++)
+        {
+            assertArrayEquals(expHistos[i], histos[i]);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checks the rows read from raw files of 32-bit integers.
+ */
+public class RawLabelMapSourceTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link RawLabelMapSource#readRow(int, int[])}, with
+     * both byte orders and a header.
+     */
+    @Test
+    public final void testReadRow() throws IOException
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(37, 23, LabelMapScannerTest.SPARSE_LABELS, 15, 0.05, 160);
+        for (ByteOrder order : new ByteOrder[] {ByteOrder.LITTLE_ENDIAN, ByteOrder.BIG_ENDIAN})
+        {
+            Path file = writeRawFile(map, 12, order);
+            RawLabelMapSource source = new RawLabelMapSource(file, 37, 23, 12, order);
+            assertEquals(37, source.sizeX());
+            assertEquals(23, source.sizeY());
+            
+            int[] row = new int[37];
+            for (int y = 0; y < 23; y++)
+            {
+                source.readRow(y, row);
+                assertArrayEquals(map[y], row);
+            }
+        }
+    }
+    
+    /**
+     * Test method for {@link RawLabelMapSource#readRow(int, int, int, int[])},
+     * that checks only the requested portion of the buffer is modified.
+     */
+    @Test
+    public final void testReadRow_window() throws IOException
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(37, 23, LabelMapScannerTest.LABELS, 15, 0.05, 161);
+        RawLabelMapSource source = new RawLabelMapSource(writeRawFile(map, 0, ByteOrder.LITTLE_ENDIAN), 37, 23);
+        
+        int[][] windows = new int[][] {{0, 37}, {0, 1}, {5, 20}, {36, 37}, {10, 10}};
+        int[] row = new int[37];
+        for (int y = 0; y < 23; y++)
+        {
+            for (int[] window : windows)
+            {
+                Arrays.fill(row, -7);
+                source.readRow(y, window[0], window[1], row);
+                for (int x = 0; x < 37; x++)
+                {
+                    int expected = x >= window[0] && x < window[1] ? map[y][x] : -7;
+                    assertEquals(expected, row[x]);
+                }
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    private Path writeRawFile(int[][] map, int headerBytes, ByteOrder order) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(headerBytes + 4 * map.length * map[0].length).order(order);
+        buffer.position(headerBytes);
+        for (int[] row : map)
+        {
+            for (int label : row)
+            {
+                buffer.putInt(label);
+            }
+        }
+        Path file = folder.newFile().toPath();
+        Files.write(file, buffer.array());
+        return file;
+    }
+}
@@ -0,0 +1,142 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import net.sci.array.numeric.Int32Array3D;
+import net.sci.image.Image;
+import net.sci.image.regfeat.morpho2d.Area;
+import net.sci.image.regfeat.morpho2d.Perimeter;
+import net.sci.table.Table;
+
+/**
+ * Checks the concatenation of the features computed on several label maps.
+ */
+public class RegionFeaturesBatchTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link RegionFeaturesBatch#process(java.util.Collection)},
+     * that checks the rows of each image follow the order of the images.
+     */
+    @Test
+    public final void testProcess()
+    {
+        List<Image> images = new ArrayList<>();
+        for (int i = 0; i < 6; i++)
+        {
+            int[][] map = SampleLabelMaps.randomLabelMap(30 + 5 * i, 20, LabelMapScannerTest.LABELS, 8, 0.02, 90 + i);
+            images.add(SampleLabelMaps.createImage(map));
+        }
+        
+        RegionFeaturesBatch batch = new RegionFeaturesBatch(3).add(Area.class).add(Perimeter.class).includeImageName(false);
+        Table table = batch.process(images);
+        
+        int row = 0;
+        for (Image image : images)
+        {
+            RegionFeatures data = RegionFeatures.initialize(image);
+            data.add(Area.class).add(Perimeter.class).computeAll();
+            int[] labels = data.getLabels();
+            double[] areas = (double[]) data.results.get(Area.class);
+            double[] perims = (double[]) data.results.get(Perimeter.class);
+            for (int i = 0; i < labels.length; i++, row++)
+            {
+                assertEquals(labels[i], table.getValue(row, 0), 0.0);
+                assertEquals(areas[i], table.getValue(row, 1), 0.0);
+                assertEquals(perims[i], table.getValue(row, 2), 1e-10);
+            }
+        }
+        assertEquals(row, table.rowCount());
+        assertArrayEquals(new String[] {"Label", "Area", "Perimeter"}, table.getColumnNames());
+    }
+    
+    /**
+     * Test method for {@link RegionFeaturesBatch#processSlices(Image)}, that
+     * compares the features of each frame of a 3D label map with the ones
+     * computed on a 2D copy of the frame.
+     */
+    @Test
+    public final void testProcessSlices()
+    {
+        int nFrames = 5;
+        int[][][] maps = new int[nFrames][][];
+        Int32Array3D array = Int32Array3D.create(40, 30, nFrames);
+        for (int t = 0; t < nFrames; t++)
+        {
+            maps[t] = SampleLabelMaps.randomLabelMap(40, 30, LabelMapScannerTest.LABELS, 10, 0.02, 100 + t);
+            for (int y = 0; y < 30; y++)
+            {
+                for (int x = 0; x < 40; x++)
+                {
+                    array.setInt(x, y, t, maps[t][y][x]);
+                }
+            }
+        }
+        
+        RegionFeaturesBatch batch = new RegionFeaturesBatch(2).add(Area.class).add(Perimeter.class);
+        Table table = batch.processSlices(new Image(array));
+        assertArrayEquals(new String[] {"Region", "Frame", "Area", "Perimeter"}, table.getColumnNames());
+        
+        int row = 0;
+        for (int t = 0; t < nFrames; t++)
+        {
+            RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(maps[t]));
+            data.add(Area.class).add(Perimeter.class).computeAll();
+            int[] labels = data.getLabels();
+            double[] areas = (double[]) data.results.get(Area.class);
+            double[] perims = (double[]) data.results.get(Perimeter.class);
+            for (int i = 0; i < labels.length; i++, row++)
+            {
+                assertEquals(labels[i], table.getValue(row, 0), 0.0);
+                assertEquals(t, table.getValue(row, 1), 0.0);
+                assertEquals(areas[i], table.getValue(row, 2), 0.0);
+                assertEquals(perims[i], table.getValue(row, 3), 1e-10);
+            }
+        }
+        assertEquals(row, table.rowCount());
+    }
+    
+    /**
+     * Test method for {@link RegionFeaturesBatch#process(java.util.stream.Stream)},
+     * that checks no more image is loaded once an image has failed.
+     */
+    @Test
+    public final void testProcess_failFast()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(30, 20, LabelMapScannerTest.LABELS, 8, 0.0, 95);
+        Image image = SampleLabelMaps.createImage(map);
+        AtomicInteger loaded = new AtomicInteger(0);
+        
+        RegionFeaturesBatch batch = new RegionFeaturesBatch(1).add(Area.class);
+        try
+        {
+            batch.process(IntStream.range(0, 100).mapToObj(i -> (Supplier<Image>) () -> {
+                loaded.incrementAndGet();
+                if (i == 0) throw new IllegalStateException("Could not load image");
+                return image;
+            }));
+            fail("Failure of an image was not reported");
+        }
+        catch (RuntimeException ex)
+        {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertTrue("Loaded images: " + loaded.get(), loaded.get() <= 3);
+    }
+}
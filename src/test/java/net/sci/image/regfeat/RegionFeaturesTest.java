@@ -0,0 +1,198 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sci.array.numeric.IntArray2D;
+import net.sci.array.numeric.UInt8Array2D;
+import net.sci.image.Image;
+import net.sci.image.regfeat.intensity.IntensityQuantiles;
+import net.sci.image.regfeat.intensity.core.IntensityMoments;
+import net.sci.image.regfeat.morpho2d.core.BinaryConfigurationHistogram;
+
+/**
+ * Compares the results of the partial analyses of a label map, obtained
+ * either by incremental updates or by restricting the analysis to a subset of
+ * regions, with the results of a full scan.
+ */
+public class RegionFeaturesTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    /**
+     * Test method for {@link RegionFeatures#update(int, int, int, int, Runnable)}.
+     */
+    @Test
+    public final void testUpdate()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(50, 40, LabelMapScannerTest.LABELS, 30, 0.1, 20);
+        Image image = SampleLabelMaps.createImage(map);
+        IntArray2D<?> array = (IntArray2D<?>) image.getData();
+        RegionFeatures data = LabelMapScannerTest.scan(RegionFeatures.initialize(image).incrementalUpdates(true));
+        
+        // paint an existing label
+        data.update(5, 5, 20, 12, () -> SampleLabelMaps.fill(map, array, 5, 5, 20, 12, 3));
+        assertFullScanResults(map, data);
+        
+        // paint a new label
+        data.update(30, 10, 42, 30, () -> SampleLabelMaps.fill(map, array, 30, 10, 42, 30, 99));
+        assertFullScanResults(map, data);
+        
+        // erase a window touching the image borders
+        data.update(0, 25, 18, 40, () -> SampleLabelMaps.fill(map, array, 0, 25, 18, 40, 0));
+        assertFullScanResults(map, data);
+        
+        // remove all the pixels of a region
+        data.update(30, 10, 42, 30, () -> SampleLabelMaps.fill(map, array, 30, 10, 42, 30, 0));
+        assertFullScanResults(map, data);
+    }
+    
+    /**
+     * Test method for {@link RegionFeatures#update(int, int, int, int, Runnable)},
+     * when the labels are specified by the caller.
+     */
+    @Test
+    public final void testUpdate_requestedLabels()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(50, 40, LabelMapScannerTest.LABELS, 30, 0.1, 21);
+        Image image = SampleLabelMaps.createImage(map);
+        IntArray2D<?> array = (IntArray2D<?>) image.getData();
+        int[] labels = new int[] {2, 3, 9};
+        RegionFeatures data = LabelMapScannerTest.scan(RegionFeatures.initialize(image, labels).incrementalUpdates(true));
+        
+        data.update(10, 8, 35, 20, () -> SampleLabelMaps.fill(map, array, 10, 8, 35, 20, 3));
+        LabelMapScannerTest.assertBaselineResults(map, labels, data);
+        
+        data.update(0, 0, 50, 10, () -> SampleLabelMaps.fill(map, array, 0, 0, 50, 10, 7));
+        LabelMapScannerTest.assertBaselineResults(map, labels, data);
+    }
+    
+    /**
+     * Test method for {@link RegionFeatures#forLabels(int...)}.
+     */
+    @Test
+    public final void testForLabels()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 50, LabelMapScannerTest.LABELS, 25, 0.0, 22);
+        Image image = SampleLabelMaps.createImage(map);
+        RegionFeatures data = LabelMapScannerTest.scan(RegionFeatures.initialize(image));
+        int[] allLabels = data.getLabels();
+        
+        int[][] subsets = new int[][] {{allLabels[0]}, {allLabels[1], allLabels[2]}, {allLabels[allLabels.length - 1], allLabels[0]}, allLabels};
+        for (int[] labels : subsets)
+        {
+            RegionFeatures sub = LabelMapScannerTest.scan(data.forLabels(labels));
+            LabelMapScannerTest.assertBaselineResults(map, labels, sub);
+            
+            // compare with the rows of the full analysis
+            int[] counts = (int[]) data.results.get(ElementCount.class);
+            int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram.class);
+            for (int i = 0; i < labels.length; i++)
+            {
+                int index = data.labelIndex().indexOf(labels[i]);
+                assertEquals(counts[index], ((int[]) sub.results.get(ElementCount.class))[i]);
+                assertArrayEquals(histos[index], ((int[][]) sub.results.get(BinaryConfigurationHistogram.class))[i]);
+            }
+        }
+    }
+    
+    /**
+     * Test method for {@link RegionFeatures#forLabels(int...)}, with the
+     * run-length encoding of the label map.
+     */
+    @Test
+    public final void testForLabels_runLengthEncoding()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 50, LabelMapScannerTest.SPARSE_LABELS, 25, 0.05, 23);
+        Image image = SampleLabelMaps.createImage(map);
+        RegionFeatures data = LabelMapScannerTest.scan(RegionFeatures.initialize(image).runLengthEncoding(true));
+        int[] allLabels = data.getLabels();
+        
+        int[] labels = new int[] {allLabels[1], allLabels[3]};
+        RegionFeatures sub = LabelMapScannerTest.scan(data.forLabels(labels));
+        LabelMapScannerTest.assertBaselineResults(map, labels, sub);
+    }
+    
+    /**
+     * Test method for {@link RegionFeatures#forLabels(int...)}, that checks
+     * the new analysis uses the feature instances, the cache and the pool of
+     * threads of the original analysis.
+     */
+    @Test
+    public final void testForLabels_sharedSettings() throws IOException
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(60, 50, LabelMapScannerTest.LABELS, 25, 0.0, 24);
+        Image image = SampleLabelMaps.createImage(map);
+        UInt8Array2D intensity = UInt8Array2D.create(60, 50);
+        for (int y = 0; y < 50; y++)
+        {
+            for (int x = 0; x < 60; x++)
+            {
+                intensity.setInt(x, y, (x * 7 + y * 13) % 200);
+            }
+        }
+        
+        FeatureCache cache = new FeatureCache(folder.newFolder("cache").toPath(), 1L << 20);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try
+        {
+            RegionFeatures data = RegionFeatures.initialize(image).addImageData(IntensityMoments.IMAGE_DATA_NAME, new Image(intensity))
+                    .cache(cache).parallel(pool);
+            IntensityQuantiles quantiles = (IntensityQuantiles) data.getFeature(IntensityQuantiles.class);
+            quantiles.levels(0.1, 0.5, 0.9);
+            data.add(IntensityQuantiles.class).computeAll();
+            double[][] expected = (double[][]) data.results.get(IntensityQuantiles.class);
+            
+            int[] labels = new int[] {data.getLabels()[2], data.getLabels()[0]};
+            RegionFeatures sub = data.forLabels(labels);
+            assertSame(pool, sub.pool);
+            assertSame(quantiles, sub.getFeature(IntensityQuantiles.class));
+            sub.add(IntensityQuantiles.class).computeAll();
+            
+            double[][] values = (double[][]) sub.results.get(IntensityQuantiles.class);
+            assertEquals(3, values.length);
+            for (int l = 0; l < 3; l++)
+            {
+                for (int i = 0; i < labels.length; i++)
+                {
+                    assertEquals(expected[l][data.labelIndex().indexOf(labels[i])], values[l][i], 0.0);
+                }
+            }
+            
+            // a second analysis of the same regions retrieves the result from the cache
+            RegionFeatures sub2 = data.forLabels(labels);
+            sub2.add(IntensityQuantiles.class).computeAll();
+            assertTrue(sub2.getReport().entries().stream().anyMatch(entry -> entry.cacheHit() && entry.features().contains(IntensityQuantiles.class)));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Checks the results of an updated analysis are the same as the ones of
+     * the baseline computations on the modified label map.
+     */
+    private static final void assertFullScanResults(int[][] map, RegionFeatures data)
+    {
+        LabelMapScannerTest.assertBaselineResults(map, SampleLabelMaps.findLabels(map), data);
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.sci.image.regfeat.morpho2d.Area;
+import net.sci.image.regfeat.morpho2d.Bounds;
+import net.sci.image.regfeat.morpho2d.Centroid;
+import net.sci.image.regfeat.morpho2d.EquivalentEllipse;
+import net.sci.image.regfeat.morpho2d.Perimeter;
+import net.sci.table.Table;
+
+/**
+ * Compares the views on the results of an analysis with the tables created
+ * by copying the results.
+ */
+public class RegionTableViewTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link RegionTableView#getValue(int, int)}, that
+     * compares the values of the view with the ones of the table created by
+     * the analysis.
+     */
+    @Test
+    public final void testGetValue()
+    {
+        RegionFeatures data = createAnalysis(140);
+        Table table = data.createTable();
+        RegionTableView view = data.createTableView();
+        
+        assertEquals(table.rowCount(), view.rowCount());
+        String[] colNames = table.getColumnNames();
+        assertEquals(colNames.length, view.featureColumnCount());
+        RegionTableView.ColumnView[] columns = view.featureColumns();
+        for (int c = 0; c < colNames.length; c++)
+        {
+            assertEquals(colNames[c], columns[c].name());
+            for (int r = 0; r < view.rowCount(); r++)
+            {
+                assertEquals(table.getValue(r, c), view.getValue(r, c), 0.0);
+            }
+        }
+    }
+    
+    /**
+     * Test method for {@link RegionTableView#toTable()}, with unit names
+     * stored within new columns.
+     */
+    @Test
+    public final void testToTable_unitColumns()
+    {
+        RegionFeatures data = createAnalysis(141).unitDisplay(RegionFeatures.UnitDisplay.NEW_COLUMNS);
+        RegionTableView view = data.createTableView();
+        Table table = view.toTable();
+        
+        assertEquals(view.rowCount(), table.rowCount());
+        assertEquals(view.tableColumnCount(), table.getColumnNames().length);
+        
+        // the first column contains the labels
+        int[] labels = data.getLabels();
+        for (int r = 0; r < labels.length; r++)
+        {
+            assertEquals(labels[r], table.getValue(r, 0), 0.0);
+            assertEquals(String.valueOf(labels[r]), view.rowName(r));
+        }
+        
+        // feature columns are followed by the column of their unit, if any
+        int tableColumn = 1;
+        RegionTableView.ColumnView[] columns = view.featureColumns();
+        for (int c = 0; c < columns.length; c++)
+        {
+            for (int r = 0; r < labels.length; r++)
+            {
+                assertEquals(view.getValue(r, c), table.getValue(r, tableColumn), 0.0);
+            }
+            tableColumn += columns[c].unitName() != null ? 2 : 1;
+        }
+        assertEquals(table.getColumnNames().length, tableColumn);
+    }
+    
+    /**
+     * Test method for {@link RegionTableView#write(Appendable, String)}.
+     */
+    @Test
+    public final void testWrite()
+    {
+        RegionFeatures data = createAnalysis(142);
+        RegionTableView view = data.createTableView();
+        StringBuilder sb = new StringBuilder();
+        view.write(sb, "\t");
+        
+        String[] lines = sb.toString().split("\n");
+        assertEquals(view.rowCount() + 1, lines.length);
+        
+        String[] header = lines[0].split("\t");
+        assertEquals("Label", header[0]);
+        assertEquals(view.featureColumnCount() + 1, header.length);
+        for (int r = 0; r < view.rowCount(); r++)
+        {
+            String[] tokens = lines[r + 1].split("\t");
+            assertEquals(view.rowName(r), tokens[0]);
+            double[] values = new double[tokens.length - 1];
+            double[] expected = new double[tokens.length - 1];
+            for (int c = 0; c < values.length; c++)
+            {
+                values[c] = Double.parseDouble(tokens[c + 1]);
+                expected[c] = view.getValue(r, c);
+            }
+            assertArrayEquals(expected, values, 0.0);
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Creates an analysis with features stored as single arrays, arrays of
+     * arrays, and tables.
+     */
+    private static final RegionFeatures createAnalysis(long seed)
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(50, 40, LabelMapScannerTest.LABELS, 20, 0.02, seed);
+        RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map));
+        data.add(Area.class).add(Perimeter.class).add(Bounds.class).add(Centroid.class).add(EquivalentEllipse.class);
+        return data;
+    }
+}
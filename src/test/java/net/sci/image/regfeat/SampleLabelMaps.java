@@ -0,0 +1,306 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeSet;
+
+import net.sci.array.numeric.Int32Array2D;
+import net.sci.array.numeric.IntArray2D;
+import net.sci.array.numeric.UInt16Array2D;
+import net.sci.array.numeric.UInt8Array2D;
+import net.sci.image.Image;
+
+/**
+ * Small synthetic label maps, and reference implementations of the baseline
+ * computations, used for validating the optimized computation paths.
+ * 
+ * Label maps are stored as <code>int[sizeY][sizeX]</code> arrays, so that
+ * reference results can be computed independently of the image classes.
+ */
+public class SampleLabelMaps
+{
+    // ==================================================
+    // Generation of label maps
+    
+    /**
+     * Creates a label map by painting random rectangles with the specified
+     * labels, then replacing a fraction of the pixels by random labels or by
+     * background. The resulting regions may be non-convex, disconnected, and
+     * may touch the image borders.
+     * 
+     * @param sizeX
+     *            the size of the map along the x-axis
+     * @param sizeY
+     *            the size of the map along the y-axis
+     * @param labels
+     *            the labels used for painting the map
+     * @param nRects
+     *            the number of rectangles to paint
+     * @param noise
+     *            the fraction of pixels to replace by noise
+     * @param seed
+     *            the seed of the random generator
+     * @return the label map, as an array of rows
+     */
+    public static final int[][] randomLabelMap(int sizeX, int sizeY, int[] labels, int nRects, double noise, long seed)
+    {
+        Random random = new Random(seed);
+        int[][] map = new int[sizeY][sizeX];
+        for (int i = 0; i < nRects; i++)
+        {
+            int label = labels[random.nextInt(labels.length)];
+            int x0 = random.nextInt(sizeX);
+            int y0 = random.nextInt(sizeY);
+            int x1 = Math.min(x0 + 1 + random.nextInt(Math.max(sizeX / 3, 1)), sizeX);
+            int y1 = Math.min(y0 + 1 + random.nextInt(Math.max(sizeY / 3, 1)), sizeY);
+            fill(map, x0, y0, x1, y1, label);
+        }
+        
+        for (int y = 0; y < sizeY; y++)
+        {
+            for (int x = 0; x < sizeX; x++)
+            {
+                if (random.nextDouble() < noise)
+                {
+                    map[y][x] = random.nextBoolean() ? 0 : labels[random.nextInt(labels.length)];
+                }
+            }
+        }
+        return map;
+    }
+    
+    /**
+     * Fills a rectangular window of the label map with a label.
+     * 
+     * @param map
+     *            the label map to modify
+     * @param x0
+     *            the x-coordinate of the first column of the window
+     * @param y0
+     *            the y-coordinate of the first row of the window
+     * @param x1
+     *            the x-coordinate following the last column of the window
+     * @param y1
+     *            the y-coordinate following the last row of the window
+     * @param label
+     *            the label to paint
+     */
+    public static final void fill(int[][] map, int x0, int y0, int x1, int y1, int label)
+    {
+        for (int y = y0; y < y1; y++)
+        {
+            Arrays.fill(map[y], x0, x1, label);
+        }
+    }
+    
+    /**
+     * Fills a rectangular window of both the label map and the array
+     * representing it with a label.
+     * 
+     * @param map
+     *            the label map to modify
+     * @param array
+     *            the array to modify, with the same content as the map
+     * @param x0
+     *            the x-coordinate of the first column of the window
+     * @param y0
+     *            the y-coordinate of the first row of the window
+     * @param x1
+     *            the x-coordinate following the last column of the window
+     * @param y1
+     *            the y-coordinate following the last row of the window
+     * @param label
+     *            the label to paint
+     */
+    public static final void fill(int[][] map, IntArray2D<?> array, int x0, int y0, int x1, int y1, int label)
+    {
+        fill(map, x0, y0, x1, y1, label);
+        for (int y = y0; y < y1; y++)
+        {
+            for (int x = x0; x < x1; x++)
+            {
+                array.setInt(x, y, label);
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Conversion to images
+    
+    /**
+     * Creates a 32-bits label image from a label map.
+     * 
+     * @param map
+     *            the label map
+     * @return a new label image
+     */
+    public static final Image createImage(int[][] map)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        Int32Array2D array = Int32Array2D.create(sizeX, sizeY);
+        copy(map, array);
+        return new Image(array);
+    }
+    
+    /**
+     * Creates a 8-bits label image from a label map with labels smaller than
+     * 256.
+     * 
+     * @param map
+     *            the label map
+     * @return a new label image
+     */
+    public static final Image createUInt8Image(int[][] map)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        UInt8Array2D array = UInt8Array2D.create(sizeX, sizeY);
+        copy(map, array);
+        return new Image(array);
+    }
+    
+    /**
+     * Creates a 16-bits label image from a label map with labels smaller than
+     * 65536.
+     * 
+     * @param map
+     *            the label map
+     * @return a new label image
+     */
+    public static final Image createUInt16Image(int[][] map)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        UInt16Array2D array = UInt16Array2D.create(sizeX, sizeY);
+        copy(map, array);
+        return new Image(array);
+    }
+    
+    private static final void copy(int[][] map, IntArray2D<?> array)
+    {
+        for (int y = 0; y < map.length; y++)
+        {
+            for (int x = 0; x < map[y].length; x++)
+            {
+                array.setInt(x, y, map[y][x]);
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Reference computations
+    
+    /**
+     * Identifies the labels of a label map.
+     * 
+     * @param map
+     *            the label map
+     * @return the sorted array of the non-zero labels within the map
+     */
+    public static final int[] findLabels(int[][] map)
+    {
+        TreeSet<Integer> labels = new TreeSet<>();
+        for (int[] row : map)
+        {
+            for (int label : row)
+            {
+                if (label != 0) labels.add(label);
+            }
+        }
+        return labels.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Counts the number of pixels of each region.
+     * 
+     * @param map
+     *            the label map
+     * @param labels
+     *            the labels of the regions
+     * @return the number of pixels of each region
+     */
+    public static final int[] countElements(int[][] map, int[] labels)
+    {
+        int[] counts = new int[labels.length];
+        for (int[] row : map)
+        {
+            for (int label : row)
+            {
+                int index = indexOf(labels, label);
+                if (index >= 0) counts[index]++;
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Computes the histogram of binary 2x2 configurations of each region, by
+     * visiting the configurations one at a time. The pixels outside the map
+     * are considered as background. The configuration code adds 1, 2, 4 and 8
+     * for the upper-left, upper-right, lower-left and lower-right pixels
+     * belonging to the region, and only configurations containing the region
+     * are counted.
+     * 
+     * @param map
+     *            the label map
+     * @param labels
+     *            the labels of the regions
+     * @return the 16-bins configuration histogram of each region
+     */
+    public static final int[][] configurationHistograms(int[][] map, int[] labels)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        int[][] histos = new int[labels.length][16];
+        for (int y = 0; y <= sizeY; y++)
+        {
+            for (int x = 0; x <= sizeX; x++)
+            {
+                int ul = labelAt(map, x - 1, y - 1);
+                int ur = labelAt(map, x, y - 1);
+                int ll = labelAt(map, x - 1, y);
+                int lr = labelAt(map, x, y);
+                for (int i = 0; i < labels.length; i++)
+                {
+                    int label = labels[i];
+                    int code = (ul == label ? 1 : 0) | (ur == label ? 2 : 0) | (ll == label ? 4 : 0) | (lr == label ? 8 : 0);
+                    if (code != 0) histos[i][code]++;
+                }
+            }
+        }
+        return histos;
+    }
+    
+    /**
+     * Returns the label of the specified pixel, or 0 for pixels outside the
+     * map.
+     * 
+     * @param map
+     *            the label map
+     * @param x
+     *            the x-coordinate of the pixel
+     * @param y
+     *            the y-coordinate of the pixel
+     * @return the label of the pixel
+     */
+    public static final int labelAt(int[][] map, int x, int y)
+    {
+        if (y < 0 || y >= map.length || x < 0 || x >= map[y].length) return 0;
+        return map[y][x];
+    }
+    
+    private static final int indexOf(int[] labels, int label)
+    {
+        for (int i = 0; i < labels.length; i++)
+        {
+            if (labels[i] == label) return i;
+        }
+        return -1;
+    }
+}
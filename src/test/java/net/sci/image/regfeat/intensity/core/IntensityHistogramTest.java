@@ -0,0 +1,229 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import net.sci.array.numeric.UInt8Array2D;
+import net.sci.image.Image;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SampleLabelMaps;
+import net.sci.image.regfeat.intensity.IntensityMAD;
+import net.sci.image.regfeat.intensity.IntensityQuantiles;
+import net.sci.image.regfeat.intensity.MedianIntensity;
+
+/**
+ * Checks the quantiles and the median absolute deviation estimated from
+ * histograms against the ones computed from sorted values.
+ */
+public class IntensityHistogramTest
+{
+    /**
+     * The levels of the quantiles to check.
+     */
+    static final double[] LEVELS = new double[] {0.0, 0.05, 0.25, 0.5, 0.75, 0.95, 1.0};
+    
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link IntensityHistogram.Histogram#quantile(double)},
+     * on integer values with one bin per value, for numbers of values below
+     * and above the size of the pending buffer.
+     */
+    @Test
+    public final void testQuantile()
+    {
+        Random random = new Random(120);
+        for (int n : new int[] {1, 2, 5, 37, 1000})
+        {
+            double[] values = randomValues(random, n, 100);
+            IntensityHistogram.Histogram histo = createHistogram(values);
+            
+            assertEquals(n, histo.total());
+            for (double level : LEVELS)
+            {
+                assertEquals("n=" + n + ", level=" + level, quantile(values, level), histo.quantile(level), 1e-10);
+            }
+        }
+    }
+    
+    /**
+     * Test method for {@link IntensityHistogram.Histogram#medianAbsoluteDeviation()}.
+     */
+    @Test
+    public final void testMedianAbsoluteDeviation()
+    {
+        Random random = new Random(121);
+        for (int n : new int[] {1, 2, 5, 36, 37, 1000})
+        {
+            double[] values = randomValues(random, n, 50);
+            IntensityHistogram.Histogram histo = createHistogram(values);
+            assertEquals("n=" + n, medianAbsoluteDeviation(values), histo.medianAbsoluteDeviation(), 1e-10);
+        }
+    }
+    
+    /**
+     * Test method for {@link IntensityHistogram.Histogram#merge(IntensityHistogram.Histogram)}.
+     */
+    @Test
+    public final void testMerge()
+    {
+        Random random = new Random(122);
+        double[] values1 = randomValues(random, 300, 80);
+        double[] values2 = randomValues(random, 45, 200);
+        IntensityHistogram.Histogram histo = createHistogram(values1);
+        histo.merge(createHistogram(values2));
+        
+        double[] values = new double[values1.length + values2.length];
+        System.arraycopy(values1, 0, values, 0, values1.length);
+        System.arraycopy(values2, 0, values, values1.length, values2.length);
+        assertEquals(values.length, histo.total());
+        for (double level : LEVELS)
+        {
+            assertEquals("level=" + level, quantile(values, level), histo.quantile(level), 1e-10);
+        }
+        assertEquals(medianAbsoluteDeviation(values), histo.medianAbsoluteDeviation(), 1e-10);
+    }
+    
+    /**
+     * Test method for {@link IntensityHistogram#compute(RegionFeatures)},
+     * that checks the quantiles, medians and median absolute deviations of
+     * the regions, computed sequentially and within bands scanned
+     * concurrently.
+     */
+    @Test
+    public final void testCompute_regions()
+    {
+        int sizeX = 40;
+        int sizeY = 600;
+        int[] labels = new int[] {1, 2, 3, 4, 5, 6, 7, 8};
+        int[][] map = SampleLabelMaps.randomLabelMap(sizeX, sizeY, labels, 60, 0.05, 123);
+        Image labelImage = SampleLabelMaps.createImage(map);
+        
+        Random random = new Random(124);
+        UInt8Array2D intensity = UInt8Array2D.create(sizeX, sizeY);
+        for (int y = 0; y < sizeY; y++)
+        {
+            for (int x = 0; x < sizeX; x++)
+            {
+                intensity.setInt(x, y, random.nextInt(100) + 10 * map[y][x]);
+            }
+        }
+        Image intensityImage = new Image(intensity);
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            for (ForkJoinPool dataPool : new ForkJoinPool[] {null, pool})
+            {
+                RegionFeatures data = RegionFeatures.initialize(labelImage).addImageData(IntensityMoments.IMAGE_DATA_NAME, intensityImage);
+                if (dataPool != null) data.parallel(dataPool);
+                data.add(IntensityQuantiles.class).add(MedianIntensity.class).add(IntensityMAD.class).computeAll();
+                
+                int[] regionLabels = data.getLabels();
+                assertTrue(regionLabels.length > 0);
+                double[][] quantiles = (double[][]) data.results.get(IntensityQuantiles.class);
+                double[] medians = (double[]) data.results.get(MedianIntensity.class);
+                double[] mads = (double[]) data.results.get(IntensityMAD.class);
+                double[] defaultLevels = new double[] {0.05, 0.25, 0.75, 0.95};
+                for (int i = 0; i < regionLabels.length; i++)
+                {
+                    double[] values = regionValues(map, intensity, regionLabels[i]);
+                    for (int l = 0; l < defaultLevels.length; l++)
+                    {
+                        assertEquals(quantile(values, defaultLevels[l]), quantiles[l][i], 1e-10);
+                    }
+                    assertEquals(quantile(values, 0.5), medians[i], 1e-10);
+                    assertEquals(medianAbsoluteDeviation(values), mads[i], 1e-10);
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    private static final double[] randomValues(Random random, int n, int maxValue)
+    {
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++)
+        {
+            values[i] = random.nextInt(maxValue);
+        }
+        return values;
+    }
+    
+    /**
+     * Creates a histogram with one bin per integer value.
+     */
+    private static final IntensityHistogram.Histogram createHistogram(double[] values)
+    {
+        IntensityHistogram.Histogram histo = new IntensityHistogram.Histogram(new IntensityHistogram.Binning(0.0, 1.0));
+        for (double v : values)
+        {
+            histo.add(v);
+        }
+        return histo;
+    }
+    
+    /**
+     * Returns the intensity values of the pixels of a region.
+     */
+    private static final double[] regionValues(int[][] map, UInt8Array2D intensity, int label)
+    {
+        ArrayList<Double> values = new ArrayList<>();
+        for (int y = 0; y < map.length; y++)
+        {
+            for (int x = 0; x < map[y].length; x++)
+            {
+                if (map[y][x] == label) values.add((double) intensity.getInt(x, y));
+            }
+        }
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+    
+    /**
+     * Computes the quantile of a set of values by sorting them, using linear
+     * interpolation between the two closest ranks.
+     */
+    private static final double quantile(double[] values, double level)
+    {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double h = (sorted.length - 1) * level;
+        int r0 = (int) Math.floor(h);
+        if (r0 == h) return sorted[r0];
+        return sorted[r0] + (h - r0) * (sorted[r0 + 1] - sorted[r0]);
+    }
+    
+    /**
+     * Computes the median of the absolute deviations to the median by
+     * sorting the values.
+     */
+    private static final double medianAbsoluteDeviation(double[] values)
+    {
+        double median = quantile(values, 0.5);
+        double[] deviations = new double[values.length];
+        for (int i = 0; i < values.length; i++)
+        {
+            deviations[i] = Math.abs(values[i] - median);
+        }
+        return quantile(deviations, 0.5);
+    }
+}
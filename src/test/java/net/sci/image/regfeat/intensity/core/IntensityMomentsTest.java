@@ -0,0 +1,174 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.intensity.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import net.sci.array.numeric.UInt16Array2D;
+import net.sci.image.Image;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SampleLabelMaps;
+
+/**
+ * Checks the streaming and pairwise computation of intensity moments against
+ * two-pass computations.
+ */
+public class IntensityMomentsTest
+{
+    /**
+     * The labels used for painting the label maps.
+     */
+    static final int[] LABELS = new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12};
+    
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link IntensityMoments.Moments#merge(int, IntensityMoments.Moments, int)},
+     * that merges the moments of two parts of a set of values, including
+     * empty parts.
+     */
+    @Test
+    public final void testMerge()
+    {
+        Random random = new Random(110);
+        double[] values = new double[200];
+        for (int k = 0; k < values.length; k++)
+        {
+            values[k] = 1000 + 50 * random.nextGaussian() + 20 * random.nextDouble() * random.nextDouble();
+        }
+        
+        for (int split : new int[] {0, 1, 37, 100, 199, 200})
+        {
+            IntensityMoments.Moments moments = new IntensityMoments.Moments(2);
+            IntensityMoments.Moments other = new IntensityMoments.Moments(1);
+            for (int k = 0; k < split; k++)
+            {
+                moments.add(1, values[k]);
+            }
+            for (int k = split; k < values.length; k++)
+            {
+                other.add(0, values[k]);
+            }
+            moments.merge(1, other, 0);
+            
+            assertEquals(0, moments.counts[0]);
+            assertMoments("split " + split, values, moments, 1);
+        }
+    }
+    
+    /**
+     * Test method for {@link IntensityMoments#compute(RegionFeatures)}, that
+     * compares the moments computed sequentially, and within bands scanned
+     * concurrently, with two-pass computations.
+     */
+    @Test
+    public final void testCompute_parallelBands()
+    {
+        int sizeX = 40;
+        int sizeY = 700;
+        int[][] map = SampleLabelMaps.randomLabelMap(sizeX, sizeY, LABELS, 80, 0.05, 111);
+        Image labelImage = SampleLabelMaps.createImage(map);
+        
+        Random random = new Random(112);
+        UInt16Array2D intensity = UInt16Array2D.create(sizeX, sizeY);
+        for (int y = 0; y < sizeY; y++)
+        {
+            for (int x = 0; x < sizeX; x++)
+            {
+                intensity.setInt(x, y, 2000 + random.nextInt(1000) + 10 * map[y][x]);
+            }
+        }
+        Image intensityImage = new Image(intensity);
+        
+        RegionFeatures seq = RegionFeatures.initialize(labelImage).addImageData(IntensityMoments.IMAGE_DATA_NAME, intensityImage);
+        seq.add(IntensityMoments.class).computeAll();
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RegionFeatures par = RegionFeatures.initialize(labelImage).addImageData(IntensityMoments.IMAGE_DATA_NAME, intensityImage).parallel(pool);
+            par.add(IntensityMoments.class).computeAll();
+            assertArrayEquals(seq.getLabels(), par.getLabels());
+            
+            int[] labels = seq.getLabels();
+            for (RegionFeatures data : new RegionFeatures[] {seq, par})
+            {
+                IntensityMoments.Moments moments = (IntensityMoments.Moments) data.results.get(IntensityMoments.class);
+                for (int i = 0; i < labels.length; i++)
+                {
+                    double[] values = regionValues(map, intensity, labels[i]);
+                    assertMoments("label " + labels[i], values, moments, i);
+                }
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Returns the intensity values of the pixels of a region, in raster order.
+     */
+    private static final double[] regionValues(int[][] map, UInt16Array2D intensity, int label)
+    {
+        ArrayList<Double> values = new ArrayList<>();
+        for (int y = 0; y < map.length; y++)
+        {
+            for (int x = 0; x < map[y].length; x++)
+            {
+                if (map[y][x] == label) values.add((double) intensity.getInt(x, y));
+            }
+        }
+        return values.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+    
+    /**
+     * Compares the moments of a region with the ones computed in two passes
+     * over the values.
+     */
+    private static final void assertMoments(String message, double[] values, IntensityMoments.Moments moments, int i)
+    {
+        int n = values.length;
+        double mean = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double v : values)
+        {
+            mean += v;
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        mean /= n;
+        
+        double m2 = 0, m3 = 0, m4 = 0;
+        for (double v : values)
+        {
+            double d = v - mean;
+            m2 += d * d;
+            m3 += d * d * d;
+            m4 += d * d * d * d;
+        }
+        
+        assertEquals(message, n, moments.counts[i]);
+        assertEquals(message, mean, moments.means[i], 1e-9 * Math.abs(mean));
+        assertEquals(message, m2, moments.m2[i], 1e-9 * m2 + 1e-9);
+        assertEquals(message, m3, moments.m3[i], 1e-7 * Math.pow(m2, 1.5) / Math.sqrt(n) + 1e-9);
+        assertEquals(message, m4, moments.m4[i], 1e-9 * m4 + 1e-9);
+        assertEquals(message, min, moments.mins[i], 0.0);
+        assertEquals(message, max, moments.maxs[i], 0.0);
+    }
+}
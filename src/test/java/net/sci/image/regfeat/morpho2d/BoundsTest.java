@@ -0,0 +1,73 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SampleLabelMaps;
+
+/**
+ * Checks the bounding boxes of the regions are consistent with their
+ * centroids and their oriented bounding boxes.
+ */
+public class BoundsTest
+{
+    /**
+     * Test method for {@link Bounds#compute(RegionFeatures)}, on a one-pixel
+     * region and on a rectangular region.
+     */
+    @Test
+    public final void testCompute_consistentWithCentroidAndOrientedBox()
+    {
+        int[][] map = new int[12][20];
+        map[4][3] = 1;
+        SampleLabelMaps.fill(map, 10, 5, 18, 9, 2);
+        
+        RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map));
+        data.add(Bounds.class).add(Centroid.class).add(OrientedBoundingBox.class).computeAll();
+        double[][] bounds = (double[][]) data.results.get(Bounds.class);
+        double[][] centroids = (double[][]) data.results.get(Centroid.class);
+        double[][] boxes = (double[][]) data.results.get(OrientedBoundingBox.class);
+        
+        // the one-pixel region spans half a pixel around its center
+        assertArrayEquals(new double[] {2.5, 3.5, 3.5, 4.5}, column(bounds, 0), 1e-10);
+        assertArrayEquals(new double[] {3.0, 4.0}, column(centroids, 0), 1e-10);
+        
+        // the rectangle spans the pixels 10 to 17 and 5 to 8
+        assertArrayEquals(new double[] {9.5, 17.5, 4.5, 8.5}, column(bounds, 1), 1e-10);
+        assertArrayEquals(new double[] {13.5, 6.5}, column(centroids, 1), 1e-10);
+        
+        for (int i = 0; i < 2; i++)
+        {
+            // the center of the box of a rectangle is the centroid
+            assertEquals((bounds[0][i] + bounds[1][i]) / 2, centroids[0][i], 1e-10);
+            assertEquals((bounds[2][i] + bounds[3][i]) / 2, centroids[1][i], 1e-10);
+            assertEquals(centroids[0][i], boxes[0][i], 1e-10);
+            assertEquals(centroids[1][i], boxes[1][i], 1e-10);
+            
+            // the oriented box of a rectangle is its bounding box
+            double width = bounds[1][i] - bounds[0][i];
+            double height = bounds[3][i] - bounds[2][i];
+            assertEquals(Math.max(width, height), boxes[2][i], 1e-10);
+            assertEquals(Math.min(width, height), boxes[3][i], 1e-10);
+        }
+    }
+    
+    /**
+     * Returns the values of a region within the result of a tabular feature.
+     */
+    private static final double[] column(double[][] values, int region)
+    {
+        double[] res = new double[values.length];
+        for (int c = 0; c < values.length; c++)
+        {
+            res[c] = values[c][region];
+        }
+        return res;
+    }
+}
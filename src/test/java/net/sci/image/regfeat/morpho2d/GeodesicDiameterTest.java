@@ -0,0 +1,176 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import net.sci.image.Image;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SampleLabelMaps;
+
+/**
+ * Compares the geodesic diameters computed by two propagations with the
+ * distances computed between all the pairs of pixels.
+ */
+public class GeodesicDiameterTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link GeodesicDiameter#compute(RegionFeatures)}, on
+     * regions whose diameter is known.
+     */
+    @Test
+    public final void testCompute_simpleShapes()
+    {
+        int[][] map = new int[20][30];
+        map[1][1] = 1;
+        SampleLabelMaps.fill(map, 3, 1, 28, 2, 2);
+        SampleLabelMaps.fill(map, 4, 5, 14, 9, 3);
+        SampleLabelMaps.fill(map, 20, 4, 21, 19, 4);
+        
+        RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map));
+        data.add(GeodesicDiameter.class).computeAll();
+        
+        // the diameter of a 10x4 rectangle joins opposite corners, using 3
+        // diagonal moves and 6 orthogonal moves
+        double rect = (3 * 7 + 6 * 5) / 5.0 + 1;
+        assertArrayEquals(new double[] {1, 25, rect, 15}, (double[]) data.results.get(GeodesicDiameter.class), 1e-10);
+    }
+    
+    /**
+     * Test method for {@link GeodesicDiameter#compute(RegionFeatures)}, that
+     * checks the diameters of random regions are within the bounds given by
+     * the distances between all the pairs of pixels, and that the regions
+     * processed concurrently give the same results.
+     */
+    @Test
+    public final void testCompute_randomRegions()
+    {
+        int[] labels = new int[] {1, 2, 3, 4, 5};
+        int[][] map = SampleLabelMaps.randomLabelMap(40, 30, labels, 12, 0.05, 150);
+        Image image = SampleLabelMaps.createImage(map);
+        
+        RegionFeatures data = RegionFeatures.initialize(image);
+        data.add(GeodesicDiameter.class).computeAll();
+        double[] diameters = (double[]) data.results.get(GeodesicDiameter.class);
+        
+        int[] regionLabels = data.getLabels();
+        for (int i = 0; i < regionLabels.length; i++)
+        {
+            int[][] dist = allDistances(map, regionLabels[i]);
+            
+            // the diameter is at least the eccentricity of the first pixel,
+            // and at most the largest distance
+            double lower = max(dist[0]) / 5.0 + 1;
+            double upper = 0;
+            for (int[] row : dist)
+            {
+                upper = Math.max(upper, max(row) / 5.0 + 1);
+            }
+            assertTrue(diameters[i] >= lower - 1e-10);
+            assertTrue(diameters[i] <= upper + 1e-10);
+        }
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RegionFeatures par = RegionFeatures.initialize(image).parallel(pool);
+            par.add(GeodesicDiameter.class).computeAll();
+            assertArrayEquals(diameters, (double[]) par.results.get(GeodesicDiameter.class), 0.0);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Computes the chamfer distances between the pixels of the connected
+     * component of the region that contains its first pixel in raster order.
+     * Row k contains the distances from the k-th pixel of the component, in
+     * raster order, and is -1 for the pixels that are not reached.
+     */
+    private static final int[][] allDistances(int[][] map, int label)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        int[] pixels = new int[sizeX * sizeY];
+        int n = 0;
+        for (int y = 0; y < sizeY; y++)
+        {
+            for (int x = 0; x < sizeX; x++)
+            {
+                if (map[y][x] == label) pixels[n++] = y * sizeX + x;
+            }
+        }
+        
+        int[] first = propagate(map, label, pixels[0]);
+        int[][] res = new int[0][];
+        for (int k = 0; k < n; k++)
+        {
+            if (first[pixels[k]] < 0) continue;
+            res = Arrays.copyOf(res, res.length + 1);
+            res[res.length - 1] = propagate(map, label, pixels[k]);
+        }
+        return res;
+    }
+    
+    /**
+     * Computes the chamfer distances from a pixel with the Dijkstra
+     * algorithm, using weights 5 and 7 for orthogonal and diagonal moves.
+     */
+    private static final int[] propagate(int[][] map, int label, int start)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        int[] dist = new int[sizeX * sizeY];
+        Arrays.fill(dist, -1);
+        PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        queue.add(new long[] {0, start});
+        while (!queue.isEmpty())
+        {
+            long[] item = queue.poll();
+            int p = (int) item[1];
+            if (dist[p] >= 0) continue;
+            dist[p] = (int) item[0];
+            int x = p % sizeX;
+            int y = p / sizeX;
+            for (int dy = -1; dy <= 1; dy++)
+            {
+                for (int dx = -1; dx <= 1; dx++)
+                {
+                    if (dx == 0 && dy == 0) continue;
+                    if (SampleLabelMaps.labelAt(map, x + dx, y + dy) != label) continue;
+                    int q = (y + dy) * sizeX + x + dx;
+                    if (dist[q] < 0) queue.add(new long[] {dist[p] + (dx != 0 && dy != 0 ? 7 : 5), q});
+                }
+            }
+        }
+        return dist;
+    }
+    
+    private static final int max(int[] values)
+    {
+        int max = 0;
+        for (int v : values)
+        {
+            max = Math.max(max, v);
+        }
+        return max;
+    }
+}
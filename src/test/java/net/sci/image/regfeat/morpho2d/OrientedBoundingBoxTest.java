@@ -0,0 +1,130 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.sci.image.regfeat.morpho2d.core.ConvexHulls;
+
+/**
+ * Compares the minimum-area boxes computed by rotating calipers with a
+ * brute-force search over the directions of the edges of the convex hulls.
+ */
+public class OrientedBoundingBoxTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link OrientedBoundingBox#minimumAreaBox(double[], double[])},
+     * on an axis-aligned rectangle.
+     */
+    @Test
+    public final void testMinimumAreaBox_rectangle()
+    {
+        double[] px = new double[] {2, 8, 8, 2};
+        double[] py = new double[] {1, 1, 4, 4};
+        double[] box = OrientedBoundingBox.minimumAreaBox(px, py);
+        assertEquals(5.0, box[0], 1e-10);
+        assertEquals(2.5, box[1], 1e-10);
+        assertEquals(6.0, box[2], 1e-10);
+        assertEquals(3.0, box[3], 1e-10);
+        assertEquals(0.0, Math.abs(box[4]), 1e-10);
+    }
+    
+    /**
+     * Test method for {@link OrientedBoundingBox#minimumAreaBox(double[], double[])},
+     * on the convex hulls of random regions with anisotropic spacings.
+     */
+    @Test
+    public final void testMinimumAreaBox_randomHulls()
+    {
+        Random random = new Random(50);
+        double[][] spacings = new double[][] {{1.0, 1.0}, {0.5, 2.0}, {3.0, 0.25}};
+        for (int iter = 0; iter < 100; iter++)
+        {
+            // random row extents, as triplets (y, x0, x1)
+            int nRows = 1 + random.nextInt(20);
+            int[] rows = new int[nRows * 3];
+            for (int y = 0; y < nRows; y++)
+            {
+                int x0 = random.nextInt(20);
+                rows[3 * y] = y;
+                rows[3 * y + 1] = x0;
+                rows[3 * y + 2] = x0 + 1 + random.nextInt(15);
+            }
+            int[] hull = ConvexHulls.convexHull(rows);
+            
+            double[] spacing = spacings[iter % spacings.length];
+            int n = hull.length / 2;
+            double[] px = new double[n];
+            double[] py = new double[n];
+            for (int i = 0; i < n; i++)
+            {
+                px[i] = hull[2 * i] * spacing[0];
+                py[i] = hull[2 * i + 1] * spacing[1];
+            }
+            
+            double[] box = OrientedBoundingBox.minimumAreaBox(px, py);
+            double minArea = bruteForceMinimumArea(px, py);
+            assertEquals(minArea, box[2] * box[3], 1e-9 * Math.max(minArea, 1));
+            assertTrue(box[2] >= box[3]);
+            assertTrue(box[4] >= -90 && box[4] < 90);
+            
+            // all the vertices are within the box
+            double theta = Math.toRadians(box[4]);
+            double ux = Math.cos(theta);
+            double uy = Math.sin(theta);
+            for (int i = 0; i < n; i++)
+            {
+                double dx = px[i] - box[0];
+                double dy = py[i] - box[1];
+                assertTrue(Math.abs(dx * ux + dy * uy) <= box[2] / 2 + 1e-9);
+                assertTrue(Math.abs(dy * ux - dx * uy) <= box[3] / 2 + 1e-9);
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Computes the smallest area of the boxes aligned with an edge of the
+     * polygon, by projecting all the vertices for each edge.
+     */
+    private static final double bruteForceMinimumArea(double[] px, double[] py)
+    {
+        int n = px.length;
+        double minArea = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < n; i++)
+        {
+            int i1 = (i + 1) % n;
+            double dx = px[i1] - px[i];
+            double dy = py[i1] - py[i];
+            double len = Math.hypot(dx, dy);
+            double ux = dx / len;
+            double uy = dy / len;
+            
+            double minU = Double.POSITIVE_INFINITY, maxU = Double.NEGATIVE_INFINITY;
+            double minV = Double.POSITIVE_INFINITY, maxV = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < n; j++)
+            {
+                double u = px[j] * ux + py[j] * uy;
+                double v = py[j] * ux - px[j] * uy;
+                minU = Math.min(minU, u);
+                maxU = Math.max(maxU, u);
+                minV = Math.min(minV, v);
+                maxV = Math.max(maxV, v);
+            }
+            minArea = Math.min(minArea, (maxU - minU) * (maxV - minV));
+        }
+        return minArea;
+    }
+}
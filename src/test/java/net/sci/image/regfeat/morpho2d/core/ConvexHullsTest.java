@@ -0,0 +1,206 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Compares the convex hulls computed from the row extents of regions, and
+ * the maximum Feret diameters computed by rotating calipers, with brute-force
+ * computations over the corners of the pixels.
+ */
+public class ConvexHullsTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link ConvexHulls#convexHull(int[])}, on a single pixel.
+     */
+    @Test
+    public final void testConvexHull_singlePixel()
+    {
+        int[] hull = ConvexHulls.convexHull(new int[] {3, 5, 6});
+        assertEquals(8, hull.length);
+        assertEquals(1.0, ConvexHulls.area(hull), 0.0);
+    }
+    
+    /**
+     * Test method for {@link ConvexHulls#convexHull(int[])}, on random sets of
+     * pixels.
+     */
+    @Test
+    public final void testConvexHull_randomRegions()
+    {
+        Random random = new Random(40);
+        for (int iter = 0; iter < 50; iter++)
+        {
+            boolean[][] mask = randomRegion(random, 3 + random.nextInt(20), 3 + random.nextInt(20));
+            int[] hull = ConvexHulls.convexHull(rowExtents(mask));
+            int n = hull.length / 2;
+            assertTrue(n >= 3);
+            
+            // the hull is strictly convex and counter-clockwise
+            for (int i = 0; i < n; i++)
+            {
+                int j = (i + 1) % n;
+                int k = (i + 2) % n;
+                assertTrue(ConvexHulls.cross(hull[2 * i], hull[2 * i + 1], hull[2 * j], hull[2 * j + 1], hull[2 * k], hull[2 * k + 1]) > 0);
+            }
+            
+            // each vertex is a corner of a pixel of the region
+            for (int i = 0; i < n; i++)
+            {
+                assertTrue(isPixelCorner(mask, hull[2 * i], hull[2 * i + 1]));
+            }
+            
+            // the corners of all the pixels of the region are within the hull
+            for (int y = 0; y < mask.length; y++)
+            {
+                for (int x = 0; x < mask[y].length; x++)
+                {
+                    if (!mask[y][x]) continue;
+                    for (int c = 0; c < 4; c++)
+                    {
+                        int cx = x + (c & 1);
+                        int cy = y + (c >> 1);
+                        for (int i = 0; i < n; i++)
+                        {
+                            int j = (i + 1) % n;
+                            assertTrue(ConvexHulls.cross(hull[2 * i], hull[2 * i + 1], hull[2 * j], hull[2 * j + 1], cx, cy) >= 0);
+                        }
+                    }
+                }
+            }
+            
+            assertTrue(ConvexHulls.area(hull) >= countPixels(mask));
+        }
+    }
+    
+    /**
+     * Test method for {@link ConvexHulls#maxFeretDiameter(int[], double, double)}.
+     */
+    @Test
+    public final void testMaxFeretDiameter()
+    {
+        Random random = new Random(41);
+        double[][] spacings = new double[][] {{1.0, 1.0}, {0.5, 2.0}, {3.0, 0.25}};
+        for (int iter = 0; iter < 50; iter++)
+        {
+            boolean[][] mask = randomRegion(random, 2 + random.nextInt(25), 2 + random.nextInt(25));
+            int[] hull = ConvexHulls.convexHull(rowExtents(mask));
+            for (double[] spacing : spacings)
+            {
+                double expected = bruteForceMaxFeretDiameter(mask, spacing[0], spacing[1]);
+                assertEquals(expected, ConvexHulls.maxFeretDiameter(hull, spacing[0], spacing[1]), 1e-10);
+            }
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Creates a random region, with at least one pixel within each row.
+     */
+    private static final boolean[][] randomRegion(Random random, int sizeX, int sizeY)
+    {
+        double density = 0.05 + 0.5 * random.nextDouble();
+        boolean[][] mask = new boolean[sizeY][sizeX];
+        for (int y = 0; y < sizeY; y++)
+        {
+            for (int x = 0; x < sizeX; x++)
+            {
+                mask[y][x] = random.nextDouble() < density;
+            }
+            mask[y][random.nextInt(sizeX)] = true;
+        }
+        return mask;
+    }
+    
+    /**
+     * Computes the row extents of a region, as triplets (y, x0, x1).
+     */
+    private static final int[] rowExtents(boolean[][] mask)
+    {
+        int[] rows = new int[mask.length * 3];
+        int n = 0;
+        for (int y = 0; y < mask.length; y++)
+        {
+            int x0 = Integer.MAX_VALUE, x1 = Integer.MIN_VALUE;
+            for (int x = 0; x < mask[y].length; x++)
+            {
+                if (!mask[y][x]) continue;
+                x0 = Math.min(x0, x);
+                x1 = Math.max(x1, x + 1);
+            }
+            if (x0 > x1) continue;
+            rows[n++] = y;
+            rows[n++] = x0;
+            rows[n++] = x1;
+        }
+        return Arrays.copyOf(rows, n);
+    }
+    
+    private static final boolean isPixelCorner(boolean[][] mask, int cx, int cy)
+    {
+        for (int y = cy - 1; y <= cy; y++)
+        {
+            for (int x = cx - 1; x <= cx; x++)
+            {
+                if (y >= 0 && y < mask.length && x >= 0 && x < mask[y].length && mask[y][x]) return true;
+            }
+        }
+        return false;
+    }
+    
+    private static final int countPixels(boolean[][] mask)
+    {
+        int count = 0;
+        for (boolean[] row : mask)
+        {
+            for (boolean b : row)
+            {
+                if (b) count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Computes the largest distance between two corners of pixels of the
+     * region.
+     */
+    private static final double bruteForceMaxFeretDiameter(boolean[][] mask, double sx, double sy)
+    {
+        int sizeY = mask.length;
+        int sizeX = mask[0].length;
+        double maxDist2 = 0;
+        for (int y1 = 0; y1 <= sizeY; y1++)
+        {
+            for (int x1 = 0; x1 <= sizeX; x1++)
+            {
+                if (!isPixelCorner(mask, x1, y1)) continue;
+                for (int y2 = 0; y2 <= sizeY; y2++)
+                {
+                    for (int x2 = 0; x2 <= sizeX; x2++)
+                    {
+                        if (!isPixelCorner(mask, x2, y2)) continue;
+                        double dx = (x2 - x1) * sx;
+                        double dy = (y2 - y1) * sy;
+                        maxDist2 = Math.max(maxDist2, dx * dx + dy * dy);
+                    }
+                }
+            }
+        }
+        return Math.sqrt(maxDist2);
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho2d.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import net.sci.image.Image;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.SampleLabelMaps;
+
+/**
+ * Compares the distance maps computed by the separable algorithm with a
+ * brute-force search of the nearest pixel with a different label.
+ */
+public class LabelDistanceMapTest
+{
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link LabelDistanceMap#compute(RegionFeatures)}.
+     */
+    @Test
+    public final void testCompute()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(40, 30, new int[] {1, 2, 3, 4, 5}, 20, 0.02, 60);
+        RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map));
+        LabelDistanceMap.Distances distances = new LabelDistanceMap().compute(data);
+        assertEquals(40, distances.sizeX);
+        assertEquals(30, distances.sizeY);
+        assertArrayEquals(bruteForceDistances(map), distances.dist2);
+    }
+    
+    /**
+     * Test method for {@link LabelDistanceMap#compute(RegionFeatures)}, on a
+     * label map spanning several strips of columns.
+     */
+    @Test
+    public final void testCompute_wideMap()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(300, 12, new int[] {1, 2}, 10, 0.01, 61);
+        RegionFeatures data = RegionFeatures.initialize(SampleLabelMaps.createImage(map));
+        assertArrayEquals(bruteForceDistances(map), new LabelDistanceMap().compute(data).dist2);
+    }
+    
+    /**
+     * Test method for {@link LabelDistanceMap#compute(RegionFeatures)}, that
+     * checks the computation within several strips of columns and blocks of
+     * rows in parallel gives the same results as the sequential computation.
+     */
+    @Test
+    public final void testCompute_parallel()
+    {
+        int[][] map = SampleLabelMaps.randomLabelMap(270, 150, new int[] {1, 2, 3}, 30, 0.01, 62);
+        Image image = SampleLabelMaps.createImage(map);
+        LabelDistanceMap.Distances expected = new LabelDistanceMap().compute(RegionFeatures.initialize(image));
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RegionFeatures data = RegionFeatures.initialize(image).parallel(pool);
+            assertArrayEquals(expected.dist2, new LabelDistanceMap().compute(data).dist2);
+            data = RegionFeatures.initialize(image).parallel(pool).runLengthEncoding(true);
+            assertArrayEquals(expected.dist2, new LabelDistanceMap().compute(data).dist2);
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Computes the squared distance of each pixel to the nearest pixel with a
+     * different label, the pixels outside the map being considered as
+     * background.
+     */
+    private static final int[] bruteForceDistances(int[][] map)
+    {
+        int sizeY = map.length;
+        int sizeX = map[0].length;
+        int[] dist2 = new int[sizeX * sizeY];
+        for (int y = 0; y < sizeY; y++)
+        {
+            for (int x = 0; x < sizeX; x++)
+            {
+                int label = map[y][x];
+                if (label == 0) continue;
+                
+                int minDist2 = Integer.MAX_VALUE;
+                for (int y2 = -1; y2 <= sizeY; y2++)
+                {
+                    for (int x2 = -1; x2 <= sizeX; x2++)
+                    {
+                        if (SampleLabelMaps.labelAt(map, x2, y2) == label) continue;
+                        int dx = x2 - x;
+                        int dy = y2 - y;
+                        minDist2 = Math.min(minDist2, dx * dx + dy * dy);
+                    }
+                }
+                dist2[y * sizeX + x] = minDist2;
+            }
+        }
+        return dist2;
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * 
+ */
+package net.sci.image.regfeat.morpho3d.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import net.sci.array.numeric.Int32Array3D;
+import net.sci.image.Image;
+import net.sci.image.regfeat.RegionFeatures;
+import net.sci.image.regfeat.morpho3d.EulerNumber;
+import net.sci.image.regfeat.morpho3d.Volume;
+
+/**
+ * Checks the histograms of 3D configurations computed slab by slab against
+ * the configurations visited one at a time.
+ */
+public class BinaryConfigurationHistogram3DTest
+{
+    /**
+     * The labels used for painting the label maps.
+     */
+    static final int[] LABELS = new int[] {1, 2, 3, 5, 8};
+    
+    // ==================================================
+    // Test methods
+    
+    /**
+     * Test method for {@link BinaryConfigurationHistogram3D#compute(RegionFeatures)}.
+     */
+    @Test
+    public final void testCompute()
+    {
+        int[][][] map = randomLabelMap(15, 12, 10, 31);
+        RegionFeatures data = RegionFeatures.initialize(createImage(map));
+        data.add(BinaryConfigurationHistogram3D.class).computeAll();
+        
+        int[][] histos = (int[][]) data.results.get(BinaryConfigurationHistogram3D.class);
+        int[][] expected = configurationHistograms(map, data.getLabels());
+        assertEquals(expected.length, histos.length);
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertArrayEquals(expected[i], histos[i]);
+        }
+    }
+    
+    /**
+     * Test method for {@link BinaryConfigurationHistogram3D#compute(RegionFeatures)},
+     * that checks the histograms computed within slabs processed
+     * concurrently are the same as the ones computed sequentially.
+     */
+    @Test
+    public final void testCompute_parallelSlabs()
+    {
+        int[][][] map = randomLabelMap(10, 8, 40, 32);
+        Image image = createImage(map);
+        
+        RegionFeatures seq = RegionFeatures.initialize(image);
+        seq.add(BinaryConfigurationHistogram3D.class).computeAll();
+        
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try
+        {
+            RegionFeatures par = RegionFeatures.initialize(image).parallel(pool);
+            par.add(BinaryConfigurationHistogram3D.class).computeAll();
+            
+            int[][] expected = (int[][]) seq.results.get(BinaryConfigurationHistogram3D.class);
+            int[][] histos = (int[][]) par.results.get(BinaryConfigurationHistogram3D.class);
+            assertArrayEquals(seq.getLabels(), par.getLabels());
+            for (int i = 0; i < expected.length; i++)
+            {
+                assertArrayEquals(expected[i], histos[i]);
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+    
+    /**
+     * Checks the volume and the Euler number of box-shaped regions, one of
+     * them touching the image borders.
+     */
+    @Test
+    public final void testVolumeAndEulerNumber_boxes()
+    {
+        int[][][] map = new int[10][12][14];
+        fill(map, 0, 0, 0, 5, 4, 3, 1);
+        fill(map, 7, 3, 2, 14, 12, 10, 2);
+        fill(map, 2, 6, 4, 5, 10, 7, 3);
+        RegionFeatures data = RegionFeatures.initialize(createImage(map));
+        data.add(Volume.class).add(EulerNumber.class).computeAll();
+        
+        assertArrayEquals(new double[] {60, 7 * 9 * 8, 3 * 4 * 3}, (double[]) data.results.get(Volume.class), 1e-10);
+        assertArrayEquals(new double[] {1, 1, 1}, (double[]) data.results.get(EulerNumber.class), 1e-10);
+    }
+    
+    
+    // ==================================================
+    // Utility methods
+    
+    /**
+     * Creates a 3D label map stored as <code>int[sizeZ][sizeY][sizeX]</code>,
+     * by painting random boxes and adding noise.
+     */
+    static final int[][][] randomLabelMap(int sizeX, int sizeY, int sizeZ, long seed)
+    {
+        Random random = new Random(seed);
+        int[][][] map = new int[sizeZ][sizeY][sizeX];
+        for (int i = 0; i < 12; i++)
+        {
+            int label = LABELS[random.nextInt(LABELS.length)];
+            int x0 = random.nextInt(sizeX);
+            int y0 = random.nextInt(sizeY);
+            int z0 = random.nextInt(sizeZ);
+            int x1 = Math.min(x0 + 1 + random.nextInt(Math.max(sizeX / 2, 1)), sizeX);
+            int y1 = Math.min(y0 + 1 + random.nextInt(Math.max(sizeY / 2, 1)), sizeY);
+            int z1 = Math.min(z0 + 1 + random.nextInt(Math.max(sizeZ / 2, 1)), sizeZ);
+            fill(map, x0, y0, z0, x1, y1, z1, label);
+        }
+        
+        for (int[][] slice : map)
+        {
+            for (int[] row : slice)
+            {
+                for (int x = 0; x < sizeX; x++)
+                {
+                    if (random.nextDouble() < 0.05)
+                    {
+                        row[x] = random.nextBoolean() ? 0 : LABELS[random.nextInt(LABELS.length)];
+                    }
+                }
+            }
+        }
+        return map;
+    }
+    
+    static final void fill(int[][][] map, int x0, int y0, int z0, int x1, int y1, int z1, int label)
+    {
+        for (int z = z0; z < z1; z++)
+        {
+            for (int y = y0; y < y1; y++)
+            {
+                for (int x = x0; x < x1; x++)
+                {
+                    map[z][y][x] = label;
+                }
+            }
+        }
+    }
+    
+    static final Image createImage(int[][][] map)
+    {
+        int sizeZ = map.length;
+        int sizeY = map[0].length;
+        int sizeX = map[0][0].length;
+        Int32Array3D array = Int32Array3D.create(sizeX, sizeY, sizeZ);
+        for (int z = 0; z < sizeZ; z++)
+        {
+            for (int y = 0; y < sizeY; y++)
+            {
+                for (int x = 0; x < sizeX; x++)
+                {
+                    array.setInt(x, y, z, map[z][y][x]);
+                }
+            }
+        }
+        return new Image(array);
+    }
+    
+    /**
+     * Computes the histogram of 2x2x2 configurations of each region, by
+     * visiting the configurations one at a time. The voxels outside the map
+     * are considered as background, and only configurations containing the
+     * region are counted.
+     */
+    static final int[][] configurationHistograms(int[][][] map, int[] labels)
+    {
+        int sizeZ = map.length;
+        int sizeY = map[0].length;
+        int sizeX = map[0][0].length;
+        int[][] histos = new int[labels.length][256];
+        for (int z = 0; z <= sizeZ; z++)
+        {
+            for (int y = 0; y <= sizeY; y++)
+            {
+                for (int x = 0; x <= sizeX; x++)
+                {
+                    for (int i = 0; i < labels.length; i++)
+                    {
+                        int code = 0;
+                        for (int v = 0; v < 8; v++)
+                        {
+                            int label = labelAt(map, x - 1 + (v & 1), y - 1 + ((v >> 1) & 1), z - 1 + ((v >> 2) & 1));
+                            if (label == labels[i]) code |= 1 << v;
+                        }
+                        if (code != 0) histos[i][code]++;
+                    }
+                }
+            }
+        }
+        return histos;
+    }
+    
+    static final int labelAt(int[][][] map, int x, int y, int z)
+    {
+        if (z < 0 || z >= map.length || y < 0 || y >= map[z].length || x < 0 || x >= map[z][y].length) return 0;
+        return map[z][y][x];
+    }
+}